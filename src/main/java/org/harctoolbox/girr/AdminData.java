@@ -138,13 +138,14 @@ final class AdminData implements Serializable {
     /**
      * Export the AdminData into an XML Element.
      * @param doc Owner document
+     * @param options
      * @return
      */
-    Element toElement(Document doc) {
+    Element toElement(Document doc, ExportOptions options) {
         Element element = doc.createElementNS(GIRR_NAMESPACE, ADMINDATA_ELEMENT_NAME);
-        XmlStatic.setPrefix(element);
+        options.setPrefix(element);
         Element creationEl = doc.createElementNS(GIRR_NAMESPACE, CREATIONDATA_ELEMENT_NAME);
-        XmlStatic.setPrefix(creationEl);
+        options.setPrefix(creationEl);
 
         setAttributeIfNonNull(creationEl, CREATINGUSER_ATTRIBUTE_NAME, creatingUser);
         setAttributeIfNonNull(creationEl, SOURCE_ATTRIBUTE_NAME, source);
@@ -158,9 +159,9 @@ final class AdminData implements Serializable {
             element.appendChild(creationEl);
 
         if (notes != null) {
-            notes.entrySet().stream().map((note) -> {
+            options.entries(notes).stream().map((note) -> {
                 Element notesEl = doc.createElementNS(GIRR_NAMESPACE, NOTES_ELEMENT_NAME);
-                XmlStatic.setPrefix(notesEl);
+                options.setPrefix(notesEl);
                 notesEl.setAttribute(XML_LANG_ATTRIBUTE_NAME, note.getKey());
                 notesEl.setTextContent(note.getValue());
                 return notesEl;
@@ -30,10 +30,12 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import static org.harctoolbox.girr.XmlStatic.BASE64_VARINT_ENCODING;
 import static org.harctoolbox.girr.XmlStatic.COMMAND_ELEMENT_NAME;
 import static org.harctoolbox.girr.XmlStatic.COMMENT_ATTRIBUTE_NAME;
 import static org.harctoolbox.girr.XmlStatic.DISPLAYNAME_ATTRIBUTE_NAME;
 import static org.harctoolbox.girr.XmlStatic.DUTYCYCLE_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.ENCODING_ATTRIBUTE_NAME;
 import static org.harctoolbox.girr.XmlStatic.ENDING_ELEMENT_NAME;
 import static org.harctoolbox.girr.XmlStatic.EQUALS;
 import static org.harctoolbox.girr.XmlStatic.FLASH_ELEMENT_NAME;
@@ -68,7 +70,6 @@ import org.harctoolbox.irp.Assignment;
 import org.harctoolbox.irp.Decoder;
 import org.harctoolbox.irp.DomainViolationException;
 import org.harctoolbox.irp.ElementaryDecode;
-import org.harctoolbox.irp.Expression;
 import org.harctoolbox.irp.InvalidNameException;
 import org.harctoolbox.irp.IrpDatabase;
 import org.harctoolbox.irp.IrpException;
@@ -76,11 +77,11 @@ import org.harctoolbox.irp.IrpInvalidArgumentException;
 import org.harctoolbox.irp.IrpParseException;
 import org.harctoolbox.irp.NameEngine;
 import org.harctoolbox.irp.NameUnassignedException;
-import org.harctoolbox.irp.ParameterSpec;
 import org.harctoolbox.irp.Protocol;
 import org.harctoolbox.irp.ShortPronto;
 import static org.harctoolbox.xml.XmlUtils.ENGLISH;
 import static org.harctoolbox.xml.XmlUtils.XML_LANG_ATTRIBUTE_NAME;
+import org.harctoolbox.xml.XmlUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -143,6 +144,14 @@ public final class Command extends XmlExporter implements Named {
 
     private static boolean useInheritanceForXml = true;
 
+    private static boolean useCompactRaw = false;
+
+    /**
+     * Incremented when the global IrpDatabase or DecoderParameters are replaced,
+     * since that may change the derived forms; used to invalidate cached fragments.
+     */
+    private static int configurationGeneration = 0;
+
     /**
      * If true, accept commands without content, that is, only with a name.
      */
@@ -171,6 +180,19 @@ public final class Command extends XmlExporter implements Named {
         return useInheritanceForXml;
     }
 
+    /**
+     * If set to true, the raw form is exported in the compact form, base64 encoded varints,
+     * requiring Girr version 1.3. Takes precedence over fatRaw.
+     * @param val
+     */
+    public static void setUseCompactRaw(boolean val) {
+        useCompactRaw = val;
+    }
+
+    public static boolean isUseCompactRaw() {
+        return useCompactRaw;
+    }
+
     /**
      * If called with argument true, commands without a content, only a name, will be accepted.
      * @param acceptEmpties
@@ -192,6 +214,7 @@ public final class Command extends XmlExporter implements Named {
     public static void setIrpDatabase(IrpDatabase newIrpDatabase) throws IrpParseException {
         irpDatabase = newIrpDatabase;
         decoder = new Decoder(irpDatabase);
+        configurationGeneration++;
     }
 
     /**
@@ -201,6 +224,11 @@ public final class Command extends XmlExporter implements Named {
      */
     public static void setDecoderParameters(Decoder.DecoderParameters newDecoderParameters) {
         decoderParameters = newDecoderParameters;
+        configurationGeneration++;
+    }
+
+    static int getConfigurationGeneration() {
+        return configurationGeneration;
     }
 
     /**
@@ -225,39 +253,59 @@ public final class Command extends XmlExporter implements Named {
         return str.substring(0, str.length() - 1);
     }
 
-    private static void processRaw(Document doc, Element element, String sequence, String tagName, boolean fatRaw) {
-        Element el = toElement(doc, sequence, tagName, fatRaw);
+    private static void processRaw(Document doc, Element element, String sequence, String tagName, ExportOptions options) {
+        Element el = toElement(doc, sequence, tagName, options);
         if (el != null)
             element.appendChild(el);
     }
 
-    private static Element toElement(Document doc, String sequence, String tagName, boolean fatRaw) {
+    private static Element toElement(Document doc, String sequence, String tagName, ExportOptions options) {
         if (sequence == null || sequence.isEmpty())
             return null;
 
         Element el = doc.createElementNS(GIRR_NAMESPACE, tagName);
-        XmlStatic.setPrefix(el);
-        if (fatRaw)
-            insertFatElements(doc, el, sequence);
+        options.setPrefix(el);
+        String compact = options.isCompactRaw() ? compactOrNull(sequence) : null;
+        if (compact != null) {
+            el.setAttribute(ENCODING_ATTRIBUTE_NAME, BASE64_VARINT_ENCODING);
+            el.setTextContent(compact);
+        } else if (options.isFatRaw())
+            insertFatElements(doc, el, sequence, options);
         else
-            el.setTextContent(sequence);
+            el.setTextContent(options.isCanonical() ? Durations.normalize(sequence) : sequence);
 
         return el;
     }
 
-    private static void insertFatElements(Document doc, Element el, String sequence) {
-        String[] durations = sequence.split(SPACE);
-        for (int i = 0; i < durations.length; i++) {
-            String duration = durations[i].replaceAll("[\\+-]", "");
-            Element e = doc.createElementNS(GIRR_NAMESPACE, i % 2 == 0 ? FLASH_ELEMENT_NAME : GAP_ELEMENT_NAME);
-            XmlStatic.setPrefix(e);
-            e.setTextContent(duration);
+    // Sequences that cannot be encoded without loss are written in the ordinary form, also valid in Girr 1.3.
+    private static String compactOrNull(String sequence) {
+        try {
+            return CompactRaw.encode(sequence);
+        } catch (NumberFormatException ex) {
+            logger.log(Level.WARNING, "Raw sequence not written in compact form: {0}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private static void insertFatElements(Document doc, Element el, String sequence, ExportOptions options) {
+        Durations.Scanner scanner = new Durations.Scanner(sequence);
+        while (scanner.next()) {
+            Element e = doc.createElementNS(GIRR_NAMESPACE, scanner.index() % 2 == 0 ? FLASH_ELEMENT_NAME : GAP_ELEMENT_NAME);
+            options.setPrefix(e);
+            e.setTextContent(sequence.substring(scanner.start(), scanner.end()));
             el.appendChild(e);
         }
     }
 
-    private static String parseSequence(Element element) {
+    static String parseSequence(Element element) {
+        String encoding = element.getAttribute(ENCODING_ATTRIBUTE_NAME);
+        if (!encoding.isEmpty()) {
+            if (!encoding.equals(BASE64_VARINT_ENCODING))
+                throw new IllegalArgumentException("Unsupported encoding of raw sequence: " + encoding);
+            return CompactRaw.decode(element.getTextContent());
+        }
         if (element.getElementsByTagNameNS(GIRR_NAMESPACE, FLASH_ELEMENT_NAME).getLength() > 0) {
+            // The durations are taken verbatim, as in the lean form.
             StringBuilder str = new StringBuilder(INITIAL_STRINGBUILDER_CAPACITY);
             NodeList nl = element.getChildNodes();
             for (int i = 0; i < nl.getLength(); i++) {
@@ -329,7 +377,7 @@ public final class Command extends XmlExporter implements Named {
     private Protocol protocol;
     private MasterType masterType;
     private final Map<String, String> notes;
-    private final String name;
+    private String name;
     private final String displayName;
     private String protocolName; // should always be lowercase
     private Map<String, Long> parameters;
@@ -341,6 +389,10 @@ public final class Command extends XmlExporter implements Named {
     private String[] prontoHex;
     private final String comment;
     private Map<String, String> otherFormats;
+    private transient boolean dirty = true;
+    private transient String merkleHash = null;
+    private transient SignalFingerprint signalFingerprint = null;
+    private transient String decodeNote = null;
 
     /**
      * This constructor is for importing from the Element as first argument, taking the inherited protocol name and parameters, given as parameters, into account.
@@ -430,7 +482,7 @@ public final class Command extends XmlExporter implements Named {
             }
             nl = element.getElementsByTagNameNS(GIRR_NAMESPACE, FORMAT_ELEMENT_NAME);
             for (int i = 0; i < nl.getLength(); i++) {
-                Element el = (Element) nl.item(0);
+                Element el = (Element) nl.item(i);
                 otherFormats.put(el.getAttribute(NAME_ATTRIBUTE_NAME), el.getTextContent());
             }
         } catch (IllegalArgumentException ex) { // contains NumberFormatException
@@ -616,8 +668,8 @@ public final class Command extends XmlExporter implements Named {
      * @param lang
      * @return the notes
      */
-    public String getNotes(String lang) {
-        return notes.get(lang);
+    public synchronized String getNotes(String lang) {
+        return decodeNote != null && ENGLISH.equals(lang) ? decodeNote : notes.get(lang);
     }
 
     /**
@@ -646,6 +698,14 @@ public final class Command extends XmlExporter implements Named {
         return protocolName;
     }
 
+    /**
+     * Returns the name of the protocol, without decoding the signal.
+     * @return name of the protocol, or null if the Command has not (yet) got parameters.
+     */
+    synchronized String knownProtocolName() {
+        return protocolName;
+    }
+
     /**
      * @return the parameters
      * @throws org.harctoolbox.irp.IrpException
@@ -668,7 +728,21 @@ public final class Command extends XmlExporter implements Named {
         return frequency;
     }
 
-    private void checkForProtocol() throws IrpException {
+    /**
+     * Returns the frequency like {@link #getFrequency()}, but null instead of failing if it is not known,
+     * for example since the raw form has not (yet) been generated.
+     * @return the frequency, or null.
+     * @throws org.harctoolbox.irp.IrpException
+     */
+    Double knownFrequency() throws IrpException {
+        if (masterType == MasterType.parameters) {
+            checkForProtocol();
+            return protocol.getFrequency();
+        }
+        return frequency != null ? frequency.doubleValue() : null;
+    }
+
+    private synchronized void checkForProtocol() throws IrpException {
         if (protocol == null)
             protocol = irpDatabase.getProtocol(protocolName);
     }
@@ -1006,22 +1080,38 @@ public final class Command extends XmlExporter implements Named {
     }
 
 
+    // The note from decoding, if any, is exported in place of the English note.
+    private synchronized Map<String, String> notesSnapshot() {
+        Map<String, String> snapshot = new LinkedHashMap<>(notes);
+        if (decodeNote != null)
+            snapshot.put(ENGLISH, decodeNote);
+        return snapshot;
+    }
+
+    // Notes from decoding change the export, so they make the Command dirty.
+    // They are kept apart from the notes, since they are not part of the content compared by merkleHash().
+    private void addDecodeNote(String note) {
+        decodeNote = note;
+        dirty = true;
+        merkleHash = null;
+    }
+
     private void generateDecode(IrSignal irSignal) {
         if (irSignal == null) {
-            notes.put(ENGLISH, "No signal information.");
+            addDecodeNote("No signal information.");
             return;
         }
         Decoder.AbstractDecodesCollection<? extends ElementaryDecode> decodes = decoder.decodeIrSignalWithFallback(irSignal, decoderParameters);
 
         if (decodes.isEmpty())
-            notes.put(ENGLISH, "Decoding was invoked, but found no decode.");
+            addDecodeNote("Decoding was invoked, but found no decode.");
         else {
             ElementaryDecode firstDecode = decodes.getPreferred() != null ? decodes.getPreferred() : decodes.first();
             protocolName = firstDecode.getName();
             parameters = firstDecode.getMap();
         }
         if (decodes.size() > 1)
-            notes.put(ENGLISH, "Several decodes");
+            addDecodeNote("Several decodes");
     }
 
     /**
@@ -1030,7 +1120,7 @@ public final class Command extends XmlExporter implements Named {
      * @throws org.harctoolbox.irp.IrpException
      * @throws org.harctoolbox.ircore.IrCoreException
      */
-    public void checkForParameters() throws IrpException, IrCoreException {
+    public synchronized void checkForParameters() throws IrpException, IrCoreException {
         if (parameters == null || parameters.isEmpty())
             generateDecode(toIrSignal());
     }
@@ -1038,7 +1128,7 @@ public final class Command extends XmlExporter implements Named {
     /**
      * Tries to generate the raw version of the signal, unless already present.
      */
-    private void checkForRaw() throws GirrException, DomainViolationException, NameUnassignedException, IrpInvalidArgumentException, InvalidArgumentException, Pronto.NonProntoFormatException, InvalidNameException {
+    private synchronized void checkForRaw() throws GirrException, DomainViolationException, NameUnassignedException, IrpInvalidArgumentException, InvalidArgumentException, Pronto.NonProntoFormatException, InvalidNameException {
         if ((intro != null) || (repeat != null) || (ending != null))
             return;
 
@@ -1053,7 +1143,7 @@ public final class Command extends XmlExporter implements Named {
     /**
      * Tries to generate the Pronto Hex version of the signal, unless already present.
      */
-    private void checkForProntoHex() throws GirrException, IrpInvalidArgumentException, DomainViolationException, NameUnassignedException, OddSequenceLengthException, InvalidNameException {
+    private synchronized void checkForProntoHex() throws GirrException, IrpInvalidArgumentException, DomainViolationException, NameUnassignedException, OddSequenceLengthException, InvalidNameException {
         if (prontoHex != null)
             return;
 
@@ -1137,6 +1227,7 @@ public final class Command extends XmlExporter implements Named {
         if (otherFormats == null)
             otherFormats = new HashMap<>(1);
         otherFormats.put(name, value);
+        modified();
     }
 
     /**
@@ -1151,27 +1242,27 @@ public final class Command extends XmlExporter implements Named {
     }
 
     @Override
-    Element toElement(Document doc, boolean fatRaw, boolean generateParameters, boolean generateProntoHex, boolean generateRaw) {
-        return toElement(doc, fatRaw, generateParameters, generateProntoHex, generateRaw, null, null);
+    Element toElement(Document doc, ExportOptions options) {
+        return toElement(doc, options, null);
     }
 
     /**
      * XMLExport of the Command.
      *
      * @param doc
-     * @param fatRaw
-     * @param generateParameters
-     * @param generateProntoHex
-     * @param generateRaw
-     * @param inheritedProtocolName
-     * @param inheritedParameters
+     * @param options
+     * @param inherited protocol and parameters inherited from the CommandSet, shared between its Commands; may be null.
      * @return XML Element with tag name "command".
      */
     @SuppressWarnings("null")
-    Element toElement(Document doc, boolean fatRaw,
-            boolean generateParameters, boolean generateProntoHex, boolean generateRaw, String inheritedProtocolName, Map<String, Long> inheritedParameters) {
+    Element toElement(Document doc, ExportOptions options, InheritedParameters inherited) {
+        boolean generateParameters = options.isGenerateParameters();
+        boolean generateProntoHex = options.isGenerateProntoHex();
+        boolean generateRaw = options.isGenerateRaw();
+        String inheritedProtocolName = inherited != null ? inherited.getProtocolName() : null;
+        Map<String, Long> inheritedParameters = inherited != null ? inherited.getParameters() : null;
         Element element = doc.createElementNS(GIRR_NAMESPACE, COMMAND_ELEMENT_NAME);
-        XmlStatic.setPrefix(element);
+        options.setPrefix(element);
         element.setAttribute(NAME_ATTRIBUTE_NAME, name);
         MasterType actualMasterType = actualMasterType(generateParameters, generateProntoHex, generateRaw);
 
@@ -1182,63 +1273,48 @@ public final class Command extends XmlExporter implements Named {
         if (displayName != null && !displayName.isEmpty())
             element.setAttribute(DISPLAYNAME_ATTRIBUTE_NAME, this.displayName);
 
-        notes.entrySet().stream().map((note) -> {
-            Element notesEl = doc.createElementNS(GIRR_NAMESPACE, NOTES_ELEMENT_NAME);
-            XmlStatic.setPrefix(notesEl);
-            notesEl.setAttribute(XML_LANG_ATTRIBUTE_NAME, note.getKey());
-            notesEl.setTextContent(note.getValue());
-            return notesEl;
-        }).forEachOrdered((notesEl) -> {
-            element.appendChild(notesEl);
-        });
-
         if (generateParameters || actualMasterType == MasterType.parameters) {
             try {
                 checkForParameters();
                 if (parameters != null) {
-                    if (canReduce(inheritedProtocolName, inheritedParameters)) {
+                    InheritedParameters.ProtocolDefaults defaults = null;
+                    Map<String, Long> missingDefaults = null;
+                    // Without a known protocol (not decoded, or not in the IrpDatabase) there are no defaults to inherit.
+                    if (inheritedParameters != null && checkIfProtocol()) {
+                        defaults = inherited.getProtocolDefaults(protocolName, protocol);
+                        missingDefaults = defaults.evaluateMissing(parameters);
+                    }
+                    if (options.isUseInheritance() && canReduce(inheritedProtocolName, inheritedParameters, defaults, missingDefaults)) {
                         Long parameterF = parameters.get(F_PARAMETER_NAME);
                         if (parameterF != null)
                             element.setAttribute(F_ATTRIBUTE_NAME, parameterF.toString());
                     } else {
                         Element parametersEl = doc.createElementNS(GIRR_NAMESPACE, PARAMETERS_ELEMENT_NAME);
-                        XmlStatic.setPrefix(parametersEl);
+                        options.setPrefix(parametersEl);
                         if (protocolName != null)
                             parametersEl.setAttribute(PROTOCOL_ATTRIBUTE_NAME, protocolName);
                         element.appendChild(parametersEl);
-                        for (Map.Entry<String, Long> kvp : parameters.entrySet()) {
+                        for (Map.Entry<String, Long> kvp : options.entries(parameters)) {
                             Element parameterEl = doc.createElementNS(GIRR_NAMESPACE, PARAMETER_ELEMENT_NAME);
-                            XmlStatic.setPrefix(parameterEl);
+                            options.setPrefix(parameterEl);
                             String parameterName = kvp.getKey();
                             if (inheritedParameters == null || !Objects.equals(kvp.getValue(), inheritedParameters.get(parameterName))) {
                                 parameterEl = doc.createElementNS(GIRR_NAMESPACE, PARAMETER_ELEMENT_NAME);
-                                XmlStatic.setPrefix(parameterEl);
+                                options.setPrefix(parameterEl);
                                 parameterEl.setAttribute(NAME_ATTRIBUTE_NAME, parameterName);
                                 parameterEl.setAttribute(VALUE_ATTRIBUTE_NAME, kvp.getValue().toString());
                                 parametersEl.appendChild(parameterEl);
                             }
                         }
-                        if (inheritedParameters != null) {
-                            checkForProtocol();
-                            for (ParameterSpec p : protocol.getParameterSpecs()) {
-                                String parameterName = p.getName();
-                                if (parameterName.equals(TOGGLE_PARAMETER_NAME) || parameters.containsKey(parameterName))
-                                    continue;
-                                Expression deflt = p.getDefault();
-                                if (deflt == null)
-                                    continue;
-
-                                NameEngine nameEngine = new NameEngine(parameters);
-                                try {
-                                    Long defaultValue = deflt.toLong(nameEngine);
-                                    if (!Objects.equals(defaultValue, inheritedParameters.get(parameterName))) {
-                                        Element el = doc.createElementNS(GIRR_NAMESPACE, PARAMETER_ELEMENT_NAME);
-                                        XmlStatic.setPrefix(el);
-                                        el.setAttribute(NAME_ATTRIBUTE_NAME, parameterName);
-                                        el.setAttribute(VALUE_ATTRIBUTE_NAME, Long.toString(defaultValue));
-                                        parametersEl.appendChild(el);
-                                    }
-                                } catch (NameUnassignedException ex) {
+                        if (missingDefaults != null) {
+                            for (Map.Entry<String, Long> kvp : missingDefaults.entrySet()) {
+                                Long defaultValue = kvp.getValue();
+                                if (defaultValue != null && !Objects.equals(defaultValue, inheritedParameters.get(kvp.getKey()))) {
+                                    Element el = doc.createElementNS(GIRR_NAMESPACE, PARAMETER_ELEMENT_NAME);
+                                    options.setPrefix(el);
+                                    el.setAttribute(NAME_ATTRIBUTE_NAME, kvp.getKey());
+                                    el.setAttribute(VALUE_ATTRIBUTE_NAME, Long.toString(defaultValue));
+                                    parametersEl.appendChild(el);
                                 }
                             }
                         }
@@ -1249,13 +1325,25 @@ public final class Command extends XmlExporter implements Named {
                 element.appendChild(doc.createComment("Parameters requested but could not be generated."));
             }
         }
+        // The notes are written after decoding, which may add a note, but precede the other children.
+        Node firstChild = element.getFirstChild();
+        options.entries(notesSnapshot()).stream().map((note) -> {
+            Element notesEl = doc.createElementNS(GIRR_NAMESPACE, NOTES_ELEMENT_NAME);
+            options.setPrefix(notesEl);
+            notesEl.setAttribute(XML_LANG_ATTRIBUTE_NAME, note.getKey());
+            notesEl.setTextContent(note.getValue());
+            return notesEl;
+        }).forEachOrdered((notesEl) -> {
+            element.insertBefore(notesEl, firstChild);
+        });
+
         if (generateRaw || actualMasterType == MasterType.raw) {
             try {
                 checkForRaw();
                 if (intro != null || repeat != null || ending != null) {
                     for (int T = 0; T < numberOfToggleValues(); T++) {
                         Element rawEl = doc.createElementNS(GIRR_NAMESPACE, RAW_ELEMENT_NAME);
-                        XmlStatic.setPrefix(rawEl);
+                        options.setPrefix(rawEl);
                         rawEl.setAttribute(FREQUENCY_ATTRIBUTE_NAME,
                                 Integer.toString(frequency != null ? frequency : (int) ModulatedIrSequence.DEFAULT_FREQUENCY));
                         if (dutyCycle != null && dutyCycle > 0.0)
@@ -1263,9 +1351,9 @@ public final class Command extends XmlExporter implements Named {
                         if (numberOfToggleValues() > 1)
                             rawEl.setAttribute(TOGGLE_ATTRIBUTE_NAME, Integer.toString(T));
                         element.appendChild(rawEl);
-                        processRaw(doc, rawEl, intro[T], INTRO_ELEMENT_NAME, fatRaw);
-                        processRaw(doc, rawEl, repeat[T], REPEAT_ELEMENT_NAME, fatRaw);
-                        processRaw(doc, rawEl, ending[T], ENDING_ELEMENT_NAME, fatRaw);
+                        processRaw(doc, rawEl, intro[T], INTRO_ELEMENT_NAME, options);
+                        processRaw(doc, rawEl, repeat[T], REPEAT_ELEMENT_NAME, options);
+                        processRaw(doc, rawEl, ending[T], ENDING_ELEMENT_NAME, options);
                     }
                 }
             } catch (IrCoreException | GirrException | IrpException ex) {
@@ -1279,7 +1367,7 @@ public final class Command extends XmlExporter implements Named {
                 if (prontoHex != null) {
                     for (int T = 0; T < numberOfToggleValues(); T++) {
                         Element prontoHexEl = doc.createElementNS(GIRR_NAMESPACE, PRONTO_HEX_ELEMENT_NAME);
-                        XmlStatic.setPrefix(prontoHexEl);
+                        options.setPrefix(prontoHexEl);
                         if (numberOfToggleValues() > 1)
                             prontoHexEl.setAttribute(TOGGLE_ATTRIBUTE_NAME, Integer.toString(T));
                         prontoHexEl.setTextContent(prontoHex[T]);
@@ -1292,9 +1380,9 @@ public final class Command extends XmlExporter implements Named {
             }
         }
         if (otherFormats != null) {
-            otherFormats.entrySet().stream().map((format) -> {
+            options.entries(otherFormats).stream().filter((format) -> options.isOtherFormatIncluded(format.getKey())).map((format) -> {
                 Element formatEl = doc.createElementNS(GIRR_NAMESPACE, FORMAT_ELEMENT_NAME);
-                XmlStatic.setPrefix(formatEl);
+                options.setPrefix(formatEl);
                 formatEl.setAttribute(NAME_ATTRIBUTE_NAME, format.getKey());
                 formatEl.setTextContent(format.getValue());
                 return formatEl;
@@ -1325,8 +1413,17 @@ public final class Command extends XmlExporter implements Named {
         return actualMasterType;
     }
 
-    private boolean canReduce(String inheritedProtocolName, Map<String, Long> inheritedParameters) throws IrpException {
-        if (inheritedParameters == null || ! useInheritanceForXml || ! protocolName.equals(inheritedProtocolName))
+    /**
+     * Returns true if the Command can be exported with only its F parameter, inheriting the rest.
+     * @param inheritedProtocolName
+     * @param inheritedParameters
+     * @param defaults precomputed defaults of the protocol, for the inherited parameters; null if the protocol is unknown.
+     * @param missingDefaults defaults of the parameters missing in this Command, see {@link InheritedParameters.ProtocolDefaults#evaluateMissing(Map)}.
+     * @return
+     */
+    private boolean canReduce(String inheritedProtocolName, Map<String, Long> inheritedParameters,
+            InheritedParameters.ProtocolDefaults defaults, Map<String, Long> missingDefaults) {
+        if (inheritedParameters == null || defaults == null || ! protocolName.equals(inheritedProtocolName))
             return false;
 
         for (Map.Entry<String, Long> kvp : parameters.entrySet()) {
@@ -1338,31 +1435,10 @@ public final class Command extends XmlExporter implements Named {
                 return false;
         }
 
-        checkForProtocol();
-        for (ParameterSpec p : protocol.getParameterSpecs()) {
-            String parameterName = p.getName();
-            if (parameterName.equals(TOGGLE_PARAMETER_NAME))
-                continue;
-            Expression deflt = p.getDefault();
-            if (deflt == null)
-                continue;
-
-            Long newValue = parameters.get(parameterName);
-            if (newValue != null) // has been checked already
-                continue;
-
-            NameEngine nameEngine = new NameEngine(parameters);
-            try {
-                Long defaultValue = deflt.toLong(nameEngine);
-                Long inheritedValue = inheritedParameters.get(parameterName);
-                if (inheritedValue == null)
-                    inheritedValue = deflt.toLong(new NameEngine(inheritedParameters));
-                if (!Objects.equals(defaultValue, inheritedValue))
-                    return false;
-            } catch (NameUnassignedException ex) {
+        for (Map.Entry<String, Long> kvp : missingDefaults.entrySet()) {
+            Long defaultValue = kvp.getValue();
+            if (defaultValue == null || !defaultValue.equals(defaults.getInheritedValue(kvp.getKey())))
                 return false;
-                //Logger.getLogger(Command.class.getName()).log(Level.SEVERE, null, ex);
-            }
         }
         return true;
     }
@@ -1394,6 +1470,98 @@ public final class Command extends XmlExporter implements Named {
             dutyCycle = null;
         }
         otherFormats = null;
+        modified();
+    }
+
+    /**
+     * Returns true if the Command has been modified since it was last exported through a cached fragment,
+     * see {@link Remote#setUseFragmentCache(boolean)}.
+     * Lazy generation of the derived forms does not count as modification, since it does not change the export,
+     * but notes added by decoding do.
+     * @return true if modified.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    void markClean() {
+        dirty = false;
+    }
+
+    private void modified() {
+        dirty = true;
+        merkleHash = null;
+        signalFingerprint = null;
+    }
+
+    /**
+     * Returns the canonical fingerprint of the signal, independent of its representation;
+     * Commands holding the same signal as parameters, Pronto Hex, or raw sequences get equal fingerprints,
+     * as far as the raw form can be decoded.
+     * It is computed when first needed, and kept until the Command is modified through its own methods.
+     * @return SignalFingerprint
+     * @throws IrpException
+     * @throws IrCoreException if the Command has no signal, or its signal could not be rendered.
+     */
+    public synchronized SignalFingerprint getSignalFingerprint() throws IrpException, IrCoreException {
+        if (signalFingerprint == null) {
+            checkForParameters();
+            if (protocolName != null) {
+                checkForProtocol();
+                signalFingerprint = new SignalFingerprint(protocolName, protocol, parameters);
+            } else
+                signalFingerprint = new SignalFingerprint(toIrSignal());
+        }
+        return signalFingerprint;
+    }
+
+    /**
+     * Compares the signals of two Commands by their {@link #getSignalFingerprint()}; names and comments are ignored.
+     * @param command
+     * @return true if the signals are equivalent.
+     * @throws IrpException
+     * @throws IrCoreException
+     */
+    public boolean isSignalEquivalent(Command command) throws IrpException, IrCoreException {
+        return getSignalFingerprint().equals(command.getSignalFingerprint());
+    }
+
+    /**
+     * Returns a hash of the content of the Command, i.e., its name, comment, notes, master form, and other formats,
+     * independent of inheritance and of the derived forms. Notes added by decoding are not included.
+     * It is computed when first needed, and kept until the Command is modified through its own methods.
+     * @return SHA-256 as lower case hexadecimal string.
+     * @see RemoteSetDiff
+     */
+    public synchronized String merkleHash() {
+        if (merkleHash == null) {
+            Element element = toElement(XmlUtils.newDocument(true), ExportOptions.MASTER_ONLY);
+            // Whether the Command has been decoded or not does not change its content.
+            if (decodeNote != null)
+                restoreNote(element, ENGLISH, notes.get(ENGLISH));
+            merkleHash = contentHash(element);
+        }
+        return merkleHash;
+    }
+
+    // Replaces the exported note in the language by the original one, or removes it if there was none.
+    private static void restoreNote(Element element, String lang, String original) {
+        NodeList nodeList = element.getElementsByTagNameNS(GIRR_NAMESPACE, NOTES_ELEMENT_NAME);
+        for (int i = 0; i < nodeList.getLength(); i++) {
+            Element notesEl = (Element) nodeList.item(i);
+            if (notesEl.getAttribute(XML_LANG_ATTRIBUTE_NAME).equals(lang)) {
+                if (original != null)
+                    notesEl.setTextContent(original);
+                else
+                    element.removeChild(notesEl);
+                return;
+            }
+        }
+    }
+
+    void setName(String name) {
+        this.name = name;
+        modified();
     }
 
     /**
@@ -19,6 +19,7 @@ package org.harctoolbox.girr;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -27,9 +28,9 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import static org.harctoolbox.girr.Command.F_PARAMETER_NAME;
 import static org.harctoolbox.girr.Command.INITIAL_HASHMAP_CAPACITY;
 import static org.harctoolbox.girr.XmlStatic.COMMANDSET_ELEMENT_NAME;
 import static org.harctoolbox.girr.XmlStatic.COMMAND_ELEMENT_NAME;
@@ -60,11 +61,29 @@ public final class CommandSet extends XmlExporter implements Named, Iterable<Com
 
     private final static Logger logger = Logger.getLogger(CommandSet.class.getName());
 
+    private static boolean optimizeInheritance = false;
+
+    /**
+     * If true, {@link #generateInheritanceParameters()} selects the most common protocol and parameters
+     * of the contained Commands; otherwise (default), the ones of the first Command.
+     * @param val
+     */
+    public static void setOptimizeInheritance(boolean val) {
+        optimizeInheritance = val;
+    }
+
+    public static boolean isOptimizeInheritance() {
+        return optimizeInheritance;
+    }
+
     private final Map<String, String> notes;
     private String protocolName;
-    private final String name;
+    private String name;
     private final Map<String, Long> parameters;
     private final Map<String, Command> commands;
+    private transient boolean dirty = true;
+    private transient String merkleHash = null;
+    private transient String[] merkleChildren = null;
 
     /**
      * This constructor is used to read a Girr file into a CommandSet.
@@ -235,6 +254,10 @@ public final class CommandSet extends XmlExporter implements Named, Iterable<Com
         return commands.values().iterator();
     }
 
+    Map<String, String> getAllNotes() {
+        return Collections.unmodifiableMap(notes);
+    }
+
     /**
      * Sort the commands according to the Comparator given as argument.
      * @param comparator
@@ -243,6 +266,7 @@ public final class CommandSet extends XmlExporter implements Named, Iterable<Com
         List<Command> list = new ArrayList<>(commands.values());
         Collections.sort(list, comparator);
         Named.populateMap(commands, list);
+        modified();
     }
 
     /**
@@ -258,21 +282,20 @@ public final class CommandSet extends XmlExporter implements Named, Iterable<Com
 
     /**
      * Attempt to generate inheritance information.
+     * The protocol and the parameters, except for F, are taken from the Commands with master type parameters;
+     * either the most common combination, or the one of the first Command, see {@link #setOptimizeInheritance(boolean)}.
      */
     public void generateInheritanceParameters() {
-        Command firstCommand = this.iterator().next();
-        if (firstCommand != null && firstCommand.getMasterType() == Command.MasterType.parameters) {
-            try {
-                firstCommand.checkForParameters();
-                protocolName = firstCommand.getProtocolName();
-                for (Map.Entry<String, Long> kvp : firstCommand.getParameters().entrySet()) {
-                    String parameterName = kvp.getKey();
-                    if (!parameterName.equals(F_PARAMETER_NAME))
-                        parameters.put(parameterName, kvp.getValue());
-                }
-            } catch (IrpException | IrCoreException ex) {
-                logger.log(Level.WARNING, "Cannot generate inheritance parameters");
+        try {
+            InheritanceOptimizer.Candidate candidate = selectCandidate(optimizeInheritance);
+            if (candidate != null) {
+                protocolName = candidate.getProtocolName();
+                parameters.clear();
+                parameters.putAll(candidate.getParameters());
+                modified();
             }
+        } catch (IrpException | IrCoreException ex) {
+            logger.log(Level.WARNING, "Cannot generate inheritance parameters");
         }
     }
 
@@ -282,32 +305,105 @@ public final class CommandSet extends XmlExporter implements Named, Iterable<Com
     public void deleteInheritanceParameters() {
         protocolName = null;
         parameters.clear();
+        modified();
+    }
+
+    /**
+     * Returns true if the CommandSet, or any of its Commands, has been modified since last exported through a cached fragment.
+     * @return true if modified.
+     */
+    public boolean isDirty() {
+        if (dirty)
+            return true;
+        for (Command command : this)
+            if (command.isDirty())
+                return true;
+        return false;
+    }
+
+    void markClean() {
+        dirty = false;
+        for (Command command : this)
+            command.markClean();
+    }
+
+    private void modified() {
+        dirty = true;
+        merkleHash = null;
+    }
+
+    /**
+     * Returns a hash of the content of the CommandSet, combined from its name, notes, and the
+     * {@link Command#merkleHash()} of its Commands, in order.
+     * It is kept as long as the CommandSet is not modified, and the hashes of its Commands are unchanged.
+     * @return SHA-256 as lower case hexadecimal string.
+     */
+    public synchronized String merkleHash() {
+        String[] children = new String[commands.size()];
+        int i = 0;
+        for (Command command : this)
+            children[i++] = command.merkleHash();
+        if (merkleHash == null || !Arrays.equals(children, merkleChildren)) {
+            merkleHash = ContentHash.combine(COMMANDSET_ELEMENT_NAME, name + '\0' + new TreeMap<>(notes), children);
+            merkleChildren = children;
+        }
+        return merkleHash;
+    }
+
+    void setName(String name) {
+        this.name = name;
+        modified();
+    }
+
+    /**
+     * Adds the Command, replacing a Command with the same name, if any.
+     * @param command
+     */
+    void putCommand(Command command) {
+        commands.put(command.getName(), command);
+        modified();
+    }
+
+    Command removeCommand(String commandName) {
+        modified();
+        return commands.remove(commandName);
+    }
+
+    /**
+     * Renames a Command, keeping its position.
+     * @param commandName
+     * @param newName
+     */
+    void renameCommand(String commandName, String newName) {
+        commands.get(commandName).setName(newName);
+        Named.rekey(commands);
+        modified();
     }
 
     @Override
-    Element toElement(Document doc, boolean fatRaw, boolean generateParameters, boolean generateProntoHex, boolean generateRaw) {
-        if (Command.isUseInheritanceForXml())
-            generateInheritanceParameters();
+    Element toElement(Document doc, ExportOptions options) {
+        // The inheritance is decided for this export only; the CommandSet itself is not modified.
+        InheritedParameters inherited = exportInheritance(options);
         Element element = doc.createElementNS(GIRR_NAMESPACE, COMMANDSET_ELEMENT_NAME);
-        XmlStatic.setPrefix(element);
+        options.setPrefix(element);
         element.setAttribute(NAME_ATTRIBUTE_NAME, name);
-        notes.entrySet().stream().map((note) -> {
+        options.entries(notes).stream().map((note) -> {
             Element notesEl = doc.createElementNS(GIRR_NAMESPACE, NOTES_ELEMENT_NAME);
-            XmlStatic.setPrefix(notesEl);
+            options.setPrefix(notesEl);
             notesEl.setAttribute(XML_LANG_ATTRIBUTE_NAME, note.getKey());
             notesEl.setTextContent(note.getValue());
             return notesEl;
         }).forEachOrdered((notesEl) -> {
             element.appendChild(notesEl);
         });
-        if (shouldDoParameters(generateParameters, generateProntoHex, generateRaw)) {
+        if (shouldDoParameters(inherited.getParameters(), options.isGenerateParameters(), options.isGenerateProntoHex(), options.isGenerateRaw())) {
             Element parametersEl = doc.createElementNS(GIRR_NAMESPACE, PARAMETERS_ELEMENT_NAME);
-            XmlStatic.setPrefix(parametersEl);
-            parametersEl.setAttribute(PROTOCOL_ATTRIBUTE_NAME, protocolName);
+            options.setPrefix(parametersEl);
+            parametersEl.setAttribute(PROTOCOL_ATTRIBUTE_NAME, inherited.getProtocolName());
             element.appendChild(parametersEl);
-            parameters.entrySet().stream().map((parameter) -> {
+            options.entries(inherited.getParameters()).stream().map((parameter) -> {
                 Element parameterEl = doc.createElementNS(GIRR_NAMESPACE, PARAMETER_ELEMENT_NAME);
-                XmlStatic.setPrefix(parameterEl);
+                options.setPrefix(parameterEl);
                 parameterEl.setAttribute(NAME_ATTRIBUTE_NAME, parameter.getKey());
                 parameterEl.setAttribute(VALUE_ATTRIBUTE_NAME, parameter.getValue().toString());
                 return parameterEl;
@@ -317,15 +413,37 @@ public final class CommandSet extends XmlExporter implements Named, Iterable<Com
         }
         if (commands != null) {
             commands.values().forEach((command) -> {
-                element.appendChild(command.toElement(doc, fatRaw,
-                        generateParameters, generateProntoHex, generateRaw, protocolName, parameters));
+                element.appendChild(command.toElement(doc, options, inherited));
             });
         }
         return element;
     }
 
-    private boolean shouldDoParameters(boolean generateParameters, boolean generateProntoHex, boolean generateRaw) {
-        return parameters != null && ! parameters.isEmpty()
+    /**
+     * Determines the protocol and parameters the Commands inherit in an export,
+     * without modifying the CommandSet, cf. {@link #generateInheritanceParameters()}.
+     */
+    InheritedParameters exportInheritance(ExportOptions options) {
+        if (options.isUseInheritance()) {
+            try {
+                InheritanceOptimizer.Candidate candidate = selectCandidate(options.isOptimizeInheritance());
+                if (candidate != null)
+                    return new InheritedParameters(candidate.getProtocolName(), candidate.getParameters());
+            } catch (IrpException | IrCoreException ex) {
+                logger.log(Level.WARNING, "Cannot generate inheritance parameters");
+            }
+        }
+        return new InheritedParameters(protocolName, parameters);
+    }
+
+    private InheritanceOptimizer.Candidate selectCandidate(boolean optimize) throws IrpException, IrCoreException {
+        return optimize
+                ? InheritanceOptimizer.mostCommon(this)
+                : isEmpty() ? null : InheritanceOptimizer.candidate(this.iterator().next());
+    }
+
+    boolean shouldDoParameters(Map<String, Long> inheritedParameters, boolean generateParameters, boolean generateProntoHex, boolean generateRaw) {
+        return inheritedParameters != null && ! inheritedParameters.isEmpty()
                 && (generateParameters || firstCommandMasterParameters(generateParameters, generateProntoHex, generateRaw));
     }
 
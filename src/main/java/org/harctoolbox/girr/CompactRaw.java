@@ -0,0 +1,96 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+
+/**
+ * Encoder and decoder for the compact form of raw sequences (Girr 1.3).
+ * Every duration, an integral number of microseconds, is written as an
+ * unsigned LEB128 varint; the resulting bytes are base64 encoded.
+ * Since the encoding is lossless, sequences with fractional durations cannot be encoded.
+ * As in the fat form, the signs are implied by the position: even indices are flashes, odd are gaps.
+ */
+final class CompactRaw {
+
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION = 0x80;
+    private static final int INITIAL_BUFFER_CAPACITY = 64;
+
+    /**
+     * Encodes a sequence of (possibly signed) durations, separated by white space.
+     * @param sequence durations in the lean text form, like "+9024 -4512 +564 -564".
+     * @return base64 encoded varints.
+     * @throws NumberFormatException if the argument contains something else than durations,
+     * non-integral durations, or durations with a sign not matching their position.
+     */
+    static String encode(String sequence) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(INITIAL_BUFFER_CAPACITY);
+        Durations.Scanner scanner = new Durations.Scanner(sequence);
+        while (scanner.next()) {
+            if (!scanner.isIntegral())
+                throw new NumberFormatException("Non-integral duration in \"" + sequence + "\"");
+            if (scanner.sign() != 0 && (scanner.sign() > 0) != (scanner.index() % 2 == 0))
+                throw new NumberFormatException("Duration with wrong sign in \"" + sequence + "\"");
+            writeVarint(bytes, scanner.magnitude());
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Decodes the compact form into the lean text form, with explicit signs.
+     * @param encoded base64 encoded varints, as generated by {@link #encode(String)}.
+     * @return durations separated by a space, like "+9024 -4512 +564 -564".
+     * @throws IllegalArgumentException if the argument is not valid base64, or contains a truncated varint.
+     */
+    static String decode(String encoded) {
+        byte[] bytes = Base64.getMimeDecoder().decode(encoded.trim());
+        StringBuilder str = new StringBuilder(4 * bytes.length);
+        int index = 0;
+        int position = 0;
+        while (position < bytes.length) {
+            long value = 0L;
+            int shift = 0;
+            int b;
+            do {
+                if (position >= bytes.length)
+                    throw new IllegalArgumentException("Truncated varint in compact raw sequence");
+                b = bytes[position++] & 0xFF;
+                value |= ((long) (b & VARINT_PAYLOAD_MASK)) << shift;
+                shift += VARINT_PAYLOAD_BITS;
+            } while ((b & VARINT_CONTINUATION) != 0);
+            Durations.appendSigned(str, index % 2 == 0, value);
+            index++;
+        }
+        return str.toString();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream bytes, long value) {
+        long v = value;
+        while ((v & ~VARINT_PAYLOAD_MASK) != 0L) {
+            bytes.write((int) ((v & VARINT_PAYLOAD_MASK) | VARINT_CONTINUATION));
+            v >>>= VARINT_PAYLOAD_BITS;
+        }
+        bytes.write((int) v);
+    }
+
+    private CompactRaw() {
+    }
+}
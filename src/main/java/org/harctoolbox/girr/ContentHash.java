@@ -0,0 +1,164 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import static javax.xml.XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+import org.harctoolbox.ircore.ThisCannotHappenException;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Computes SHA-256 hashes of DOM trees, independent of the serialization.
+ * Elements and attributes are identified by namespace URI and local name (so the prefix is irrelevant),
+ * attributes are taken in sorted order, namespace declarations, comments, and processing instructions are ignored,
+ * and white space in text is collapsed.
+ */
+final class ContentHash {
+
+    private static final String ALGORITHM = "SHA-256";
+    private static final byte ELEMENT_START = 1;
+    private static final byte ELEMENT_END = 2;
+    private static final byte ATTRIBUTE = 3;
+    private static final byte TEXT = 4;
+    private static final byte SEPARATOR = 0;
+
+    private static final Comparator<Attr> ATTRIBUTE_ORDER
+            = Comparator.comparing((Attr a) -> nonNull(a.getNamespaceURI())).thenComparing(ContentHash::localName);
+
+    static String sha256(Node node) {
+        MessageDigest digest = newDigest();
+        update(digest, node);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Combines the hash of the own content of a node in the Girr tree with the hashes of its children, in order.
+     * @param kind type of the node, like "remote".
+     * @param own hash of the own content, or null if none.
+     * @param children hashes of the children.
+     * @return SHA-256 as lower case hexadecimal string.
+     */
+    static String combine(String kind, String own, String[] children) {
+        MessageDigest digest = newDigest();
+        update(digest, kind);
+        update(digest, nonNull(own));
+        for (String child : children)
+            update(digest, child);
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java implementation is required to support SHA-256
+            throw new ThisCannotHappenException(ex);
+        }
+    }
+
+    private static void update(MessageDigest digest, Node node) {
+        switch (node.getNodeType()) {
+            case Node.DOCUMENT_NODE:
+            case Node.DOCUMENT_FRAGMENT_NODE:
+                updateChildren(digest, node);
+                break;
+            case Node.ELEMENT_NODE:
+                updateElement(digest, (Element) node);
+                break;
+            case Node.TEXT_NODE:
+            case Node.CDATA_SECTION_NODE:
+                String text = collapse(node.getNodeValue());
+                if (!text.isEmpty()) {
+                    digest.update(TEXT);
+                    update(digest, text);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void updateElement(MessageDigest digest, Element element) {
+        digest.update(ELEMENT_START);
+        update(digest, nonNull(element.getNamespaceURI()));
+        update(digest, localName(element));
+
+        NamedNodeMap attributes = element.getAttributes();
+        List<Attr> list = new ArrayList<>(attributes.getLength());
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attr = (Attr) attributes.item(i);
+            if (!XMLNS_ATTRIBUTE_NS_URI.equals(attr.getNamespaceURI()))
+                list.add(attr);
+        }
+        list.sort(ATTRIBUTE_ORDER);
+        for (Attr attr : list) {
+            digest.update(ATTRIBUTE);
+            update(digest, nonNull(attr.getNamespaceURI()));
+            update(digest, localName(attr));
+            update(digest, attr.getValue());
+        }
+
+        updateChildren(digest, element);
+        digest.update(ELEMENT_END);
+    }
+
+    private static void updateChildren(MessageDigest digest, Node node) {
+        NodeList children = node.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++)
+            update(digest, children.item(i));
+    }
+
+    private static void update(MessageDigest digest, String string) {
+        digest.update(string.getBytes(StandardCharsets.UTF_8));
+        digest.update(SEPARATOR);
+    }
+
+    private static String localName(Node node) {
+        String localName = node.getLocalName();
+        return localName != null ? localName : node.getNodeName();
+    }
+
+    private static String nonNull(String string) {
+        return string != null ? string : "";
+    }
+
+    private static String collapse(String string) {
+        return string.trim().replaceAll("\\s+", " ");
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder str = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) {
+            str.append(Character.forDigit((b >> 4) & 0xF, 16));
+            str.append(Character.forDigit(b & 0xF, 16));
+        }
+        return str.toString();
+    }
+
+    private ContentHash() {
+    }
+}
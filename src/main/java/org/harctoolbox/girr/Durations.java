@@ -0,0 +1,205 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.nio.CharBuffer;
+
+/**
+ * Hand written scanner and formatter for lists of (optionally signed) durations,
+ * like "+9024 -4512 +564 -564", as used in the raw sequences.
+ * It works directly on the characters, without regular expressions, splitting, or intermediate Strings.
+ * Fractional durations are accepted, and rounded to the nearest integer.
+ */
+final class Durations {
+
+    private static final char PLUS = '+';
+    private static final char MINUS = '-';
+    private static final char DECIMAL_POINT = '.';
+    private static final char SEPARATOR = ' ';
+
+    /**
+     * Appends a duration to the StringBuilder, with an explicit sign,
+     * preceded by a separator unless the StringBuilder is empty.
+     * @param str StringBuilder to append to.
+     * @param flash if true, the duration is a flash, and gets a "+", otherwise a gap, getting a "-".
+     * @param duration magnitude of the duration.
+     * @return the first argument.
+     */
+    static StringBuilder appendSigned(StringBuilder str, boolean flash, long duration) {
+        if (str.length() > 0)
+            str.append(SEPARATOR);
+        return str.append(flash ? PLUS : MINUS).append(duration);
+    }
+
+    /**
+     * Rewrites a sequence of durations in the normalized form:
+     * separated by single spaces, rounded to integers, with signs given by the position.
+     * @param sequence
+     * @return normalized sequence, like "+9024 -4512 +564 -564".
+     * @throws NumberFormatException if the argument contains something else than durations.
+     */
+    static String normalize(CharSequence sequence) {
+        StringBuilder str = new StringBuilder(sequence.length());
+        Scanner scanner = new Scanner(sequence);
+        while (scanner.next())
+            appendSigned(str, scanner.index() % 2 == 0, scanner.magnitude());
+        return str.toString();
+    }
+
+    private Durations() {
+    }
+
+    /**
+     * Cursor type scanner over a CharSequence of durations separated by white space.
+     * A single instance can be reused for several sequences through {@link #reset(CharSequence)}.
+     */
+    static final class Scanner {
+
+        private CharSequence chars;
+        private int position;
+        private int start;
+        private int index;
+        private long magnitude;
+        private boolean integral;
+        private int sign;
+
+        Scanner(CharSequence chars) {
+            reset(chars);
+        }
+
+        Scanner(char[] chars, int offset, int length) {
+            this(CharBuffer.wrap(chars, offset, length));
+        }
+
+        Scanner(char[] chars) {
+            this(chars, 0, chars.length);
+        }
+
+        /**
+         * Restarts the scanner on a new sequence.
+         * @param newChars
+         * @return this
+         */
+        Scanner reset(CharSequence newChars) {
+            chars = newChars;
+            position = 0;
+            start = 0;
+            index = -1;
+            magnitude = 0L;
+            integral = true;
+            sign = 0;
+            return this;
+        }
+
+        /**
+         * Advances to the next duration.
+         * @return true if a duration was found, false at the end of the sequence.
+         * @throws NumberFormatException on characters that are not part of a duration.
+         */
+        boolean next() {
+            int length = chars.length();
+            while (position < length && Character.isWhitespace(chars.charAt(position)))
+                position++;
+            if (position >= length)
+                return false;
+
+            char ch = chars.charAt(position);
+            sign = 0;
+            if (ch == PLUS || ch == MINUS) {
+                sign = ch == PLUS ? 1 : -1;
+                position++;
+            }
+
+            int first = position;
+            int digits = 0;
+            long value = 0L;
+            boolean exact = true;
+            while (position < length && isDigit(ch = chars.charAt(position))) {
+                value = 10L * value + (ch - '0');
+                position++;
+                digits++;
+            }
+            if (position < length && chars.charAt(position) == DECIMAL_POINT) {
+                position++;
+                // Only the first decimal is needed for rounding, the rest are checked and skipped.
+                if (position < length && isDigit(ch = chars.charAt(position)) && ch >= '5')
+                    value++;
+                while (position < length && isDigit(ch = chars.charAt(position))) {
+                    if (ch != '0')
+                        exact = false;
+                    position++;
+                    digits++;
+                }
+            }
+            if (digits == 0 || (position < length && !Character.isWhitespace(chars.charAt(position))))
+                throw new NumberFormatException("Invalid duration at position " + first + " in \"" + chars + "\"");
+
+            start = first;
+            magnitude = value;
+            integral = exact;
+            index++;
+            return true;
+        }
+
+        /**
+         * @return the absolute value of the current duration, rounded to integer.
+         */
+        long magnitude() {
+            return magnitude;
+        }
+
+        /**
+         * @return start of the current duration, after the sign, if any.
+         */
+        int start() {
+            return start;
+        }
+
+        /**
+         * @return end (exclusive) of the current duration.
+         */
+        int end() {
+            return position;
+        }
+
+        /**
+         * @return true if the current duration was integral, i.e., was not changed by the rounding.
+         */
+        boolean isIntegral() {
+            return integral;
+        }
+
+        /**
+         * @return +1 or -1 if the current duration had an explicit sign, otherwise 0.
+         */
+        int sign() {
+            return sign;
+        }
+
+        /**
+         * @return the position of the current duration in the sequence, starting with 0.
+         */
+        int index() {
+            return index;
+        }
+
+        private static boolean isDigit(char ch) {
+            return ch >= '0' && ch <= '9';
+        }
+    }
+}
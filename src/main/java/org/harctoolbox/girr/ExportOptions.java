@@ -0,0 +1,372 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Immutable collection of the options controlling the XML export.
+ * Instances are modified by the "with" methods, returning a new instance,
+ * so a particular instance can be shared between concurrent exports.
+ *
+ * The no-argument constructor gives the default options.
+ * The older export functions taking boolean arguments use the global settings of
+ * {@link Command}, {@link CommandSet}, {@link RemoteSet}, and {@link XmlStatic} instead.
+ */
+public final class ExportOptions {
+
+    /**
+     * Value for indentation meaning that the document is printed as by the XmlUtils.printDOM function,
+     * which is the traditional way.
+     */
+    public static final int DEFAULT_INDENTATION = -1;
+
+    /**
+     * Value for indentation meaning compact output, without line breaks and indentation.
+     */
+    public static final int NO_INDENTATION = 0;
+
+    /**
+     * Only the master form and the other formats, without inheritance;
+     * the form used for comparing content, see {@link Command#merkleHash()}.
+     */
+    static final ExportOptions MASTER_ONLY = new ExportOptions(false, false, false, false, false, false, false, false,
+            null, null, null, DEFAULT_INDENTATION, null, 1, false);
+
+    /**
+     * Creates an ExportOptions from the boolean arguments and the current global settings.
+     * @param fatRaw
+     * @param generateParameters
+     * @param generateProntoHex
+     * @param generateRaw
+     * @return new ExportOptions
+     */
+    static ExportOptions fromGlobals(boolean fatRaw, boolean generateParameters, boolean generateProntoHex, boolean generateRaw) {
+        return new ExportOptions(fatRaw, generateParameters, generateProntoHex, generateRaw,
+                Command.isUseInheritanceForXml(), CommandSet.isOptimizeInheritance(), Command.isUseCompactRaw(), XmlStatic.isCanonical(),
+                XmlStatic.getStylesheetType(), XmlStatic.getStylesheetUrl(), XmlStatic.getGirrNSPrefix(),
+                DEFAULT_INDENTATION, null, RemoteSet.getExportThreads(), false);
+    }
+
+    private final boolean fatRaw;
+    private final boolean generateParameters;
+    private final boolean generateProntoHex;
+    private final boolean generateRaw;
+    private final boolean useInheritance;
+    private final boolean optimizeInheritance;
+    private final boolean compactRaw;
+    private final boolean canonical;
+    private final String stylesheetType;
+    private final String stylesheetUrl;
+    private final String prefix;
+    private final int indentation;
+    private final Set<String> otherFormats;
+    private final int threads;
+    private final boolean pruneIrpDatabase;
+
+    /**
+     * Default options: All forms, lean raw form, inheritance from the first Command,
+     * no compact raw form, non-canonical, no stylesheet, no namespace prefix, default indentation, all other formats,
+     * sequential export, and the complete embedded IrpDatabase.
+     */
+    public ExportOptions() {
+        this(false, true, true, true, true, false, false, false, null, null, null, DEFAULT_INDENTATION, null, 1, false);
+    }
+
+    private ExportOptions(boolean fatRaw, boolean generateParameters, boolean generateProntoHex, boolean generateRaw,
+            boolean useInheritance, boolean optimizeInheritance, boolean compactRaw, boolean canonical,
+            String stylesheetType, String stylesheetUrl, String prefix, int indentation, Set<String> otherFormats, int threads,
+            boolean pruneIrpDatabase) {
+        this.fatRaw = fatRaw;
+        this.generateParameters = generateParameters;
+        this.generateProntoHex = generateProntoHex;
+        this.generateRaw = generateRaw;
+        this.useInheritance = useInheritance;
+        this.optimizeInheritance = optimizeInheritance;
+        this.compactRaw = compactRaw;
+        this.canonical = canonical;
+        this.stylesheetType = stylesheetType;
+        this.stylesheetUrl = stylesheetUrl;
+        this.prefix = prefix;
+        this.indentation = indentation;
+        this.otherFormats = otherFormats;
+        this.threads = threads;
+        this.pruneIrpDatabase = pruneIrpDatabase;
+    }
+
+    /**
+     * @param newFatRaw If generating the raw form, generate it in the so-called fat form, with one element per duration.
+     * @return new ExportOptions
+     */
+    public ExportOptions withFatRaw(boolean newFatRaw) {
+        return new ExportOptions(newFatRaw, generateParameters, generateProntoHex, generateRaw, useInheritance, optimizeInheritance,
+                compactRaw, canonical, stylesheetType, stylesheetUrl, prefix, indentation, otherFormats, threads, pruneIrpDatabase);
+    }
+
+    /**
+     * @param newGenerateParameters If true, generate the parameter form.
+     * @return new ExportOptions
+     */
+    public ExportOptions withGenerateParameters(boolean newGenerateParameters) {
+        return new ExportOptions(fatRaw, newGenerateParameters, generateProntoHex, generateRaw, useInheritance, optimizeInheritance,
+                compactRaw, canonical, stylesheetType, stylesheetUrl, prefix, indentation, otherFormats, threads, pruneIrpDatabase);
+    }
+
+    /**
+     * @param newGenerateProntoHex If true, generate the Pronto Hex form.
+     * @return new ExportOptions
+     */
+    public ExportOptions withGenerateProntoHex(boolean newGenerateProntoHex) {
+        return new ExportOptions(fatRaw, generateParameters, newGenerateProntoHex, generateRaw, useInheritance, optimizeInheritance,
+                compactRaw, canonical, stylesheetType, stylesheetUrl, prefix, indentation, otherFormats, threads, pruneIrpDatabase);
+    }
+
+    /**
+     * @param newGenerateRaw If true, generate the raw form.
+     * @return new ExportOptions
+     */
+    public ExportOptions withGenerateRaw(boolean newGenerateRaw) {
+        return new ExportOptions(fatRaw, generateParameters, generateProntoHex, newGenerateRaw, useInheritance, optimizeInheritance,
+                compactRaw, canonical, stylesheetType, stylesheetUrl, prefix, indentation, otherFormats, threads, pruneIrpDatabase);
+    }
+
+    /**
+     * @param newUseInheritance If true, Commands inherit protocol and parameters from their CommandSet,
+     * cf. {@link Command#setUseInheritanceForXml(boolean)}.
+     * @return new ExportOptions
+     */
+    public ExportOptions withInheritance(boolean newUseInheritance) {
+        return new ExportOptions(fatRaw, generateParameters, generateProntoHex, generateRaw, newUseInheritance, optimizeInheritance,
+                compactRaw, canonical, stylesheetType, stylesheetUrl, prefix, indentation, otherFormats, threads, pruneIrpDatabase);
+    }
+
+    /**
+     * @param newOptimizeInheritance If true, inherit the most common protocol and parameters,
+     * otherwise the ones of the first Command, cf. {@link CommandSet#setOptimizeInheritance(boolean)}.
+     * @return new ExportOptions
+     */
+    public ExportOptions withOptimizeInheritance(boolean newOptimizeInheritance) {
+        return new ExportOptions(fatRaw, generateParameters, generateProntoHex, generateRaw, useInheritance, newOptimizeInheritance,
+                compactRaw, canonical, stylesheetType, stylesheetUrl, prefix, indentation, otherFormats, threads, pruneIrpDatabase);
+    }
+
+    /**
+     * @param newCompactRaw If true, write raw sequences in the compact form (Girr 1.3), cf. {@link Command#setUseCompactRaw(boolean)}.
+     * @return new ExportOptions
+     */
+    public ExportOptions withCompactRaw(boolean newCompactRaw) {
+        return new ExportOptions(fatRaw, generateParameters, generateProntoHex, generateRaw, useInheritance, optimizeInheritance,
+                newCompactRaw, canonical, stylesheetType, stylesheetUrl, prefix, indentation, otherFormats, threads, pruneIrpDatabase);
+    }
+
+    /**
+     * @param newCanonical If true, make the export canonical, cf. {@link XmlStatic#setCanonical(boolean)}.
+     * @return new ExportOptions
+     */
+    public ExportOptions withCanonical(boolean newCanonical) {
+        return new ExportOptions(fatRaw, generateParameters, generateProntoHex, generateRaw, useInheritance, optimizeInheritance,
+                compactRaw, newCanonical, stylesheetType, stylesheetUrl, prefix, indentation, otherFormats, threads, pruneIrpDatabase);
+    }
+
+    /**
+     * @param newStylesheetType type of the stylesheet, like "xsl"; null for no stylesheet.
+     * @param newStylesheetUrl URL of the stylesheet; null for no stylesheet.
+     * @return new ExportOptions
+     */
+    public ExportOptions withStylesheet(String newStylesheetType, String newStylesheetUrl) {
+        return new ExportOptions(fatRaw, generateParameters, generateProntoHex, generateRaw, useInheritance, optimizeInheritance,
+                compactRaw, canonical, newStylesheetType, newStylesheetUrl, prefix, indentation, otherFormats, threads, pruneIrpDatabase);
+    }
+
+    /**
+     * @param newPrefix Prefix to use for the Girr name space; null for the default name space.
+     * @return new ExportOptions
+     */
+    public ExportOptions withPrefix(String newPrefix) {
+        return new ExportOptions(fatRaw, generateParameters, generateProntoHex, generateRaw, useInheritance, optimizeInheritance,
+                compactRaw, canonical, stylesheetType, stylesheetUrl, newPrefix, indentation, otherFormats, threads, pruneIrpDatabase);
+    }
+
+    /**
+     * @param newIndentation Number of spaces to indent with when printing, {@link #NO_INDENTATION} for compact output,
+     * or {@link #DEFAULT_INDENTATION}.
+     * @return new ExportOptions
+     */
+    public ExportOptions withIndentation(int newIndentation) {
+        if (newIndentation < DEFAULT_INDENTATION)
+            throw new IllegalArgumentException("Invalid indentation: " + newIndentation);
+        return new ExportOptions(fatRaw, generateParameters, generateProntoHex, generateRaw, useInheritance, optimizeInheritance,
+                compactRaw, canonical, stylesheetType, stylesheetUrl, prefix, newIndentation, otherFormats, threads, pruneIrpDatabase);
+    }
+
+    /**
+     * @param newOtherFormats Names of the other formats (see {@link Command#addFormat(String, String)}) to export;
+     * null for all, empty for none.
+     * @return new ExportOptions
+     */
+    public ExportOptions withOtherFormats(Collection<String> newOtherFormats) {
+        Set<String> set = newOtherFormats != null ? Collections.unmodifiableSet(new LinkedHashSet<>(newOtherFormats)) : null;
+        return new ExportOptions(fatRaw, generateParameters, generateProntoHex, generateRaw, useInheritance, optimizeInheritance,
+                compactRaw, canonical, stylesheetType, stylesheetUrl, prefix, indentation, set, threads, pruneIrpDatabase);
+    }
+
+    /**
+     * @param newThreads Number of threads for exporting the Remotes of a RemoteSet, cf. {@link RemoteSet#setExportThreads(int)}.
+     * @return new ExportOptions
+     */
+    public ExportOptions withThreads(int newThreads) {
+        if (newThreads < 0)
+            throw new IllegalArgumentException("Number of export threads cannot be negative");
+        return new ExportOptions(fatRaw, generateParameters, generateProntoHex, generateRaw, useInheritance, optimizeInheritance,
+                compactRaw, canonical, stylesheetType, stylesheetUrl, prefix, indentation, otherFormats, newThreads, pruneIrpDatabase);
+    }
+
+    /**
+     * @param newPruneIrpDatabase If true, the IrpDatabase embedded in a RemoteSet is exported with only the protocols
+     * referenced by its Commands, cf. {@link RemoteSet#pruneIrpDatabase()}.
+     * Since export does not modify the model, only Commands already having parameters are considered; the others are not decoded.
+     * @return new ExportOptions
+     */
+    public ExportOptions withPruneIrpDatabase(boolean newPruneIrpDatabase) {
+        return new ExportOptions(fatRaw, generateParameters, generateProntoHex, generateRaw, useInheritance, optimizeInheritance,
+                compactRaw, canonical, stylesheetType, stylesheetUrl, prefix, indentation, otherFormats, threads, newPruneIrpDatabase);
+    }
+
+    public boolean isFatRaw() {
+        return fatRaw;
+    }
+
+    public boolean isGenerateParameters() {
+        return generateParameters;
+    }
+
+    public boolean isGenerateProntoHex() {
+        return generateProntoHex;
+    }
+
+    public boolean isGenerateRaw() {
+        return generateRaw;
+    }
+
+    public boolean isUseInheritance() {
+        return useInheritance;
+    }
+
+    public boolean isOptimizeInheritance() {
+        return optimizeInheritance;
+    }
+
+    public boolean isCompactRaw() {
+        return compactRaw;
+    }
+
+    public boolean isCanonical() {
+        return canonical;
+    }
+
+    public String getStylesheetType() {
+        return stylesheetType;
+    }
+
+    public String getStylesheetUrl() {
+        return stylesheetUrl;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public int getIndentation() {
+        return indentation;
+    }
+
+    /**
+     * @return unmodifiable Set of names of the other formats to export, or null for all.
+     */
+    public Set<String> getOtherFormats() {
+        return otherFormats;
+    }
+
+    /**
+     * @param name
+     * @return true if the other format with the name given as argument is to be exported.
+     */
+    public boolean isOtherFormatIncluded(String name) {
+        return otherFormats == null || otherFormats.contains(name);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public boolean isPruneIrpDatabase() {
+        return pruneIrpDatabase;
+    }
+
+    void setPrefix(Node node) {
+        if (prefix != null)
+            node.setPrefix(prefix);
+    }
+
+    /**
+     * Returns the entries of the map in the order they should be exported.
+     * @param <V>
+     * @param map
+     * @return the entries, sorted by key if canonical, otherwise in the order of the map.
+     */
+    <V> Collection<Map.Entry<String, V>> entries(Map<String, V> map) {
+        return canonical ? new TreeMap<>(map).entrySet() : map.entrySet();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof ExportOptions))
+            return false;
+        ExportOptions other = (ExportOptions) obj;
+        return fatRaw == other.fatRaw
+                && generateParameters == other.generateParameters
+                && generateProntoHex == other.generateProntoHex
+                && generateRaw == other.generateRaw
+                && useInheritance == other.useInheritance
+                && optimizeInheritance == other.optimizeInheritance
+                && compactRaw == other.compactRaw
+                && canonical == other.canonical
+                && indentation == other.indentation
+                && threads == other.threads
+                && pruneIrpDatabase == other.pruneIrpDatabase
+                && Objects.equals(stylesheetType, other.stylesheetType)
+                && Objects.equals(stylesheetUrl, other.stylesheetUrl)
+                && Objects.equals(prefix, other.prefix)
+                && Objects.equals(otherFormats, other.otherFormats);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fatRaw, generateParameters, generateProntoHex, generateRaw, useInheritance, optimizeInheritance,
+                compactRaw, canonical, stylesheetType, stylesheetUrl, prefix, indentation, otherFormats, threads, pruneIrpDatabase);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.util.Objects;
+
+/**
+ * Immutable key for cached XML fragments, consisting of the {@link ExportOptions}
+ * of the export, together with the configuration generation of the decoder and the IrpDatabase.
+ */
+final class FragmentKey {
+
+    /**
+     * Creates a key from the options and the current configuration generation.
+     * @param options
+     * @return new FragmentKey.
+     */
+    static FragmentKey current(ExportOptions options) {
+        return new FragmentKey(options, Command.getConfigurationGeneration());
+    }
+
+    private final ExportOptions options;
+    private final int configurationGeneration;
+
+    private FragmentKey(ExportOptions options, int configurationGeneration) {
+        this.options = options;
+        this.configurationGeneration = configurationGeneration;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof FragmentKey))
+            return false;
+        FragmentKey other = (FragmentKey) obj;
+        return configurationGeneration == other.configurationGeneration
+                && options.equals(other.options);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(options, configurationGeneration);
+    }
+}
@@ -0,0 +1,321 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import static org.harctoolbox.girr.XmlStatic.COMMANDSET_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.NAME_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.REMOTES_ELEMENT_NAME;
+import org.harctoolbox.xml.XmlUtils;
+import org.w3c.dom.Element;
+
+/**
+ * Appends Remotes and Commands to existing Girr files, without reading them into a RemoteSet.
+ * The file is only scanned, byte by byte, for the element the new content is to be inserted into.
+ * Since all markup is ASCII, this works directly on the UTF-8 encoded bytes.
+ * The parts before and after the insertion point are copied unchanged into a temporary file,
+ * which then atomically replaces the original file,
+ * so that a crash leaves either the old or the new version.
+ *
+ * The scan does not recognize markup inside comments or CDATA sections;
+ * this is not a problem for files generated by this library.
+ * It is up to the caller not to append names already present.
+ */
+public final class GirrAppender {
+
+    private final static Logger logger = Logger.getLogger(GirrAppender.class.getName());
+
+    private static final int TAIL_BLOCK_SIZE = 4096;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final String LINE_SEPARATOR = XmlExporter.LINE_SEPARATOR;
+
+    /**
+     * Appends a Remote as the last child of the root element "remotes".
+     * Only the end of the file is scanned.
+     * @param file Girr file with root element "remotes".
+     * @param remote
+     * @param options
+     * @throws IOException
+     * @throws GirrException if the file does not end with the end tag of "remotes".
+     */
+    public static void appendRemote(File file, Remote remote, ExportOptions options) throws IOException, GirrException {
+        long position = findLastEndTag(file.toPath(), REMOTES_ELEMENT_NAME);
+        if (position < 0)
+            throw new GirrException("End tag of \"" + REMOTES_ELEMENT_NAME + "\" not found in " + file);
+        insert(file.toPath(), position, remote.toElement(XmlUtils.newDocument(true), options), options);
+    }
+
+    /**
+     * Appends a Command as the last child of the CommandSet with the given name.
+     * The Command is written with its protocol and all parameters, without inheritance from the CommandSet.
+     * The CommandSet must have an end tag, i.e., not be written as an empty element.
+     * @param file Girr file
+     * @param commandSetName name of the CommandSet to append to.
+     * @param command
+     * @param options
+     * @throws IOException
+     * @throws GirrException if the CommandSet is not found.
+     */
+    public static void appendCommand(File file, String commandSetName, Command command, ExportOptions options) throws IOException, GirrException {
+        long position = findEndTagOfNamed(file.toPath(), COMMANDSET_ELEMENT_NAME, commandSetName);
+        if (position < 0)
+            throw new GirrException("CommandSet \"" + commandSetName + "\" not found in " + file);
+        insert(file.toPath(), position, command.toElement(XmlUtils.newDocument(true), options.withInheritance(false)), options);
+    }
+
+    private static void insert(Path path, long position, Element fragment, ExportOptions options) throws IOException {
+        // The fragment is written one level deeper than the end tag it precedes.
+        String indent = indentationBefore(path, position);
+        String childIndent = indent + XmlExporter.spaces(XmlExporter.indentAmount(options));
+        String text = childIndent.substring(indent.length()) + XmlExporter.serializeFragment(fragment, options, childIndent) + LINE_SEPARATOR + indent;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        Path directory = path.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), TEMP_FILE_SUFFIX);
+        try {
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+                    FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                transfer(in, 0L, position, out);
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining())
+                    out.write(buffer);
+                transfer(in, position, in.size() - position, out);
+                out.force(true);
+            }
+            copyAttributes(path, temp);
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Gives the temporary file the owner, group, and permissions of the original,
+     * since it is created with restrictive permissions, and replaces the original.
+     */
+    private static void copyAttributes(Path original, Path temp) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(original, PosixFileAttributeView.class);
+        if (view == null)
+            return;
+        PosixFileAttributes attributes = view.readAttributes();
+        PosixFileAttributeView tempView = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+        try {
+            if (!attributes.owner().equals(Files.getOwner(temp)))
+                tempView.setOwner(attributes.owner());
+            tempView.setGroup(attributes.group());
+        } catch (IOException ex) {
+            // Typically, only the super user is allowed to change the owner.
+            logger.log(Level.WARNING, "Could not preserve the owner of {0}: {1}", new Object[]{original, ex.getLocalizedMessage()});
+        }
+        tempView.setPermissions(attributes.permissions());
+    }
+
+    private static void transfer(FileChannel in, long position, long count, FileChannel out) throws IOException {
+        long done = 0L;
+        while (done < count)
+            done += in.transferTo(position + done, count - done, out);
+    }
+
+    /**
+     * Returns the white space between the preceding line break and the position, or the empty string if there is other content.
+     */
+    private static String indentationBefore(Path path, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long start = Math.max(0L, position - TAIL_BLOCK_SIZE);
+            ByteBuffer buffer = ByteBuffer.allocate((int) (position - start));
+            channel.read(buffer, start);
+            byte[] bytes = buffer.array();
+            int i = bytes.length;
+            while (i > 0 && (bytes[i - 1] == ' ' || bytes[i - 1] == '\t'))
+                i--;
+            return i == 0 || bytes[i - 1] == '\n' ? new String(bytes, i, bytes.length - i, StandardCharsets.US_ASCII) : "";
+        }
+    }
+
+    /**
+     * Finds the last end tag with the given local name, reading only the last part of the file.
+     * @return byte offset of the end tag, or -1 if not found.
+     */
+    private static long findLastEndTag(Path path, String localName) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = Math.max(0L, size - TAIL_BLOCK_SIZE);
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - start));
+            while (buffer.hasRemaining())
+                if (channel.read(buffer, start + buffer.position()) < 0)
+                    break;
+            byte[] bytes = buffer.array();
+            for (int i = bytes.length - 1; i >= 0; i--)
+                if (bytes[i] == '<' && i + 1 < bytes.length && bytes[i + 1] == '/'
+                        && localName.equals(tagName(bytes, i + 2)))
+                    return start + i;
+            return -1L;
+        }
+    }
+
+    /**
+     * Finds the end tag of the first element with the given local name and name attribute, scanning from the beginning.
+     * @return byte offset of the end tag, or -1 if not found.
+     */
+    private static long findEndTagOfNamed(Path path, String localName, String name) throws IOException {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(path))) {
+            Scanner scanner = new Scanner(stream);
+            boolean inside = false;
+            while (scanner.nextTag()) {
+                if (!localName.equals(scanner.localName))
+                    continue;
+                if (!inside && !scanner.endTag)
+                    inside = !scanner.emptyElement && name.equals(scanner.attribute(NAME_ATTRIBUTE_NAME));
+                else if (inside && scanner.endTag)
+                    return scanner.tagStart;
+            }
+            return -1L;
+        }
+    }
+
+    /**
+     * @return the local name of the tag name starting at the position, i.e., without prefix.
+     */
+    private static String tagName(byte[] bytes, int start) {
+        int i = start;
+        int localStart = start;
+        while (i < bytes.length && isNameByte(bytes[i])) {
+            if (bytes[i] == ':')
+                localStart = i + 1;
+            i++;
+        }
+        return new String(bytes, localStart, i - localStart, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isNameByte(byte b) {
+        return b != '>' && b != '/' && b != '=' && b != '<' && b != '"' && b != '\'' && !Character.isWhitespace(b);
+    }
+
+    private GirrAppender() {
+    }
+
+    /**
+     * Minimal forward scanner over the tags of a UTF-8 encoded XML file, keeping track of the byte offset.
+     */
+    private static final class Scanner {
+
+        private final InputStream stream;
+        private long offset = 0L;
+        private long tagStart;
+        private boolean endTag;
+        private boolean emptyElement;
+        private String localName;
+        private byte[] tag;
+
+        Scanner(InputStream stream) {
+            this.stream = stream;
+        }
+
+        private int read() throws IOException {
+            int b = stream.read();
+            if (b >= 0)
+                offset++;
+            return b;
+        }
+
+        /**
+         * Advances to the next start or end tag, skipping declarations, processing instructions, and comments.
+         * @return false at end of file.
+         */
+        boolean nextTag() throws IOException {
+            int b;
+            while ((b = read()) >= 0) {
+                if (b != '<')
+                    continue;
+                long start = offset - 1;
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+                int quote = 0;
+                while ((b = read()) >= 0) {
+                    if (quote != 0) {
+                        if (b == quote)
+                            quote = 0;
+                    } else if (b == '"' || b == '\'')
+                        quote = b;
+                    else if (b == '>')
+                        break;
+                    bytes.write(b);
+                }
+                if (b < 0)
+                    return false;
+                byte[] content = bytes.toByteArray();
+                if (content.length == 0 || content[0] == '?' || content[0] == '!')
+                    continue;
+                tagStart = start;
+                endTag = content[0] == '/';
+                emptyElement = content[content.length - 1] == '/';
+                tag = content;
+                localName = tagName(content, endTag ? 1 : 0);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return the (unescaped) value of the attribute in the current tag, or null if absent.
+         */
+        String attribute(String attributeName) {
+            String text = new String(tag, StandardCharsets.UTF_8);
+            int i = 0;
+            while ((i = text.indexOf(attributeName, i)) >= 0) {
+                int end = i + attributeName.length();
+                boolean startsName = i > 0 && Character.isWhitespace(text.charAt(i - 1));
+                int eq = end;
+                while (eq < text.length() && Character.isWhitespace(text.charAt(eq)))
+                    eq++;
+                if (startsName && eq < text.length() && text.charAt(eq) == '=') {
+                    int q = eq + 1;
+                    while (q < text.length() && Character.isWhitespace(text.charAt(q)))
+                        q++;
+                    int close = q < text.length() ? text.indexOf(text.charAt(q), q + 1) : -1;
+                    return close > q ? unescape(text.substring(q + 1, close)) : null;
+                }
+                i = end;
+            }
+            return null;
+        }
+
+        private static String unescape(String value) {
+            return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                    .replace("&apos;", "'").replace("&amp;", "&");
+        }
+    }
+}
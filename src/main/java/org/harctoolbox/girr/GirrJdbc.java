@@ -0,0 +1,545 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import static org.harctoolbox.girr.Command.INITIAL_HASHMAP_CAPACITY;
+import org.harctoolbox.ircore.IrCoreException;
+import org.harctoolbox.ircore.IrSignal;
+import org.harctoolbox.ircore.ThisCannotHappenException;
+import org.harctoolbox.irp.IrpException;
+
+/**
+ * Bulk export and import of Remotes to and from a relational database through JDBC,
+ * using the normalized schema of {@link #SCHEMA}: one table each for Remotes, CommandSets, Commands,
+ * parameters, and raw sequences (one row per toggle value).
+ *
+ * <p>The export uses batched prepared statements, and can be distributed over several connections.
+ * The primary keys are assigned by the exporter, continuing after the largest keys present,
+ * in document order; the import relies on this, and reads every table with a single ordered query,
+ * so its cost is independent of the number of Remotes.
+ *
+ * <p>Notes, application data, and other formats are not represented.
+ */
+public final class GirrJdbc {
+
+    private static final Logger logger = Logger.getLogger(GirrJdbc.class.getName());
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    public static final String REMOTE_TABLE = "girr_remote";
+    public static final String COMMANDSET_TABLE = "girr_commandset";
+    public static final String COMMAND_TABLE = "girr_command";
+    public static final String PARAMETER_TABLE = "girr_parameter";
+    public static final String RAW_TABLE = "girr_raw";
+
+    /**
+     * SQL statements creating the tables, in the order they have to be executed.
+     */
+    public static final String[] SCHEMA = {
+        "CREATE TABLE " + REMOTE_TABLE + " (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL, display_name VARCHAR(255), "
+                + "manufacturer VARCHAR(255), model VARCHAR(255), device_class VARCHAR(255), remote_name VARCHAR(255), comment_text VARCHAR(4096))",
+        "CREATE TABLE " + COMMANDSET_TABLE + " (id BIGINT PRIMARY KEY, remote_id BIGINT NOT NULL REFERENCES " + REMOTE_TABLE + "(id), "
+                + "name VARCHAR(255) NOT NULL)",
+        "CREATE TABLE " + COMMAND_TABLE + " (id BIGINT PRIMARY KEY, commandset_id BIGINT NOT NULL REFERENCES " + COMMANDSET_TABLE + "(id), "
+                + "name VARCHAR(255) NOT NULL, display_name VARCHAR(255), comment_text VARCHAR(4096), master VARCHAR(16), "
+                + "protocol VARCHAR(255), frequency INTEGER, duty_cycle DOUBLE PRECISION)",
+        "CREATE TABLE " + PARAMETER_TABLE + " (command_id BIGINT NOT NULL REFERENCES " + COMMAND_TABLE + "(id), ordinal INTEGER NOT NULL, "
+                + "name VARCHAR(64) NOT NULL, param_value BIGINT NOT NULL, PRIMARY KEY (command_id, ordinal))",
+        "CREATE TABLE " + RAW_TABLE + " (command_id BIGINT NOT NULL REFERENCES " + COMMAND_TABLE + "(id), toggle INTEGER NOT NULL, "
+                + "intro_sequence CLOB, repeat_sequence CLOB, ending_sequence CLOB, PRIMARY KEY (command_id, toggle))"
+    };
+
+    private static final String INSERT_REMOTE = "INSERT INTO " + REMOTE_TABLE
+            + " (id, name, display_name, manufacturer, model, device_class, remote_name, comment_text) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_COMMANDSET = "INSERT INTO " + COMMANDSET_TABLE + " (id, remote_id, name) VALUES (?, ?, ?)";
+    private static final String INSERT_COMMAND = "INSERT INTO " + COMMAND_TABLE
+            + " (id, commandset_id, name, display_name, comment_text, master, protocol, frequency, duty_cycle) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PARAMETER = "INSERT INTO " + PARAMETER_TABLE + " (command_id, ordinal, name, param_value) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_RAW = "INSERT INTO " + RAW_TABLE
+            + " (command_id, toggle, intro_sequence, repeat_sequence, ending_sequence) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SELECT_REMOTES = "SELECT id, name, display_name, manufacturer, model, device_class, remote_name, comment_text FROM "
+            + REMOTE_TABLE + " ORDER BY id";
+    private static final String SELECT_COMMANDSETS = "SELECT remote_id, id, name FROM " + COMMANDSET_TABLE + " ORDER BY id";
+    private static final String SELECT_COMMANDS = "SELECT commandset_id, id, name, display_name, comment_text, master, protocol, frequency, duty_cycle FROM "
+            + COMMAND_TABLE + " ORDER BY id";
+    private static final String SELECT_PARAMETERS = "SELECT command_id, name, param_value FROM " + PARAMETER_TABLE + " ORDER BY command_id, ordinal";
+    private static final String SELECT_RAWS = "SELECT command_id, intro_sequence, repeat_sequence, ending_sequence FROM " + RAW_TABLE
+            + " ORDER BY command_id, toggle";
+
+    /**
+     * Source of database connections, for example {@code dataSource::getConnection}.
+     */
+    public interface ConnectionFactory {
+        Connection getConnection() throws SQLException;
+    }
+
+    /**
+     * Executes the statements of {@link #SCHEMA}.
+     * @param connection
+     * @throws SQLException
+     */
+    public static void createTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA)
+                statement.execute(sql);
+        }
+    }
+
+    private int batchSize;
+    private int threads;
+
+    public GirrJdbc() {
+        batchSize = DEFAULT_BATCH_SIZE;
+        threads = 0;
+    }
+
+    /**
+     * @param batchSize number of rows sent to the database in one batch, and the fetch size on import. Default 1000.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize must be positive");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param threads number of connections used for the export; 0 (default) for one per available processor.
+     */
+    public void setThreads(int threads) {
+        if (threads < 0)
+            throw new IllegalArgumentException("threads must be non-negative");
+        this.threads = threads;
+    }
+
+    /**
+     * Exports the Remotes through one connection, as one transaction.
+     * Auto commit is switched off during the export.
+     * @param connection
+     * @param remotes
+     * @return number of Commands written.
+     * @throws SQLException
+     */
+    public int export(Connection connection, Iterable<Remote> remotes) throws SQLException {
+        List<Remote> list = new ArrayList<>(INITIAL_HASHMAP_CAPACITY);
+        remotes.forEach(list::add);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            int count = new Slice(list, firstKeys(connection)).write(connection);
+            connection.commit();
+            return count;
+        } catch (SQLException | RuntimeException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Exports the Remotes in parallel, divided into contiguous slices, each written through its own connection
+     * and committed as one transaction.
+     * If a slice fails, the other slices may still have been committed.
+     * @param connectionFactory
+     * @param remotes
+     * @return number of Commands written.
+     * @throws SQLException
+     */
+    public int export(ConnectionFactory connectionFactory, Iterable<Remote> remotes) throws SQLException {
+        List<Remote> list = new ArrayList<>(INITIAL_HASHMAP_CAPACITY);
+        remotes.forEach(list::add);
+        long[] keys;
+        try (Connection connection = connectionFactory.getConnection()) {
+            keys = firstKeys(connection);
+        }
+        int nThreads = Math.max(1, Math.min(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), list.size()));
+        List<Slice> slices = new ArrayList<>(nThreads);
+        for (int i = 0; i < nThreads; i++) {
+            Slice slice = new Slice(list.subList(i * list.size() / nThreads, (i + 1) * list.size() / nThreads), keys);
+            slices.add(slice);
+            keys = slice.nextKeys();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(nThreads);
+            for (Slice slice : slices)
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = connectionFactory.getConnection()) {
+                        connection.setAutoCommit(false);
+                        try {
+                            int count = slice.write(connection);
+                            connection.commit();
+                            return count;
+                        } catch (SQLException | RuntimeException ex) {
+                            connection.rollback();
+                            throw ex;
+                        }
+                    }
+                }));
+            int count = 0;
+            SQLException exception = null;
+            for (Future<Integer> future : futures) {
+                try {
+                    count += future.get();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+                    if (cause instanceof Error)
+                        throw (Error) cause;
+                    if (!(cause instanceof SQLException))
+                        throw new ThisCannotHappenException(cause);
+                    if (exception == null)
+                        exception = (SQLException) cause;
+                    else
+                        exception.setNextException((SQLException) cause);
+                }
+            }
+            if (exception != null)
+                throw exception;
+            return count;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export interrupted", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the first free key of the Remote, CommandSet, and Command tables.
+     */
+    private static long[] firstKeys(Connection connection) throws SQLException {
+        String[] tables = {REMOTE_TABLE, COMMANDSET_TABLE, COMMAND_TABLE};
+        long[] keys = new long[tables.length];
+        try (Statement statement = connection.createStatement()) {
+            for (int i = 0; i < tables.length; i++)
+                try (ResultSet resultSet = statement.executeQuery("SELECT MAX(id) FROM " + tables[i])) {
+                    keys[i] = resultSet.next() ? resultSet.getLong(1) + 1 : 1L;
+                }
+        }
+        return keys;
+    }
+
+    /**
+     * A contiguous part of the Remotes, with the keys of its rows.
+     */
+    private final class Slice {
+
+        private final List<Remote> remotes;
+        private final long remoteKey;
+        private final long commandSetKey;
+        private final long commandKey;
+        private int pending;
+
+        Slice(List<Remote> remotes, long[] keys) {
+            this.remotes = remotes;
+            remoteKey = keys[0];
+            commandSetKey = keys[1];
+            commandKey = keys[2];
+        }
+
+        long[] nextKeys() {
+            long commandSets = 0L;
+            long commands = 0L;
+            for (Remote remote : remotes)
+                for (CommandSet commandSet : remote) {
+                    commandSets++;
+                    commands += commandSet.size();
+                }
+            return new long[]{remoteKey + remotes.size(), commandSetKey + commandSets, commandKey + commands};
+        }
+
+        int write(Connection connection) throws SQLException {
+            try (PreparedStatement remoteStatement = connection.prepareStatement(INSERT_REMOTE);
+                    PreparedStatement commandSetStatement = connection.prepareStatement(INSERT_COMMANDSET);
+                    PreparedStatement commandStatement = connection.prepareStatement(INSERT_COMMAND);
+                    PreparedStatement parameterStatement = connection.prepareStatement(INSERT_PARAMETER);
+                    PreparedStatement rawStatement = connection.prepareStatement(INSERT_RAW)) {
+                // Parents before children, so that the foreign keys are satisfied.
+                PreparedStatement[] statements = {remoteStatement, commandSetStatement, commandStatement, parameterStatement, rawStatement};
+                long remoteId = remoteKey;
+                long commandSetId = commandSetKey;
+                long commandId = commandKey;
+                pending = 0;
+                for (Remote remote : remotes) {
+                    Remote.MetaData metaData = remote.getMetaData();
+                    remoteStatement.setLong(1, remoteId);
+                    remoteStatement.setString(2, remote.getName());
+                    remoteStatement.setString(3, metaData.getDisplayName());
+                    remoteStatement.setString(4, metaData.getManufacturer());
+                    remoteStatement.setString(5, metaData.getModel());
+                    remoteStatement.setString(6, metaData.getDeviceClass());
+                    remoteStatement.setString(7, metaData.getRemoteName());
+                    remoteStatement.setString(8, remote.getComment());
+                    addBatch(remoteStatement, statements);
+                    for (CommandSet commandSet : remote) {
+                        commandSetStatement.setLong(1, commandSetId);
+                        commandSetStatement.setLong(2, remoteId);
+                        commandSetStatement.setString(3, commandSet.getName());
+                        addBatch(commandSetStatement, statements);
+                        for (Command command : commandSet) {
+                            writeCommand(command, commandId, commandSetId, commandStatement, parameterStatement, rawStatement, statements);
+                            commandId++;
+                        }
+                        commandSetId++;
+                    }
+                    remoteId++;
+                }
+                flush(statements);
+                return (int) (commandId - commandKey);
+            }
+        }
+
+        private void writeCommand(Command command, long commandId, long commandSetId, PreparedStatement commandStatement,
+                PreparedStatement parameterStatement, PreparedStatement rawStatement, PreparedStatement[] statements) throws SQLException {
+            String protocolName = null;
+            Map<String, Long> parameters = null;
+            try {
+                protocolName = command.getProtocolName();
+                parameters = command.getParameters();
+            } catch (IrpException | IrCoreException ex) {
+                // Not decodable; only the raw form is stored.
+            }
+            IrSignal irSignal = null;
+            try {
+                irSignal = command.toIrSignal();
+            } catch (IrpException | IrCoreException ex) {
+                logger.log(Level.WARNING, "Command {0} could not be rendered: {1}", new Object[]{command.getName(), ex.getMessage()});
+            }
+
+            commandStatement.setLong(1, commandId);
+            commandStatement.setLong(2, commandSetId);
+            commandStatement.setString(3, command.getName());
+            commandStatement.setString(4, command.getDisplayName());
+            commandStatement.setString(5, command.getComment());
+            commandStatement.setString(6, command.getMasterType().name());
+            commandStatement.setString(7, protocolName);
+            Double frequency = irSignal != null ? irSignal.getFrequency() : null;
+            if (frequency != null)
+                commandStatement.setInt(8, (int) Math.round(frequency));
+            else
+                commandStatement.setNull(8, Types.INTEGER);
+            Double dutyCycle = irSignal != null ? irSignal.getDutyCycle() : null;
+            if (dutyCycle != null)
+                commandStatement.setDouble(9, dutyCycle);
+            else
+                commandStatement.setNull(9, Types.DOUBLE);
+            addBatch(commandStatement, statements);
+
+            if (protocolName != null && parameters != null) {
+                int ordinal = 0;
+                for (Map.Entry<String, Long> parameter : parameters.entrySet()) {
+                    parameterStatement.setLong(1, commandId);
+                    parameterStatement.setInt(2, ordinal++);
+                    parameterStatement.setString(3, parameter.getKey());
+                    parameterStatement.setLong(4, parameter.getValue());
+                    addBatch(parameterStatement, statements);
+                }
+            }
+
+            if (irSignal != null) {
+                try {
+                    for (int T = 0; T < command.numberOfToggleValues(); T++) {
+                        rawStatement.setLong(1, commandId);
+                        rawStatement.setInt(2, T);
+                        rawStatement.setString(3, command.getIntro(T));
+                        rawStatement.setString(4, command.getRepeat(T));
+                        rawStatement.setString(5, command.getEnding(T));
+                        addBatch(rawStatement, statements);
+                    }
+                } catch (GirrException | IrpException | IrCoreException ex) {
+                    logger.log(Level.WARNING, "Command {0} could not be rendered: {1}", new Object[]{command.getName(), ex.getMessage()});
+                }
+            }
+        }
+
+        private void addBatch(PreparedStatement statement, PreparedStatement[] statements) throws SQLException {
+            statement.addBatch();
+            if (++pending >= batchSize)
+                flush(statements);
+        }
+
+        private void flush(PreparedStatement[] statements) throws SQLException {
+            for (PreparedStatement statement : statements)
+                statement.executeBatch();
+            pending = 0;
+        }
+    }
+
+    /**
+     * Imports all Remotes of the database.
+     * @param connection
+     * @return RemoteSet with the Remotes, with the URL of the database as source.
+     * @throws SQLException
+     */
+    public RemoteSet parse(Connection connection) throws SQLException {
+        Map<String, Remote> remotes = new LinkedHashMap<>(INITIAL_HASHMAP_CAPACITY);
+        try {
+            parse(connection, (Remote remote) -> {
+                remotes.put(remote.getName(), remote);
+            });
+        } catch (IOException ex) {
+            // Not thrown by the handler above
+            throw new ThisCannotHappenException(ex);
+        }
+        return new RemoteSet(null, connection.getMetaData().getURL(), remotes);
+    }
+
+    /**
+     * Imports all Remotes of the database, passing every Remote to the handler as soon as it has been read.
+     * Commands that cannot be reconstructed are logged and skipped.
+     * @param connection
+     * @param handler
+     * @return number of Remotes read.
+     * @throws SQLException
+     * @throws IOException if thrown by the handler.
+     */
+    public int parse(Connection connection, RemoteHandler handler) throws SQLException, IOException {
+        try (Cursor remoteCursor = new Cursor(connection, SELECT_REMOTES);
+                Cursor commandSetCursor = new Cursor(connection, SELECT_COMMANDSETS);
+                Cursor commandCursor = new Cursor(connection, SELECT_COMMANDS);
+                Cursor parameterCursor = new Cursor(connection, SELECT_PARAMETERS);
+                Cursor rawCursor = new Cursor(connection, SELECT_RAWS)) {
+            int count = 0;
+            ResultSet remoteRow = remoteCursor.resultSet;
+            while (remoteCursor.valid) {
+                long remoteId = remoteRow.getLong(1);
+                Remote.MetaData metaData = new Remote.MetaData(remoteRow.getString(2), remoteRow.getString(3), remoteRow.getString(4),
+                        remoteRow.getString(5), remoteRow.getString(6), remoteRow.getString(7));
+                String comment = remoteRow.getString(8);
+                List<CommandSet> commandSets = new ArrayList<>(1);
+                while (commandSetCursor.skipTo(remoteId))
+                    commandSets.add(readCommandSet(commandSetCursor, commandCursor, parameterCursor, rawCursor));
+                remoteCursor.next();
+                handler.handle(new Remote(metaData, comment, null, commandSets, null));
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static CommandSet readCommandSet(Cursor commandSetCursor, Cursor commandCursor, Cursor parameterCursor, Cursor rawCursor) throws SQLException {
+        ResultSet row = commandSetCursor.resultSet;
+        long commandSetId = row.getLong(2);
+        String name = row.getString(3);
+        commandSetCursor.next();
+        Map<String, Command> commands = new LinkedHashMap<>(INITIAL_HASHMAP_CAPACITY);
+        while (commandCursor.skipTo(commandSetId)) {
+            Command command = readCommand(commandCursor, parameterCursor, rawCursor);
+            if (command != null)
+                commands.put(command.getName(), command);
+        }
+        return new CommandSet(name, null, commands, null, null);
+    }
+
+    private static Command readCommand(Cursor commandCursor, Cursor parameterCursor, Cursor rawCursor) throws SQLException {
+        ResultSet row = commandCursor.resultSet;
+        long commandId = row.getLong(2);
+        String name = row.getString(3);
+        String displayName = row.getString(4);
+        String comment = row.getString(5);
+        Command.MasterType masterType = Command.MasterType.safeValueOf(row.getString(6));
+        String protocolName = row.getString(7);
+        int frequency = row.getInt(8);
+        Double frequencyValue = row.wasNull() ? null : (double) frequency;
+        double dutyCycle = row.getDouble(9);
+        Double dutyCycleValue = row.wasNull() ? null : dutyCycle;
+        commandCursor.next();
+
+        Map<String, Long> parameters = new LinkedHashMap<>(INITIAL_HASHMAP_CAPACITY);
+        while (parameterCursor.skipTo(commandId)) {
+            parameters.put(parameterCursor.resultSet.getString(2), parameterCursor.resultSet.getLong(3));
+            parameterCursor.next();
+        }
+        String[] raw = null;
+        while (rawCursor.skipTo(commandId)) {
+            // Only the first toggle value is needed to reconstruct a raw Command.
+            if (raw == null)
+                raw = new String[]{rawCursor.resultSet.getString(2), rawCursor.resultSet.getString(3), rawCursor.resultSet.getString(4)};
+            rawCursor.next();
+        }
+
+        try {
+            if (protocolName != null && (masterType == Command.MasterType.parameters || raw == null))
+                return new Command(name, comment, displayName, null, protocolName, parameters, true);
+            if (raw != null)
+                return new Command(name, comment, new IrSignal(raw[0], raw[1], raw[2], frequencyValue, dutyCycleValue));
+            logger.log(Level.WARNING, "Command {0} has neither protocol nor raw sequence, skipped", name);
+        } catch (GirrException | IrCoreException ex) {
+            logger.log(Level.WARNING, "Command {0} could not be reconstructed: {1}", new Object[]{name, ex.getMessage()});
+        }
+        return null;
+    }
+
+    /**
+     * An ordered query, read in lockstep with the query of its parent table.
+     * The first column is the key of the parent.
+     */
+    private final class Cursor implements AutoCloseable {
+
+        private final Statement statement;
+        private final ResultSet resultSet;
+        private boolean valid;
+
+        Cursor(Connection connection, String query) throws SQLException {
+            statement = connection.createStatement();
+            statement.setFetchSize(batchSize);
+            resultSet = statement.executeQuery(query);
+            valid = resultSet.next();
+        }
+
+        void next() throws SQLException {
+            valid = resultSet.next();
+        }
+
+        /**
+         * Skips rows belonging to earlier (missing) parents.
+         * @return true if the current row belongs to the parent given.
+         */
+        boolean skipTo(long parentId) throws SQLException {
+            while (valid && resultSet.getLong(1) < parentId)
+                next();
+            return valid && resultSet.getLong(1) == parentId;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statement.close();
+        }
+    }
+}
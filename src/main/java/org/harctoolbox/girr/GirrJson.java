@@ -0,0 +1,594 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import static org.harctoolbox.girr.Command.INITIAL_HASHMAP_CAPACITY;
+import static org.harctoolbox.girr.XmlStatic.ADMINDATA_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.APPLICATIONDATA_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.COMMAND_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.COMMENT_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.CREATINGUSER_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.CREATIONDATE_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.DEVICECLASS_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.DISPLAYNAME_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.DUTYCYCLE_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.ENDING_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.FORMAT_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.FREQUENCY_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.F_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.GIRR_NAMESPACE;
+import static org.harctoolbox.girr.XmlStatic.GIRR_VERSION;
+import static org.harctoolbox.girr.XmlStatic.GIRR_VERSION_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.INTRO_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.MANUFACTURER_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.MASTER_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.MODEL_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.NAME_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.NOTES_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.PARAMETERS_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.PARAMETER_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.PRONTO_HEX_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.PROTOCOL_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.RAW_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.REMOTENAME_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.REPEAT_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.SOURCE_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.TITLE_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.TOGGLE_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.TOOL2VERSION_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.TOOL2_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.TOOLVERSIION_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.TOOL_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.VALUE_ATTRIBUTE_NAME;
+import org.harctoolbox.xml.XmlUtils;
+import static org.harctoolbox.xml.XmlUtils.XML_LANG_ATTRIBUTE_NAME;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * JSON representation of the Girr model, with streaming reader and writer.
+ *
+ * <p>The JSON objects mirror the XML elements, and use the same names, with the following exceptions:
+ * The children are collected in arrays "remotes", "commandSets", and "commands";
+ * notes are an object indexed by language, applicationData an object indexed by application;
+ * "protocol" and "parameters" (an object of numbers) are properties of CommandSets and Commands;
+ * "raw" and "ccf" are arrays indexed by the toggle value, "formats" an object indexed by name.
+ * Raw sequences are always written as text, like "+9024 -4512 +564 -39756".
+ * The embedded IRP protocols of a RemoteSet are not represented; a RemoteSet read from JSON has an empty IrpDatabase.
+ * Commands referring to such protocols keep their parameters, but can only be rendered from their other forms.
+ *
+ * <p>The writer generates every Command, with the signal forms selected by the ExportOptions, separately,
+ * so the memory usage does not grow with the size of the library.
+ * The reader can pass every Remote to a {@link RemoteHandler} as soon as it has been read.
+ * Within a CommandSet, "protocol" and "parameters" must precede "commands".
+ */
+public final class GirrJson {
+
+    public static final String EXTENSION = ".json";
+
+    private static final String REMOTES_NAME = "remotes";
+    private static final String COMMANDSETS_NAME = "commandSets";
+    private static final String COMMANDS_NAME = "commands";
+    private static final String FORMATS_NAME = "formats";
+
+    /**
+     * Writes a RemoteSet, including its AdminData.
+     * @param writer
+     * @param remoteSet
+     * @param title Title of the document; may be null.
+     * @param options Selects the signal forms, inheritance, and the indentation.
+     * @throws IOException
+     */
+    public static void export(Writer writer, RemoteSet remoteSet, String title, ExportOptions options) throws IOException {
+        export(writer, remoteSet.getAdminData(), remoteSet, title, options);
+    }
+
+    /**
+     * Writes a sequence of Remotes, for example from a lazy source, without AdminData.
+     * @param writer
+     * @param remotes
+     * @param title Title of the document; may be null.
+     * @param options Selects the signal forms, inheritance, and the indentation.
+     * @throws IOException
+     */
+    public static void export(Writer writer, Iterable<Remote> remotes, String title, ExportOptions options) throws IOException {
+        export(writer, null, remotes, title, options);
+    }
+
+    private static void export(Writer writer, AdminData adminData, Iterable<Remote> remotes, String title, ExportOptions options) throws IOException {
+        JsonWriter json = new JsonWriter(writer, XmlExporter.indentAmount(options));
+        json.beginObject();
+        json.name(GIRR_VERSION_ATTRIBUTE_NAME).value(GIRR_VERSION);
+        json.property(TITLE_ATTRIBUTE_NAME, title);
+        if (adminData != null)
+            writeAdminData(json, adminData, options);
+        json.name(REMOTES_NAME).beginArray();
+        Document doc = XmlUtils.newDocument(true);
+        for (Remote remote : remotes)
+            writeRemote(json, remote, doc, options);
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    private static void writeAdminData(JsonWriter json, AdminData adminData, ExportOptions options) throws IOException {
+        String[] names = {CREATINGUSER_ATTRIBUTE_NAME, SOURCE_ATTRIBUTE_NAME, CREATIONDATE_ATTRIBUTE_NAME, TOOL_ATTRIBUTE_NAME,
+            TOOLVERSIION_ATTRIBUTE_NAME, TOOL2_ATTRIBUTE_NAME, TOOL2VERSION_ATTRIBUTE_NAME};
+        String[] values = {adminData.getCreatingUser(), adminData.getSource(), adminData.getCreationDate(), adminData.getTool(),
+            adminData.getToolVersion(), adminData.getTool2(), adminData.getTool2Version()};
+        boolean empty = adminData.getAllNotes().isEmpty();
+        for (String value : values)
+            empty = empty && (value == null || value.isEmpty());
+        if (empty)
+            return;
+
+        json.name(ADMINDATA_ELEMENT_NAME).beginObject();
+        for (int i = 0; i < names.length; i++)
+            json.property(names[i], values[i]);
+        writeStrings(json, NOTES_ELEMENT_NAME, adminData.getAllNotes(), options);
+        json.endObject();
+    }
+
+    private static void writeRemote(JsonWriter json, Remote remote, Document doc, ExportOptions options) throws IOException {
+        json.beginObject();
+        json.property(NAME_ATTRIBUTE_NAME, remote.getName());
+        json.property(DISPLAYNAME_ATTRIBUTE_NAME, remote.getDisplayName());
+        json.property(MANUFACTURER_ATTRIBUTE_NAME, remote.getManufacturer());
+        json.property(MODEL_ATTRIBUTE_NAME, remote.getModel());
+        json.property(DEVICECLASS_ATTRIBUTE_NAME, remote.getDeviceClass());
+        json.property(REMOTENAME_ATTRIBUTE_NAME, remote.getRemoteName());
+        json.property(COMMENT_ATTRIBUTE_NAME, remote.getComment());
+        writeAdminData(json, remote.getAdminData(), options);
+        writeStrings(json, NOTES_ELEMENT_NAME, remote.getAllNotes(), options);
+        Map<String, Map<String, String>> applicationParameters = remote.getApplicationParameters();
+        if (applicationParameters != null && !applicationParameters.isEmpty()) {
+            json.name(APPLICATIONDATA_ELEMENT_NAME).beginObject();
+            for (Map.Entry<String, Map<String, String>> kvp : options.entries(applicationParameters))
+                if (kvp.getValue() != null) {
+                    json.name(kvp.getKey()).beginObject();
+                    for (Map.Entry<String, String> parameter : options.entries(kvp.getValue()))
+                        json.name(parameter.getKey()).value(parameter.getValue());
+                    json.endObject();
+                }
+            json.endObject();
+        }
+        json.name(COMMANDSETS_NAME).beginArray();
+        for (CommandSet commandSet : remote)
+            writeCommandSet(json, commandSet, doc, options);
+        json.endArray();
+        json.endObject();
+    }
+
+    private static void writeCommandSet(JsonWriter json, CommandSet commandSet, Document doc, ExportOptions options) throws IOException {
+        // Same inheritance decisions as the XML export.
+        InheritedParameters inherited = commandSet.exportInheritance(options);
+        json.beginObject();
+        json.property(NAME_ATTRIBUTE_NAME, commandSet.getName());
+        writeStrings(json, NOTES_ELEMENT_NAME, commandSet.getAllNotes(), options);
+        if (!commandSet.isEmpty() && commandSet.shouldDoParameters(inherited.getParameters(), options.isGenerateParameters(), options.isGenerateProntoHex(), options.isGenerateRaw())) {
+            json.property(PROTOCOL_ATTRIBUTE_NAME, inherited.getProtocolName());
+            writeNumbers(json, PARAMETERS_ELEMENT_NAME, inherited.getParameters(), options);
+        }
+        json.name(COMMANDS_NAME).beginArray();
+        for (Command command : commandSet)
+            writeCommand(json, command.toElement(doc, options, inherited));
+        json.endArray();
+        json.endObject();
+    }
+
+    private static void writeCommand(JsonWriter json, Element element) throws IOException {
+        json.beginObject();
+        json.property(NAME_ATTRIBUTE_NAME, element.getAttribute(NAME_ATTRIBUTE_NAME));
+        json.property(MASTER_ATTRIBUTE_NAME, element.getAttribute(MASTER_ATTRIBUTE_NAME));
+        json.property(DISPLAYNAME_ATTRIBUTE_NAME, element.getAttribute(DISPLAYNAME_ATTRIBUTE_NAME));
+        json.property(COMMENT_ATTRIBUTE_NAME, element.getAttribute(COMMENT_ATTRIBUTE_NAME));
+
+        Map<String, String> notes = new LinkedHashMap<>(0);
+        Map<String, String> formats = new LinkedHashMap<>(0);
+        List<Element> raws = new ArrayList<>(1);
+        List<String> prontoHexes = new ArrayList<>(1);
+        Element parametersEl = null;
+        for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeType() != Node.ELEMENT_NODE)
+                continue;
+            Element el = (Element) node;
+            switch (el.getLocalName()) {
+                case NOTES_ELEMENT_NAME:
+                    notes.put(el.getAttribute(XML_LANG_ATTRIBUTE_NAME), el.getTextContent());
+                    break;
+                case PARAMETERS_ELEMENT_NAME:
+                    parametersEl = el;
+                    break;
+                case RAW_ELEMENT_NAME:
+                    raws.add(el);
+                    break;
+                case PRONTO_HEX_ELEMENT_NAME:
+                    prontoHexes.add(el.getTextContent());
+                    break;
+                case FORMAT_ELEMENT_NAME:
+                    formats.put(el.getAttribute(NAME_ATTRIBUTE_NAME), el.getTextContent());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (!notes.isEmpty()) {
+            json.name(NOTES_ELEMENT_NAME).beginObject();
+            for (Map.Entry<String, String> note : notes.entrySet())
+                json.name(note.getKey()).value(note.getValue());
+            json.endObject();
+        }
+        String F = element.getAttribute(F_ATTRIBUTE_NAME);
+        if (parametersEl != null || !F.isEmpty()) {
+            if (parametersEl != null)
+                json.property(PROTOCOL_ATTRIBUTE_NAME, parametersEl.getAttribute(PROTOCOL_ATTRIBUTE_NAME));
+            json.name(PARAMETERS_ELEMENT_NAME).beginObject();
+            if (!F.isEmpty())
+                json.name(F_ATTRIBUTE_NAME).value(Long.parseLong(F));
+            if (parametersEl != null)
+                for (Node node = parametersEl.getFirstChild(); node != null; node = node.getNextSibling())
+                    if (node.getNodeType() == Node.ELEMENT_NODE) {
+                        Element parameter = (Element) node;
+                        json.name(parameter.getAttribute(NAME_ATTRIBUTE_NAME)).value(Long.parseLong(parameter.getAttribute(VALUE_ATTRIBUTE_NAME)));
+                    }
+            json.endObject();
+        }
+        if (!raws.isEmpty()) {
+            json.name(RAW_ELEMENT_NAME).beginArray();
+            for (Element raw : raws)
+                writeRaw(json, raw);
+            json.endArray();
+        }
+        if (!prontoHexes.isEmpty()) {
+            json.name(PRONTO_HEX_ELEMENT_NAME).beginArray();
+            for (String prontoHex : prontoHexes)
+                json.value(prontoHex);
+            json.endArray();
+        }
+        if (!formats.isEmpty()) {
+            json.name(FORMATS_NAME).beginObject();
+            for (Map.Entry<String, String> format : formats.entrySet())
+                json.name(format.getKey()).value(format.getValue());
+            json.endObject();
+        }
+        json.endObject();
+    }
+
+    private static void writeRaw(JsonWriter json, Element raw) throws IOException {
+        json.beginObject();
+        String frequency = raw.getAttribute(FREQUENCY_ATTRIBUTE_NAME);
+        if (!frequency.isEmpty())
+            json.name(FREQUENCY_ATTRIBUTE_NAME).value(Long.parseLong(frequency));
+        String dutyCycle = raw.getAttribute(DUTYCYCLE_ATTRIBUTE_NAME);
+        if (!dutyCycle.isEmpty())
+            json.name(DUTYCYCLE_ATTRIBUTE_NAME).value(Double.parseDouble(dutyCycle));
+        for (Node node = raw.getFirstChild(); node != null; node = node.getNextSibling())
+            if (node.getNodeType() == Node.ELEMENT_NODE)
+                json.name(node.getLocalName()).value(Command.parseSequence((Element) node));
+        json.endObject();
+    }
+
+    private static void writeStrings(JsonWriter json, String name, Map<String, String> map, ExportOptions options) throws IOException {
+        if (map == null || map.isEmpty())
+            return;
+        json.name(name).beginObject();
+        for (Map.Entry<String, String> kvp : options.entries(map))
+            json.name(kvp.getKey()).value(kvp.getValue());
+        json.endObject();
+    }
+
+    private static void writeNumbers(JsonWriter json, String name, Map<String, Long> map, ExportOptions options) throws IOException {
+        json.name(name).beginObject();
+        for (Map.Entry<String, Long> kvp : options.entries(map))
+            json.name(kvp.getKey()).value(kvp.getValue());
+        json.endObject();
+    }
+
+    /**
+     * Reads a JSON document into a RemoteSet.
+     * @param reader
+     * @return new RemoteSet
+     * @throws IOException
+     * @throws GirrException if the document is not valid JSON, or does not describe valid Girr data.
+     */
+    public static RemoteSet parse(Reader reader) throws IOException, GirrException {
+        Map<String, Remote> remotes = new LinkedHashMap<>(INITIAL_HASHMAP_CAPACITY);
+        AdminData adminData = parse(new JsonReader(reader), (Remote remote) -> {
+            remotes.put(remote.getName(), remote);
+        });
+        return new RemoteSet(adminData, remotes);
+    }
+
+    /**
+     * Reads a JSON document, passing every Remote to the handler as soon as it has been read.
+     * The AdminData of the document is ignored.
+     * @param reader
+     * @param handler
+     * @return number of Remotes read.
+     * @throws IOException
+     * @throws GirrException if the document is not valid JSON, or does not describe valid Girr data.
+     */
+    public static int parse(Reader reader, RemoteHandler handler) throws IOException, GirrException {
+        int[] count = {0};
+        parse(new JsonReader(reader), (Remote remote) -> {
+            handler.handle(remote);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    private static AdminData parse(JsonReader json, RemoteHandler handler) throws IOException, GirrException {
+        AdminData adminData = new AdminData();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case ADMINDATA_ELEMENT_NAME:
+                    adminData = readAdminData(json);
+                    break;
+                case REMOTES_NAME:
+                    Document doc = XmlUtils.newDocument(true);
+                    json.beginArray();
+                    while (json.hasNext())
+                        handler.handle(readRemote(json, doc));
+                    json.endArray();
+                    break;
+                default:
+                    json.skipValue();
+                    break;
+            }
+        }
+        json.endObject();
+        json.endDocument();
+        return adminData;
+    }
+
+    private static AdminData readAdminData(JsonReader json) throws IOException, GirrException {
+        Map<String, String> fields = new LinkedHashMap<>(8);
+        Map<String, String> notes = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (name.equals(NOTES_ELEMENT_NAME))
+                notes = readStrings(json);
+            else
+                fields.put(name, json.nextString());
+        }
+        json.endObject();
+        return new AdminData(fields.get(CREATINGUSER_ATTRIBUTE_NAME), fields.get(SOURCE_ATTRIBUTE_NAME), fields.get(CREATIONDATE_ATTRIBUTE_NAME),
+                fields.get(TOOL_ATTRIBUTE_NAME), fields.get(TOOLVERSIION_ATTRIBUTE_NAME), fields.get(TOOL2_ATTRIBUTE_NAME), fields.get(TOOL2VERSION_ATTRIBUTE_NAME), notes);
+    }
+
+    private static Remote readRemote(JsonReader json, Document doc) throws IOException, GirrException {
+        Map<String, String> fields = new LinkedHashMap<>(8);
+        AdminData adminData = new AdminData();
+        Map<String, String> notes = null;
+        Map<String, Map<String, String>> applicationParameters = new LinkedHashMap<>(INITIAL_HASHMAP_CAPACITY);
+        List<CommandSet> commandSets = new ArrayList<>(1);
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            switch (name) {
+                case ADMINDATA_ELEMENT_NAME:
+                    adminData = readAdminData(json);
+                    break;
+                case NOTES_ELEMENT_NAME:
+                    notes = readStrings(json);
+                    break;
+                case APPLICATIONDATA_ELEMENT_NAME:
+                    json.beginObject();
+                    while (json.hasNext())
+                        applicationParameters.put(json.nextName(), readStrings(json));
+                    json.endObject();
+                    break;
+                case COMMANDSETS_NAME:
+                    json.beginArray();
+                    while (json.hasNext())
+                        commandSets.add(readCommandSet(json, doc));
+                    json.endArray();
+                    break;
+                default:
+                    fields.put(name, json.nextString());
+                    break;
+            }
+        }
+        json.endObject();
+        if (fields.get(NAME_ATTRIBUTE_NAME) == null)
+            throw json.error("Remote without name");
+        Remote.MetaData metaData = new Remote.MetaData(fields.get(NAME_ATTRIBUTE_NAME), fields.get(DISPLAYNAME_ATTRIBUTE_NAME),
+                fields.get(MANUFACTURER_ATTRIBUTE_NAME), fields.get(MODEL_ATTRIBUTE_NAME), fields.get(DEVICECLASS_ATTRIBUTE_NAME), fields.get(REMOTENAME_ATTRIBUTE_NAME));
+        return new Remote(adminData, metaData, fields.get(COMMENT_ATTRIBUTE_NAME), notes, commandSets, applicationParameters);
+    }
+
+    private static CommandSet readCommandSet(JsonReader json, Document doc) throws IOException, GirrException {
+        String name = null;
+        Map<String, String> notes = null;
+        String protocolName = null;
+        Map<String, Long> parameters = null;
+        Map<String, Command> commands = new LinkedHashMap<>(INITIAL_HASHMAP_CAPACITY);
+        boolean commandsRead = false;
+        json.beginObject();
+        while (json.hasNext()) {
+            String key = json.nextName();
+            switch (key) {
+                case NAME_ATTRIBUTE_NAME:
+                    name = json.nextString();
+                    break;
+                case NOTES_ELEMENT_NAME:
+                    notes = readStrings(json);
+                    break;
+                case PROTOCOL_ATTRIBUTE_NAME:
+                case PARAMETERS_ELEMENT_NAME:
+                    if (commandsRead)
+                        throw json.error("\"" + key + "\" must precede \"" + COMMANDS_NAME + "\"");
+                    if (key.equals(PROTOCOL_ATTRIBUTE_NAME))
+                        protocolName = json.nextString();
+                    else
+                        parameters = readNumbers(json);
+                    break;
+                case COMMANDS_NAME:
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        Command command = new Command(readCommand(json, doc), protocolName, parameters);
+                        commands.put(command.getName(), command);
+                    }
+                    json.endArray();
+                    commandsRead = true;
+                    break;
+                default:
+                    json.skipValue();
+                    break;
+            }
+        }
+        json.endObject();
+        return new CommandSet(name, notes, commands, protocolName, parameters);
+    }
+
+    /**
+     * Translates a JSON command into an XML Element, to be imported by {@link Command#Command(Element, String, Map)}.
+     */
+    private static Element readCommand(JsonReader json, Document doc) throws IOException, GirrException {
+        Element element = createElement(doc, COMMAND_ELEMENT_NAME, null);
+        String protocolName = null;
+        Map<String, Long> parameters = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            String key = json.nextName();
+            switch (key) {
+                case NAME_ATTRIBUTE_NAME:
+                case MASTER_ATTRIBUTE_NAME:
+                case DISPLAYNAME_ATTRIBUTE_NAME:
+                case COMMENT_ATTRIBUTE_NAME:
+                    element.setAttribute(key, json.nextString());
+                    break;
+                case NOTES_ELEMENT_NAME:
+                    for (Map.Entry<String, String> note : readStrings(json).entrySet()) {
+                        Element notesEl = createElement(doc, NOTES_ELEMENT_NAME, element);
+                        notesEl.setAttribute(XML_LANG_ATTRIBUTE_NAME, note.getKey());
+                        notesEl.setTextContent(note.getValue());
+                    }
+                    break;
+                case PROTOCOL_ATTRIBUTE_NAME:
+                    protocolName = json.nextString();
+                    break;
+                case PARAMETERS_ELEMENT_NAME:
+                    parameters = readNumbers(json);
+                    break;
+                case RAW_ELEMENT_NAME:
+                    json.beginArray();
+                    for (int T = 0; json.hasNext(); T++)
+                        readRaw(json, createElement(doc, RAW_ELEMENT_NAME, element), T);
+                    json.endArray();
+                    break;
+                case PRONTO_HEX_ELEMENT_NAME:
+                    json.beginArray();
+                    for (int T = 0; json.hasNext(); T++) {
+                        Element prontoHexEl = createElement(doc, PRONTO_HEX_ELEMENT_NAME, element);
+                        prontoHexEl.setAttribute(TOGGLE_ATTRIBUTE_NAME, Integer.toString(T));
+                        prontoHexEl.setTextContent(json.nextString());
+                    }
+                    json.endArray();
+                    break;
+                case FORMATS_NAME:
+                    for (Map.Entry<String, String> format : readStrings(json).entrySet()) {
+                        Element formatEl = createElement(doc, FORMAT_ELEMENT_NAME, element);
+                        formatEl.setAttribute(NAME_ATTRIBUTE_NAME, format.getKey());
+                        formatEl.setTextContent(format.getValue());
+                    }
+                    break;
+                default:
+                    json.skipValue();
+                    break;
+            }
+        }
+        json.endObject();
+        if (protocolName != null || parameters != null) {
+            Element parametersEl = createElement(doc, PARAMETERS_ELEMENT_NAME, element);
+            if (protocolName != null)
+                parametersEl.setAttribute(PROTOCOL_ATTRIBUTE_NAME, protocolName);
+            if (parameters != null)
+                for (Map.Entry<String, Long> parameter : parameters.entrySet()) {
+                    Element parameterEl = createElement(doc, PARAMETER_ELEMENT_NAME, parametersEl);
+                    parameterEl.setAttribute(NAME_ATTRIBUTE_NAME, parameter.getKey());
+                    parameterEl.setAttribute(VALUE_ATTRIBUTE_NAME, parameter.getValue().toString());
+                }
+        }
+        return element;
+    }
+
+    private static void readRaw(JsonReader json, Element rawEl, int T) throws IOException, GirrException {
+        rawEl.setAttribute(TOGGLE_ATTRIBUTE_NAME, Integer.toString(T));
+        json.beginObject();
+        while (json.hasNext()) {
+            String key = json.nextName();
+            switch (key) {
+                case FREQUENCY_ATTRIBUTE_NAME:
+                    rawEl.setAttribute(key, Long.toString(json.nextLong()));
+                    break;
+                case DUTYCYCLE_ATTRIBUTE_NAME:
+                    rawEl.setAttribute(key, Double.toString(json.nextDouble()));
+                    break;
+                case INTRO_ELEMENT_NAME:
+                case REPEAT_ELEMENT_NAME:
+                case ENDING_ELEMENT_NAME:
+                    createElement(rawEl.getOwnerDocument(), key, rawEl).setTextContent(json.nextString());
+                    break;
+                default:
+                    json.skipValue();
+                    break;
+            }
+        }
+        json.endObject();
+    }
+
+    private static Element createElement(Document doc, String name, Element parent) {
+        Element element = doc.createElementNS(GIRR_NAMESPACE, name);
+        if (parent != null)
+            parent.appendChild(element);
+        return element;
+    }
+
+    private static Map<String, String> readStrings(JsonReader json) throws IOException, GirrException {
+        Map<String, String> map = new LinkedHashMap<>(INITIAL_HASHMAP_CAPACITY);
+        json.beginObject();
+        while (json.hasNext())
+            map.put(json.nextName(), json.nextString());
+        json.endObject();
+        return map;
+    }
+
+    private static Map<String, Long> readNumbers(JsonReader json) throws IOException, GirrException {
+        Map<String, Long> map = new LinkedHashMap<>(INITIAL_HASHMAP_CAPACITY);
+        json.beginObject();
+        while (json.hasNext())
+            map.put(json.nextName(), json.nextLong());
+        json.endObject();
+        return map;
+    }
+
+    private GirrJson() {
+    }
+}
@@ -0,0 +1,244 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.harctoolbox.ircore.IrCoreException;
+import org.harctoolbox.irp.IrpException;
+
+/**
+ * Streaming HTML report of Remotes, written directly from the model, without DOM or XSLT.
+ * It contains the same information as the stylesheet simplehtml.xsl, but the memory usage is independent of the
+ * size of the library, and the output is flushed regularly, so that a web server can stream it.
+ * The Pronto Hex of the Commands is generated on demand; if not possible, the raw form is shown instead.
+ */
+public final class HtmlReport {
+
+    private static final Logger logger = Logger.getLogger(HtmlReport.class.getName());
+
+    public static final String EXTENSION = ".html";
+    public static final String DEFAULT_INDEX_FILE_NAME = "index" + EXTENSION;
+    public static final int DEFAULT_FLUSH_INTERVAL = 100;
+
+    private static final String LINE_SEPARATOR = "\n";
+    private static final String COMMAND_ID_PREFIX = "cmd";
+    private static final String REMOTE_ID_PREFIX = "remote";
+
+    private final String title;
+    private int flushInterval;
+
+    /**
+     * @param title Title of the report, or index page.
+     */
+    public HtmlReport(String title) {
+        this.title = title;
+        this.flushInterval = DEFAULT_FLUSH_INTERVAL;
+    }
+
+    /**
+     * @param flushInterval The output is flushed after this many Commands; 0 for no flushing.
+     */
+    public void setFlushInterval(int flushInterval) {
+        if (flushInterval < 0)
+            throw new IllegalArgumentException("flushInterval must be non-negative");
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Writes all Remotes to one HTML page, each preceded by its heading.
+     * @param out
+     * @param remotes
+     * @return number of Commands written, counting every toggle value.
+     * @throws IOException
+     */
+    public int print(Writer out, Iterable<Remote> remotes) throws IOException {
+        beginPage(out, title);
+        int count = 0;
+        int remoteNumber = 0;
+        for (Remote remote : remotes)
+            count += printRemoteBody(out, remote, REMOTE_ID_PREFIX + remoteNumber++);
+        endPage(out);
+        return count;
+    }
+
+    /**
+     * Writes a page for every Remote in the directory, and an index page linking to them.
+     * @param directory Directory to write to; created if it does not exist.
+     * @param indexFileName Name of the index page, for example {@link #DEFAULT_INDEX_FILE_NAME}.
+     * @param remotes
+     * @return The index file.
+     * @throws IOException
+     */
+    public File print(File directory, String indexFileName, Collection<Remote> remotes) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Cannot create directory " + directory);
+
+        List<String> names = new ArrayList<>(remotes.size());
+        remotes.forEach((remote) -> {
+            names.add(remote.getName());
+        });
+        Map<String, String> fileNames = RemoteSetIndex.fileNames(names, indexFileName, EXTENSION);
+
+        File indexFile = new File(directory, indexFileName);
+        try (Writer index = open(indexFile)) {
+            beginPage(index, title);
+            index.append("<table>").append(LINE_SEPARATOR);
+            index.append("<tr><th>Remote</th><th>Manufacturer</th><th>Model</th><th>Device class</th><th>Commands</th></tr>").append(LINE_SEPARATOR);
+            for (Remote remote : remotes) {
+                String fileName = fileNames.get(remote.getName());
+                int count;
+                try (Writer out = open(new File(directory, fileName))) {
+                    count = printRemote(out, remote, indexFileName);
+                }
+                index.append("<tr><td><a href=\"").append(escape(fileName)).append("\">").append(escape(remote.getName())).append("</a></td>");
+                index.append("<td>").append(escape(remote.getManufacturer())).append("</td>");
+                index.append("<td>").append(escape(remote.getModel())).append("</td>");
+                index.append("<td>").append(escape(remote.getDeviceClass())).append("</td>");
+                index.append("<td>").append(Integer.toString(count)).append("</td></tr>").append(LINE_SEPARATOR);
+                index.flush();
+            }
+            index.append("</table>").append(LINE_SEPARATOR);
+            endPage(index);
+        }
+        return indexFile;
+    }
+
+    /**
+     * Writes a page containing one Remote.
+     * @param out
+     * @param remote
+     * @param indexHref Link to the index page, or null.
+     * @return number of Commands written, counting every toggle value.
+     * @throws IOException
+     */
+    public int printRemote(Writer out, Remote remote, String indexHref) throws IOException {
+        beginPage(out, remote.getName());
+        if (indexHref != null)
+            out.append("<p><a href=\"").append(escape(indexHref)).append("\">").append(escape(title)).append("</a></p>").append(LINE_SEPARATOR);
+        int count = printRemoteBody(out, remote, REMOTE_ID_PREFIX);
+        endPage(out);
+        return count;
+    }
+
+    private int printRemoteBody(Writer out, Remote remote, String id) throws IOException {
+        out.append("<h2 id=\"").append(id).append("\">Remote: ").append(escape(remote.getName())).append("</h2>").append(LINE_SEPARATOR);
+        String notes = remote.getNotes();
+        if (notes != null)
+            out.append("<p>").append(escape(notes)).append("</p>").append(LINE_SEPARATOR);
+        int count = 0;
+        for (CommandSet commandSet : remote)
+            for (Command command : commandSet) {
+                int toggles = command.numberOfToggleValues();
+                for (int T = 0; T < toggles; T++) {
+                    printCommand(out, command, toggles > 1 ? T : null, id + '-' + COMMAND_ID_PREFIX + count);
+                    count++;
+                    if (flushInterval > 0 && count % flushInterval == 0)
+                        out.flush();
+                }
+            }
+        return count;
+    }
+
+    private void printCommand(Writer out, Command command, Integer T, String id) throws IOException {
+        StringBuilder heading = new StringBuilder(64);
+        heading.append(command.getName());
+        String signal;
+        try {
+            TextExporter.appendParameters(heading, command, T);
+        } catch (IrpException | IrCoreException ex) {
+            // Not decodable; the heading just consists of the name
+        }
+        try {
+            signal = command.getProntoHex(T != null ? T : 0);
+        } catch (GirrException | IrpException | IrCoreException ex) {
+            signal = null;
+        }
+        if (signal == null) {
+            StringBuilder raw = new StringBuilder(256);
+            try {
+                TextExporter.RAW.command(raw, command, T);
+                // Drop the name line of the RAW format
+                signal = raw.substring(raw.indexOf(LINE_SEPARATOR) + 1).trim();
+            } catch (GirrException | IrpException | IrCoreException ex) {
+                logger.log(Level.WARNING, "Command {0} could not be rendered: {1}", new Object[]{command.getName(), ex.getLocalizedMessage()});
+                signal = "";
+            }
+        }
+        out.append("<h3 id=\"").append(id).append("\">").append(escape(heading.toString())).append("</h3>").append(LINE_SEPARATOR);
+        out.append("<p>").append(escape(signal)).append("</p>").append(LINE_SEPARATOR);
+    }
+
+    private static void beginPage(Writer out, String heading) throws IOException {
+        out.append("<!DOCTYPE html>").append(LINE_SEPARATOR);
+        out.append("<html>").append(LINE_SEPARATOR);
+        out.append("<head>").append(LINE_SEPARATOR);
+        out.append("<meta charset=\"UTF-8\">").append(LINE_SEPARATOR);
+        out.append("<title>").append(escape(heading)).append("</title>").append(LINE_SEPARATOR);
+        out.append("</head>").append(LINE_SEPARATOR);
+        out.append("<body>").append(LINE_SEPARATOR);
+        out.append("<h1>").append(escape(heading)).append("</h1>").append(LINE_SEPARATOR);
+    }
+
+    private static void endPage(Writer out) throws IOException {
+        out.append("</body>").append(LINE_SEPARATOR);
+        out.append("</html>").append(LINE_SEPARATOR);
+        out.flush();
+    }
+
+    private static Writer open(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    }
+
+    static String escape(String string) {
+        if (string == null)
+            return "";
+        StringBuilder str = new StringBuilder(string.length() + 16);
+        for (int i = 0; i < string.length(); i++) {
+            char ch = string.charAt(i);
+            switch (ch) {
+                case '<':
+                    str.append("&lt;");
+                    break;
+                case '>':
+                    str.append("&gt;");
+                    break;
+                case '&':
+                    str.append("&amp;");
+                    break;
+                case '"':
+                    str.append("&quot;");
+                    break;
+                default:
+                    str.append(ch);
+            }
+        }
+        return str.toString();
+    }
+}
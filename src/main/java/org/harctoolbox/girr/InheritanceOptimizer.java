@@ -0,0 +1,160 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import static org.harctoolbox.girr.Command.F_PARAMETER_NAME;
+import static org.harctoolbox.girr.Command.INITIAL_HASHMAP_CAPACITY;
+import org.harctoolbox.ircore.IrCoreException;
+import org.harctoolbox.irp.IrpException;
+
+/**
+ * Finds the protocol and parameters that Commands in a CommandSet should inherit,
+ * in order to make as many Commands as possible reducible to just their F parameter.
+ * Only Commands with master type parameters are considered, other Commands do not inherit.
+ */
+final class InheritanceOptimizer {
+
+    private static final Logger logger = Logger.getLogger(InheritanceOptimizer.class.getName());
+
+    /**
+     * Returns the candidate for inheritance of one Command, that is, its protocol and its parameters except F.
+     * @param command
+     * @return Candidate, or null if the Command does not have the parameters as master type.
+     * @throws IrpException
+     * @throws IrCoreException
+     */
+    static Candidate candidate(Command command) throws IrpException, IrCoreException {
+        if (command == null || command.getMasterType() != Command.MasterType.parameters)
+            return null;
+
+        String protocolName = command.getProtocolName();
+        Map<String, Long> parameters = command.getParameters();
+        if (protocolName == null || parameters == null)
+            return null;
+
+        Map<String, Long> inheritable = new LinkedHashMap<>(INITIAL_HASHMAP_CAPACITY);
+        for (Map.Entry<String, Long> kvp : parameters.entrySet())
+            if (!kvp.getKey().equals(F_PARAMETER_NAME))
+                inheritable.put(kvp.getKey(), kvp.getValue());
+        return new Candidate(protocolName, inheritable);
+    }
+
+    /**
+     * Returns the most common candidate among the Commands.
+     * Among equally common candidates, the first one encountered is selected,
+     * so the result equals the candidate of the first Command whenever that is among the most common.
+     * @param commands
+     * @return most common candidate, or null if no Command has a candidate.
+     */
+    static Candidate mostCommon(Iterable<Command> commands) {
+        Candidate best = null;
+        int bestCount = 0;
+        for (Map.Entry<Candidate, List<Command>> group : group(commands).entrySet()) {
+            if (group.getKey() != null && group.getValue().size() > bestCount) {
+                best = group.getKey();
+                bestCount = group.getValue().size();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Divides the Commands into groups, that can be put into separate CommandSets, each with its own inheritance.
+     * Every candidate shared by at least minimumGroupSize Commands gets a group of its own;
+     * the remaining Commands are collected in a last group.
+     * @param commands
+     * @param minimumGroupSize
+     * @return Commands grouped, in order of first occurrence; a single group if no split is sensible.
+     */
+    static List<Map<String, Command>> split(Iterable<Command> commands, int minimumGroupSize) {
+        List<Map<String, Command>> result = new ArrayList<>(4);
+        Map<String, Command> rest = new LinkedHashMap<>(INITIAL_HASHMAP_CAPACITY);
+        for (Map.Entry<Candidate, List<Command>> group : group(commands).entrySet()) {
+            if (group.getKey() != null && group.getValue().size() >= minimumGroupSize)
+                result.add(Named.toMap(group.getValue()));
+            else
+                for (Command command : group.getValue())
+                    rest.put(command.getName(), command);
+        }
+        if (!rest.isEmpty())
+            result.add(rest);
+        return result;
+    }
+
+    private static Map<Candidate, List<Command>> group(Iterable<Command> commands) {
+        Map<Candidate, List<Command>> groups = new LinkedHashMap<>(INITIAL_HASHMAP_CAPACITY);
+        for (Command command : commands) {
+            Candidate candidate;
+            try {
+                candidate = candidate(command);
+            } catch (IrpException | IrCoreException ex) {
+                logger.log(Level.WARNING, "Cannot compute parameters of command {0}", command.getName());
+                candidate = null;
+            }
+            groups.computeIfAbsent(candidate, c -> new ArrayList<>(INITIAL_HASHMAP_CAPACITY)).add(command);
+        }
+        return groups;
+    }
+
+    private InheritanceOptimizer() {
+    }
+
+    /**
+     * Protocol name and parameters (not including F) that can be inherited from a CommandSet.
+     */
+    static final class Candidate {
+        private final String protocolName;
+        private final Map<String, Long> parameters;
+
+        Candidate(String protocolName, Map<String, Long> parameters) {
+            this.protocolName = protocolName;
+            this.parameters = Collections.unmodifiableMap(parameters);
+        }
+
+        String getProtocolName() {
+            return protocolName;
+        }
+
+        Map<String, Long> getParameters() {
+            return parameters;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Candidate))
+                return false;
+            Candidate other = (Candidate) obj;
+            return protocolName.equals(other.protocolName) && parameters.equals(other.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(protocolName, parameters);
+        }
+    }
+}
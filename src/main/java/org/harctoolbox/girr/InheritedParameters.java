@@ -0,0 +1,135 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import static org.harctoolbox.girr.Command.TOGGLE_PARAMETER_NAME;
+import org.harctoolbox.irp.Expression;
+import org.harctoolbox.irp.NameEngine;
+import org.harctoolbox.irp.NameUnassignedException;
+import org.harctoolbox.irp.ParameterSpec;
+import org.harctoolbox.irp.Protocol;
+
+/**
+ * Protocol name and parameters inherited from a CommandSet during one export,
+ * together with precomputed protocol defaults.
+ * The defaults of the inherited parameters are evaluated once per protocol,
+ * instead of once for every exported Command.
+ */
+final class InheritedParameters {
+
+    private final String protocolName;
+    private final Map<String, Long> parameters;
+    private final Map<String, ProtocolDefaults> protocolDefaults;
+
+    InheritedParameters(String protocolName, Map<String, Long> parameters) {
+        this.protocolName = protocolName;
+        this.parameters = parameters;
+        this.protocolDefaults = new HashMap<>(2);
+    }
+
+    String getProtocolName() {
+        return protocolName;
+    }
+
+    Map<String, Long> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the defaults for the protocol, computing them on first request.
+     * @param name name of the protocol, used as key.
+     * @param protocol
+     * @return ProtocolDefaults
+     */
+    ProtocolDefaults getProtocolDefaults(String name, Protocol protocol) {
+        return protocolDefaults.computeIfAbsent(name, n -> new ProtocolDefaults(protocol, parameters));
+    }
+
+    /**
+     * The parameters of a protocol having default values, and their values for the inherited parameters.
+     */
+    static final class ProtocolDefaults {
+
+        private final List<ParameterSpec> defaultedSpecs;
+        private final Map<String, Long> inheritedValues;
+
+        private ProtocolDefaults(Protocol protocol, Map<String, Long> inheritedParameters) {
+            defaultedSpecs = new ArrayList<>(4);
+            inheritedValues = new HashMap<>(4);
+            NameEngine inheritedNameEngine = null;
+            for (ParameterSpec p : protocol.getParameterSpecs()) {
+                String parameterName = p.getName();
+                Expression deflt = p.getDefault();
+                if (parameterName.equals(TOGGLE_PARAMETER_NAME) || deflt == null)
+                    continue;
+
+                defaultedSpecs.add(p);
+                Long value = inheritedParameters != null ? inheritedParameters.get(parameterName) : null;
+                if (value == null) {
+                    if (inheritedNameEngine == null)
+                        inheritedNameEngine = new NameEngine(inheritedParameters != null ? inheritedParameters : Collections.emptyMap());
+                    value = evaluate(deflt, inheritedNameEngine);
+                }
+                inheritedValues.put(parameterName, value);
+            }
+        }
+
+        /**
+         * Returns the value of the parameter in the inherited assignment, either explicitly given or by default.
+         * @param parameterName
+         * @return value, or null if it cannot be determined.
+         */
+        Long getInheritedValue(String parameterName) {
+            return inheritedValues.get(parameterName);
+        }
+
+        /**
+         * Evaluates the defaults of the parameters that are not given in the argument.
+         * @param parameters
+         * @return Map of parameters having defaults but missing in the argument, in the order of the protocol,
+         * with the default values; null values for defaults that could not be evaluated.
+         */
+        Map<String, Long> evaluateMissing(Map<String, Long> parameters) {
+            Map<String, Long> result = new LinkedHashMap<>(defaultedSpecs.size());
+            NameEngine nameEngine = null;
+            for (ParameterSpec p : defaultedSpecs) {
+                String parameterName = p.getName();
+                if (parameters.containsKey(parameterName))
+                    continue;
+                if (nameEngine == null)
+                    nameEngine = new NameEngine(parameters);
+                result.put(parameterName, evaluate(p.getDefault(), nameEngine));
+            }
+            return result;
+        }
+
+        private static Long evaluate(Expression expression, NameEngine nameEngine) {
+            try {
+                return expression.toLong(nameEngine);
+            } catch (NameUnassignedException ex) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.harctoolbox.ircore.IrSignal;
+import org.harctoolbox.ircore.OddSequenceLengthException;
+
+/**
+ * Streaming import of the XML format of IrPlus (https://irplus-remote.github.io/),
+ * constructing the Girr model directly, without DOM. Replaces the stylesheet irplus2girr.xsl.
+ * Every "device" element becomes a Remote.
+ * The button formats PRONTO_HEX and WINLIRC_RAW are supported; buttons in other formats are logged and skipped.
+ */
+public final class IrPlusImporter {
+
+    private static final Logger logger = Logger.getLogger(IrPlusImporter.class.getName());
+
+    public static final String EXTENSION = ".irplus";
+
+    private static final String DEVICE_ELEMENT_NAME = "device";
+    private static final String BUTTON_ELEMENT_NAME = "button";
+    private static final String MANUFACTURER_ATTRIBUTE_NAME = "manufacturer";
+    private static final String MODEL_ATTRIBUTE_NAME = "model";
+    private static final String FORMAT_ATTRIBUTE_NAME = "format";
+    private static final String FREQUENCY_ATTRIBUTE_NAME = "frequency";
+    private static final String LABEL_ATTRIBUTE_NAME = "label";
+    private static final String PRONTO_HEX_FORMAT = "PRONTO_HEX";
+    private static final String WINLIRC_RAW_FORMAT = "WINLIRC_RAW";
+    private static final char PRONTO_HEX_SEPARATOR = '|';
+
+    // LIRC default frequency
+    private static final double DEFAULT_FREQUENCY = 38000d;
+
+    // Lirc does not supply ending gaps
+    private static final String WINLIRC_RAW_ENDING_GAP = " 30000";
+
+    /**
+     * Reads an IrPlus XML document.
+     * @param reader
+     * @param source Source, for the AdminData; may be null.
+     * @return new RemoteSet, containing one Remote for every device.
+     * @throws GirrException if the document is not well formed.
+     */
+    public static RemoteSet parse(Reader reader, String source) throws GirrException {
+        Map<String, Remote> remotes = new LinkedHashMap<>(1);
+        XMLStreamReader xml = null;
+        try {
+            xml = XmlStatic.createXmlStreamReader(reader);
+            Device device = null;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (xml.getLocalName()) {
+                        case DEVICE_ELEMENT_NAME:
+                            device = new Device(xml);
+                            break;
+                        case BUTTON_ELEMENT_NAME:
+                            if (device != null)
+                                device.addButton(xml.getAttributeValue(null, LABEL_ATTRIBUTE_NAME), xml.getElementText(), source);
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals(DEVICE_ELEMENT_NAME) && device != null) {
+                    Remote remote = device.toRemote(remotes.keySet(), source);
+                    remotes.put(remote.getName(), remote);
+                    device = null;
+                }
+            }
+        } catch (XMLStreamException ex) {
+            throw new GirrException(ex);
+        } finally {
+            close(xml);
+        }
+        return new RemoteSet(null, source, remotes);
+    }
+
+    /**
+     * Reads an IrPlus XML file.
+     * @param file
+     * @return new RemoteSet, containing one Remote for every device.
+     * @throws IOException
+     * @throws GirrException if the document is not well formed.
+     */
+    public static RemoteSet parse(File file) throws IOException, GirrException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return parse(reader, file.getPath());
+        }
+    }
+
+    /**
+     * Reads all IrPlus files (with the extension {@link #EXTENSION}) in a directory tree in parallel,
+     * passing each generated Remote to the handler, in alphabetical order of the files.
+     * Files that cannot be read are logged and skipped.
+     * @param root file or directory.
+     * @param threads number of threads; 0 for one per available processor.
+     * @param preRender Form to compute in advance for all Commands; raw or ccf (Pronto Hex), or parameters for none.
+     * @param handler Receiver of the Remotes.
+     * @return number of Remotes read.
+     * @throws IOException if the handler throws it.
+     */
+    public static int importTree(File root, int threads, Command.MasterType preRender, RemoteHandler handler) throws IOException {
+        return TreeImporter.importTree(root, EXTENSION, threads, IrPlusImporter::parse, preRender, handler);
+    }
+
+    static void close(XMLStreamReader xml) {
+        if (xml == null)
+            return;
+        try {
+            xml.close();
+        } catch (XMLStreamException ex) {
+            logger.log(Level.WARNING, null, ex);
+        }
+    }
+
+    private IrPlusImporter() {
+    }
+
+    private static class Device {
+
+        private final String manufacturer;
+        private final String model;
+        private final String format;
+        private final double frequency;
+        private final Map<String, Command> commands;
+
+        Device(XMLStreamReader xml) {
+            manufacturer = xml.getAttributeValue(null, MANUFACTURER_ATTRIBUTE_NAME);
+            model = xml.getAttributeValue(null, MODEL_ATTRIBUTE_NAME);
+            format = xml.getAttributeValue(null, FORMAT_ATTRIBUTE_NAME);
+            String freq = xml.getAttributeValue(null, FREQUENCY_ATTRIBUTE_NAME);
+            frequency = freq != null ? Double.parseDouble(freq) : DEFAULT_FREQUENCY;
+            commands = new LinkedHashMap<>(Command.INITIAL_HASHMAP_CAPACITY);
+        }
+
+        void addButton(String label, String text, String source) {
+            String name = label;
+            for (int i = 1; commands.containsKey(name); i++)
+                name = label + "_" + i;
+            try {
+                Command command = mkCommand(name, text.trim());
+                if (command != null)
+                    commands.put(name, command);
+            } catch (GirrException | OddSequenceLengthException | NumberFormatException ex) {
+                logger.log(Level.WARNING, "{0}: Button {1} could not be read: {2}", new Object[]{source, label, ex.getMessage()});
+            }
+        }
+
+        private Command mkCommand(String name, String text) throws GirrException, OddSequenceLengthException {
+            if (PRONTO_HEX_FORMAT.equals(format)) {
+                int separator = text.indexOf(PRONTO_HEX_SEPARATOR);
+                return new Command(name, null, separator >= 0 ? text.substring(0, separator).trim() : text);
+            } else if (WINLIRC_RAW_FORMAT.equals(format)) {
+                // Only reasonable guess
+                IrSignal irSignal = new IrSignal("", text + WINLIRC_RAW_ENDING_GAP, "", frequency, null);
+                return new Command(name, null, irSignal);
+            } else {
+                logger.log(Level.WARNING, "Format {0} not implemented, button {1} skipped", new Object[]{format, name});
+                return null;
+            }
+        }
+
+        Remote toRemote(Collection<String> taken, String source) {
+            String base = manufacturer + "_" + model;
+            String name = base;
+            for (int i = 1; taken.contains(name); i++)
+                name = base + "_" + i;
+            Remote.MetaData metaData = new Remote.MetaData(name, null, manufacturer, model, null, null);
+            return new Remote(metaData, source, null, null, commands, null, null, null);
+        }
+    }
+}
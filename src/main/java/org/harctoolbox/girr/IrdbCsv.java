@@ -0,0 +1,261 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.harctoolbox.ircore.IrCoreException;
+import org.harctoolbox.irp.IrpException;
+
+/**
+ * Import and export of the CSV format used by IRDB (https://github.com/probonopd/irdb),
+ * with one line per command: "functionname,protocol,device,subdevice,function",
+ * where a subdevice of -1 denotes a missing subdevice.
+ * In the IRDB tree, the files are organized as "manufacturer/device class/device,subdevice.csv".
+ *
+ * Both directions work line by line, without building a DOM, and replace the stylesheet girr2irdb-csv.xsl.
+ */
+public final class IrdbCsv {
+
+    private static final Logger logger = Logger.getLogger(IrdbCsv.class.getName());
+
+    public static final String HEADER = "functionname,protocol,device,subdevice,function";
+    public static final String EXTENSION = ".csv";
+
+    private static final String D_PARAMETER_NAME = "D";
+    private static final String S_PARAMETER_NAME = "S";
+    private static final String F_PARAMETER_NAME = "F";
+    private static final long NO_SUBDEVICE = -1L;
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final String LINE_SEPARATOR = "\n";
+    private static final int NUMBER_OF_FIELDS = 5;
+
+    /**
+     * Writes the header line, and one line for every Command with a protocol, decoding Commands if required.
+     * Commands that cannot be decoded, or that lack a function number, are logged and skipped.
+     * @param writer
+     * @param remotes
+     * @return number of Commands written.
+     * @throws IOException
+     */
+    public static int export(Writer writer, Iterable<Remote> remotes) throws IOException {
+        writer.write(HEADER);
+        writer.write(LINE_SEPARATOR);
+        int count = 0;
+        for (Remote remote : remotes)
+            count += exportCommands(writer, remote);
+        return count;
+    }
+
+    /**
+     * Writes the header line, and one line for every Command of the Remote.
+     * @param writer
+     * @param remote
+     * @return number of Commands written.
+     * @throws IOException
+     */
+    public static int export(Writer writer, Remote remote) throws IOException {
+        return export(writer, Arrays.asList(remote));
+    }
+
+    private static int exportCommands(Writer writer, Remote remote) throws IOException {
+        int count = 0;
+        StringBuilder line = new StringBuilder(64);
+        for (CommandSet commandSet : remote)
+            for (Command command : commandSet) {
+                line.setLength(0);
+                if (formatLine(line, command)) {
+                    writer.append(line).append(LINE_SEPARATOR);
+                    count++;
+                }
+            }
+        return count;
+    }
+
+    private static boolean formatLine(StringBuilder line, Command command) {
+        String protocolName;
+        Map<String, Long> parameters;
+        try {
+            // Export does not modify the model, so a Command without parameters is decoded through a copy.
+            Command decoded = command.knownProtocolName() != null ? command : new Command(command.getName(), null, command.toIrSignal());
+            protocolName = decoded.getProtocolName();
+            parameters = decoded.getParameters();
+        } catch (IrpException | IrCoreException ex) {
+            logger.log(Level.WARNING, "Command {0} could not be decoded: {1}", new Object[]{command.getName(), ex.getLocalizedMessage()});
+            return false;
+        }
+        if (protocolName == null || parameters == null || !parameters.containsKey(F_PARAMETER_NAME)) {
+            logger.log(Level.WARNING, "Command {0} has no protocol or no function number, skipped", command.getName());
+            return false;
+        }
+        appendField(line, command.getName()).append(SEPARATOR);
+        appendField(line, protocolName).append(SEPARATOR);
+        Long device = parameters.get(D_PARAMETER_NAME);
+        if (device != null)
+            line.append(device);
+        line.append(SEPARATOR);
+        Long subdevice = parameters.get(S_PARAMETER_NAME);
+        line.append(subdevice != null ? subdevice : NO_SUBDEVICE).append(SEPARATOR);
+        line.append(parameters.get(F_PARAMETER_NAME));
+        return true;
+    }
+
+    private static StringBuilder appendField(StringBuilder line, String field) {
+        if (field.indexOf(SEPARATOR) < 0 && field.indexOf(QUOTE) < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0)
+            return line.append(field);
+        line.append(QUOTE);
+        for (int i = 0; i < field.length(); i++) {
+            char ch = field.charAt(i);
+            if (ch == QUOTE)
+                line.append(QUOTE);
+            line.append(ch);
+        }
+        return line.append(QUOTE);
+    }
+
+    /**
+     * Splits a CSV line into fields, honoring quotes.
+     * @param line
+     * @return List of the fields.
+     */
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(NUMBER_OF_FIELDS);
+        StringBuilder field = new StringBuilder(line.length());
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == QUOTE) {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == QUOTE) {
+                        field.append(QUOTE);
+                        i++;
+                    } else
+                        quoted = false;
+                } else
+                    field.append(ch);
+            } else if (ch == QUOTE)
+                quoted = true;
+            else if (ch == SEPARATOR) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else
+                field.append(ch);
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    /**
+     * Reads IRDB CSV into a Remote with one CommandSet.
+     * The header line is optional. Lines that cannot be parsed are logged and skipped.
+     * @param reader
+     * @param metaData MetaData of the generated Remote.
+     * @param source Source, for the AdminData; may be null.
+     * @return new Remote
+     * @throws IOException
+     */
+    public static Remote parse(Reader reader, Remote.MetaData metaData, String source) throws IOException {
+        Map<String, Command> commands = new LinkedHashMap<>(Command.INITIAL_HASHMAP_CAPACITY);
+        NameAllocator names = new NameAllocator();
+        BufferedReader bufferedReader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        int lineNumber = 0;
+        for (String line = bufferedReader.readLine(); line != null; line = bufferedReader.readLine()) {
+            lineNumber++;
+            if (line.trim().isEmpty() || (lineNumber == 1 && line.startsWith(HEADER.substring(0, HEADER.indexOf(SEPARATOR)))))
+                continue;
+            try {
+                Command command = parseLine(line, names);
+                commands.put(command.getName(), command);
+            } catch (GirrException | NumberFormatException ex) {
+                logger.log(Level.WARNING, "{0}:{1}: {2}", new Object[]{source, lineNumber, ex.getMessage()});
+            }
+        }
+        return new Remote(metaData, source, null, null, commands, null, null, null);
+    }
+
+    private static Command parseLine(String line, NameAllocator names) throws GirrException {
+        List<String> fields = split(line);
+        if (fields.size() != NUMBER_OF_FIELDS)
+            throw new GirrException("Wrong number of fields: " + fields.size());
+        Map<String, Long> parameters = new LinkedHashMap<>(3);
+        if (!fields.get(2).isEmpty())
+            parameters.put(D_PARAMETER_NAME, Long.parseLong(fields.get(2)));
+        if (!fields.get(3).isEmpty()) {
+            long subdevice = Long.parseLong(fields.get(3));
+            if (subdevice != NO_SUBDEVICE)
+                parameters.put(S_PARAMETER_NAME, subdevice);
+        }
+        parameters.put(F_PARAMETER_NAME, Long.parseLong(fields.get(4)));
+        Command command = new Command(fields.get(0), null, fields.get(1), parameters);
+        // IRDB files sometimes contain several lines with the same function name.
+        command.setName(names.allocate(fields.get(0)));
+        return command;
+    }
+
+    /**
+     * Reads an IRDB CSV file into a Remote.
+     * The MetaData is derived from the path, "manufacturer/device class/device,subdevice.csv".
+     * @param file
+     * @return new Remote
+     * @throws IOException
+     */
+    public static Remote parse(File file) throws IOException {
+        File deviceClassDir = file.getAbsoluteFile().getParentFile();
+        File manufacturerDir = deviceClassDir != null ? deviceClassDir.getParentFile() : null;
+        String deviceClass = deviceClassDir != null ? deviceClassDir.getName() : null;
+        String manufacturer = manufacturerDir != null ? manufacturerDir.getName() : null;
+        String fileName = file.getName();
+        String model = fileName.endsWith(EXTENSION) ? fileName.substring(0, fileName.length() - EXTENSION.length()) : fileName;
+        String name = manufacturer != null ? manufacturer + "_" + deviceClass + "_" + model : model;
+        Remote.MetaData metaData = new Remote.MetaData(name, null, manufacturer, model, deviceClass, null);
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return parse(reader, metaData, file.getPath());
+        }
+    }
+
+    /**
+     * Reads all CSV files in a directory tree, like the "codes" directory of IRDB, in alphabetical order,
+     * passing each generated Remote to the handler, in that order.
+     * Files are read, and possibly pre-rendered, in parallel, but at most 2 * threads Remotes are held at the same time.
+     * @param root file or directory.
+     * @param threads number of threads; 0 for one per available processor.
+     * @param preRender Form to compute in advance for all Commands; raw or ccf (Pronto Hex), or parameters for none.
+     * @param handler Receiver of the Remotes.
+     * @return number of Remotes read.
+     * @throws IOException if the handler throws it.
+     */
+    public static int importTree(File root, int threads, Command.MasterType preRender, RemoteHandler handler) throws IOException {
+        return TreeImporter.importTree(root, EXTENSION, threads, (File file) -> Arrays.asList(parse(file)), preRender, handler);
+    }
+
+    private IrdbCsv() {
+    }
+}
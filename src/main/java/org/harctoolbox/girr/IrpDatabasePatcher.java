@@ -0,0 +1,57 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import org.harctoolbox.irp.IrpDatabase;
+
+/**
+ * Patches the IrpDatabases of many RemoteSets into one, skipping empty databases and databases already patched in.
+ * A database read from a Girr file is identified by the hash of its XML form,
+ * so that the same embedded protocols, present in many files, are patched in only once.
+ */
+final class IrpDatabasePatcher {
+
+    private final IrpDatabase target;
+    private final Set<String> hashes;
+    private final Set<IrpDatabase> databases;
+
+    IrpDatabasePatcher(IrpDatabase target) {
+        this.target = target;
+        hashes = new HashSet<>(Command.INITIAL_HASHMAP_CAPACITY);
+        databases = Collections.newSetFromMap(new IdentityHashMap<>(Command.INITIAL_HASHMAP_CAPACITY));
+    }
+
+    /**
+     * @param remoteSet
+     * @return true if the IrpDatabase of the RemoteSet was patched in.
+     */
+    boolean patch(RemoteSet remoteSet) {
+        IrpDatabase irpDatabase = remoteSet.getIrpDatabase();
+        if (irpDatabase.isEmpty() || irpDatabase == target)
+            return false;
+        String hash = remoteSet.getIrpDatabaseHash();
+        if (hash != null ? !hashes.add(hash) : !databases.add(irpDatabase))
+            return false;
+        target.patch(irpDatabase);
+        return true;
+    }
+}
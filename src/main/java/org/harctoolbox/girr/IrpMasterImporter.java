@@ -0,0 +1,196 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.harctoolbox.ircore.IrSignal;
+import org.harctoolbox.ircore.OddSequenceLengthException;
+
+/**
+ * Streaming import of the XML export format of IrpMaster and IrMaster,
+ * constructing the Girr model directly, without DOM. Replaces the stylesheet irpmaster2girr.xsl.
+ * The document, describing one protocol, becomes a Remote with one Command for every signal.
+ * The Commands are given by protocol and parameters if the protocol is known,
+ * otherwise by the Pronto Hex or raw form of the signal.
+ */
+public final class IrpMasterImporter {
+
+    private static final Logger logger = Logger.getLogger(IrpMasterImporter.class.getName());
+
+    public static final String EXTENSION = ".xml";
+
+    private static final String PROTOCOL_ELEMENT_NAME = "protocol";
+    private static final String SIGNAL_ELEMENT_NAME = "signal";
+    private static final String INTRO_ELEMENT_NAME = "intro";
+    private static final String REPEAT_ELEMENT_NAME = "repeat";
+    private static final String ENDING_ELEMENT_NAME = "ending";
+    private static final String PRONTO_ELEMENT_NAME = "pronto";
+    private static final String UEI_LEARNED_ELEMENT_NAME = "uei-learned";
+    private static final String NAME_ATTRIBUTE_NAME = "name";
+    private static final String FREQUENCY_ATTRIBUTE_NAME = "frequency";
+
+    // Parameters in the order used for the Command names.
+    private static final String[] NAME_PARAMETERS = {"D", "S", "F", "T"};
+
+    /**
+     * Reads an IrpMaster XML document.
+     * @param reader
+     * @param remoteName Name of the generated Remote.
+     * @param source Source, for the AdminData; may be null.
+     * @return new Remote with one CommandSet.
+     * @throws GirrException if the document is not well formed, or not an IrpMaster document.
+     */
+    public static Remote parse(Reader reader, String remoteName, String source) throws GirrException {
+        Map<String, Command> commands = new LinkedHashMap<>(Command.INITIAL_HASHMAP_CAPACITY);
+        String protocolName = null;
+        XMLStreamReader xml = null;
+        try {
+            xml = XmlStatic.createXmlStreamReader(reader);
+            xml.nextTag();
+            if (!xml.getLocalName().equals(PROTOCOL_ELEMENT_NAME))
+                throw new GirrException("Root element not of type \"" + PROTOCOL_ELEMENT_NAME + "\", but " + xml.getLocalName());
+            protocolName = xml.getAttributeValue(null, NAME_ATTRIBUTE_NAME);
+            String frequency = xml.getAttributeValue(null, FREQUENCY_ATTRIBUTE_NAME);
+            Double freq = frequency != null ? Double.valueOf(frequency) : null;
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals(SIGNAL_ELEMENT_NAME)) {
+                    Command command = parseSignal(xml, protocolName, freq, commands.keySet(), source);
+                    if (command != null)
+                        commands.put(command.getName(), command);
+                }
+            }
+        } catch (XMLStreamException | NumberFormatException ex) {
+            throw new GirrException(ex);
+        } finally {
+            IrPlusImporter.close(xml);
+        }
+        Remote.MetaData metaData = new Remote.MetaData(remoteName);
+        return new Remote(metaData, source, null, null, commands, null, protocolName, null);
+    }
+
+    /**
+     * Reads an IrpMaster XML file. The generated Remote is named after the file, without extension.
+     * @param file
+     * @return new Remote with one CommandSet.
+     * @throws IOException
+     * @throws GirrException if the document is not well formed, or not an IrpMaster document.
+     */
+    public static Remote parse(File file) throws IOException, GirrException {
+        String fileName = file.getName();
+        String name = fileName.endsWith(EXTENSION) ? fileName.substring(0, fileName.length() - EXTENSION.length()) : fileName;
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return parse(reader, name, file.getPath());
+        }
+    }
+
+    /**
+     * Reads all IrpMaster files (with the extension {@link #EXTENSION}) in a directory tree in parallel,
+     * passing each generated Remote to the handler, in alphabetical order of the files.
+     * Files that cannot be read, or are not IrpMaster documents, are logged and skipped.
+     * @param root file or directory.
+     * @param threads number of threads; 0 for one per available processor.
+     * @param preRender Form to compute in advance for all Commands; raw or ccf (Pronto Hex), or parameters for none.
+     * @param handler Receiver of the Remotes.
+     * @return number of Remotes read.
+     * @throws IOException if the handler throws it.
+     */
+    public static int importTree(File root, int threads, Command.MasterType preRender, RemoteHandler handler) throws IOException {
+        return TreeImporter.importTree(root, EXTENSION, threads, (File file) -> Arrays.asList(parse(file)), preRender, handler);
+    }
+
+    private static Command parseSignal(XMLStreamReader xml, String protocolName, Double frequency, Collection<String> taken, String source) throws XMLStreamException {
+        Map<String, Long> parameters = new LinkedHashMap<>(NAME_PARAMETERS.length);
+        for (int i = 0; i < xml.getAttributeCount(); i++)
+            parameters.put(xml.getAttributeLocalName(i), Long.parseLong(xml.getAttributeValue(i)));
+
+        StringBuilder base = new StringBuilder(32);
+        base.append(protocolName).append('_');
+        for (String parameterName : NAME_PARAMETERS)
+            if (parameters.containsKey(parameterName))
+                base.append(parameters.get(parameterName));
+        String name = base.toString();
+        for (int i = 1; taken.contains(name); i++)
+            name = base + "_" + i;
+
+        String intro = null;
+        String repeat = null;
+        String ending = null;
+        String pronto = null;
+        String ueiLearned = null;
+        while (!(xml.next() == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals(SIGNAL_ELEMENT_NAME))) {
+            if (!xml.isStartElement())
+                continue;
+            switch (xml.getLocalName()) {
+                case INTRO_ELEMENT_NAME:
+                    intro = xml.getElementText().trim();
+                    break;
+                case REPEAT_ELEMENT_NAME:
+                    repeat = xml.getElementText().trim();
+                    break;
+                case ENDING_ELEMENT_NAME:
+                    ending = xml.getElementText().trim();
+                    break;
+                case PRONTO_ELEMENT_NAME:
+                    pronto = xml.getElementText().trim();
+                    break;
+                case UEI_LEARNED_ELEMENT_NAME:
+                    ueiLearned = xml.getElementText().trim();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        Command command;
+        try {
+            command = new Command(name, null, protocolName, parameters);
+        } catch (GirrException ex) {
+            // Unknown protocol, or invalid parameters; fall back to the rendered forms.
+            try {
+                command = pronto != null ? new Command(name, null, pronto)
+                        : (intro != null || repeat != null) ? new Command(name, null, new IrSignal(intro, repeat, ending, frequency, null))
+                        : null;
+            } catch (GirrException | OddSequenceLengthException | NumberFormatException e) {
+                command = null;
+            }
+            if (command == null) {
+                logger.log(Level.WARNING, "{0}: Signal {1} could not be read: {2}", new Object[]{source, name, ex.getMessage()});
+                return null;
+            }
+        }
+        if (ueiLearned != null)
+            command.addFormat(UEI_LEARNED_ELEMENT_NAME, ueiLearned);
+        return command;
+    }
+
+    private IrpMasterImporter() {
+    }
+}
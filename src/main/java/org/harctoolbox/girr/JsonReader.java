@@ -0,0 +1,243 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal streaming (pull) JSON reader, reading one token at a time from the Reader,
+ * without building a tree. Syntax errors are reported as GirrException.
+ */
+final class JsonReader {
+
+    private static final int END = -1;
+
+    private final Reader reader;
+    private int lookahead;
+    private boolean hasLookahead;
+    private int line;
+
+    JsonReader(Reader reader) {
+        this.reader = reader;
+        this.hasLookahead = false;
+        this.line = 1;
+    }
+
+    void beginObject() throws IOException, GirrException {
+        expect('{');
+    }
+
+    void endObject() throws IOException, GirrException {
+        expect('}');
+    }
+
+    void beginArray() throws IOException, GirrException {
+        expect('[');
+    }
+
+    void endArray() throws IOException, GirrException {
+        expect(']');
+    }
+
+    /**
+     * Returns true if the current object or array has another member; consumes a separating comma.
+     * @return
+     * @throws IOException
+     * @throws GirrException
+     */
+    boolean hasNext() throws IOException, GirrException {
+        int ch = peekToken();
+        if (ch == ',') {
+            read();
+            ch = peekToken();
+            if (ch == '}' || ch == ']')
+                throw error("Trailing comma");
+            return true;
+        }
+        if (ch == END)
+            throw error("Unexpected end of input");
+        return ch != '}' && ch != ']';
+    }
+
+    String nextName() throws IOException, GirrException {
+        if (peekToken() != '"')
+            throw error("Name expected");
+        String name = readString();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * Reads a string, number, boolean, or null value.
+     * @return the value as String, null for JSON null.
+     * @throws IOException
+     * @throws GirrException if the next value is an object or an array.
+     */
+    String nextString() throws IOException, GirrException {
+        int ch = peekToken();
+        if (ch == '"')
+            return readString();
+        if (ch == '{' || ch == '[' || ch == END)
+            throw error("Scalar value expected");
+        String literal = readLiteral();
+        return literal.equals("null") ? null : literal;
+    }
+
+    long nextLong() throws IOException, GirrException {
+        String string = nextString();
+        try {
+            return Long.parseLong(string);
+        } catch (NumberFormatException ex) {
+            throw error("Integer expected, found " + string);
+        }
+    }
+
+    double nextDouble() throws IOException, GirrException {
+        String string = nextString();
+        try {
+            return Double.parseDouble(string);
+        } catch (NumberFormatException | NullPointerException ex) {
+            throw error("Number expected, found " + string);
+        }
+    }
+
+    void skipValue() throws IOException, GirrException {
+        int ch = peekToken();
+        if (ch == '{') {
+            beginObject();
+            while (hasNext()) {
+                nextName();
+                skipValue();
+            }
+            endObject();
+        } else if (ch == '[') {
+            beginArray();
+            while (hasNext())
+                skipValue();
+            endArray();
+        } else
+            nextString();
+    }
+
+    /**
+     * Checks that nothing but white space remains.
+     * @throws IOException
+     * @throws GirrException
+     */
+    void endDocument() throws IOException, GirrException {
+        if (peekToken() != END)
+            throw error("Garbage after end of document");
+    }
+
+    GirrException error(String message) {
+        return new GirrException("JSON line " + line + ": " + message);
+    }
+
+    private void expect(char expected) throws IOException, GirrException {
+        int ch = peekToken();
+        if (ch != expected)
+            throw error("\"" + expected + "\" expected, found " + (ch == END ? "end of input" : "\"" + (char) ch + "\""));
+        read();
+    }
+
+    private int peekToken() throws IOException {
+        int ch = peek();
+        while (ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r') {
+            read();
+            ch = peek();
+        }
+        return ch;
+    }
+
+    private int peek() throws IOException {
+        if (!hasLookahead) {
+            lookahead = reader.read();
+            hasLookahead = true;
+        }
+        return lookahead;
+    }
+
+    private int read() throws IOException {
+        int ch = peek();
+        hasLookahead = false;
+        if (ch == '\n')
+            line++;
+        return ch;
+    }
+
+    private String readString() throws IOException, GirrException {
+        read();
+        StringBuilder str = new StringBuilder(32);
+        while (true) {
+            int ch = read();
+            switch (ch) {
+                case END:
+                    throw error("Unterminated string");
+                case '"':
+                    return str.toString();
+                case '\\':
+                    str.append(readEscape());
+                    break;
+                default:
+                    str.append((char) ch);
+            }
+        }
+    }
+
+    private char readEscape() throws IOException, GirrException {
+        int ch = read();
+        switch (ch) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) ch;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0)
+                        throw error("Invalid unicode escape");
+                    value = 16 * value + digit;
+                }
+                return (char) value;
+            default:
+                throw error("Invalid escape");
+        }
+    }
+
+    private String readLiteral() throws IOException, GirrException {
+        StringBuilder str = new StringBuilder(16);
+        for (int ch = peek(); ch == '-' || ch == '+' || ch == '.' || Character.isLetterOrDigit(ch); ch = peek())
+            str.append((char) read());
+        String literal = str.toString();
+        if (literal.isEmpty())
+            throw error("Value expected");
+        return literal;
+    }
+}
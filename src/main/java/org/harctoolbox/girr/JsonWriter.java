@@ -0,0 +1,181 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Minimal streaming JSON writer. Separators and indentation are inserted automatically;
+ * the caller is responsible for the proper nesting.
+ */
+final class JsonWriter {
+
+    private static final String LINE_SEPARATOR = "\n";
+
+    private final Writer writer;
+    private final String indent;
+    private int depth;
+    private boolean first;
+    private boolean afterName;
+
+    /**
+     * @param writer
+     * @param indentAmount Number of spaces per level; 0 for compact output on one line.
+     */
+    JsonWriter(Writer writer, int indentAmount) {
+        this.writer = writer;
+        this.indent = indentAmount > 0 ? XmlExporter.spaces(indentAmount) : null;
+        this.depth = 0;
+        this.first = true;
+        this.afterName = false;
+    }
+
+    JsonWriter beginObject() throws IOException {
+        return begin('{');
+    }
+
+    JsonWriter endObject() throws IOException {
+        return end('}');
+    }
+
+    JsonWriter beginArray() throws IOException {
+        return begin('[');
+    }
+
+    JsonWriter endArray() throws IOException {
+        return end(']');
+    }
+
+    JsonWriter name(String name) throws IOException {
+        separate();
+        writeString(name);
+        writer.write(indent != null ? ": " : ":");
+        afterName = true;
+        return this;
+    }
+
+    JsonWriter value(String value) throws IOException {
+        separate();
+        if (value == null)
+            writer.write("null");
+        else
+            writeString(value);
+        first = false;
+        return this;
+    }
+
+    JsonWriter value(long value) throws IOException {
+        separate();
+        writer.write(Long.toString(value));
+        first = false;
+        return this;
+    }
+
+    JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            throw new IllegalArgumentException("Not a JSON number: " + value);
+        separate();
+        writer.write(Double.toString(value));
+        first = false;
+        return this;
+    }
+
+    /**
+     * Writes name and value, if the value is non-null and non-empty.
+     * @param name
+     * @param value
+     * @return this
+     * @throws IOException
+     */
+    JsonWriter property(String name, String value) throws IOException {
+        return value == null || value.isEmpty() ? this : name(name).value(value);
+    }
+
+    void flush() throws IOException {
+        if (depth == 0 && indent != null)
+            writer.write(LINE_SEPARATOR);
+        writer.flush();
+    }
+
+    private JsonWriter begin(char ch) throws IOException {
+        separate();
+        writer.write(ch);
+        depth++;
+        first = true;
+        return this;
+    }
+
+    private JsonWriter end(char ch) throws IOException {
+        depth--;
+        if (!first)
+            newLine();
+        writer.write(ch);
+        first = false;
+        return this;
+    }
+
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (!first)
+            writer.write(',');
+        if (depth > 0)
+            newLine();
+    }
+
+    private void newLine() throws IOException {
+        if (indent == null)
+            return;
+        writer.write(LINE_SEPARATOR);
+        for (int i = 0; i < depth; i++)
+            writer.write(indent);
+    }
+
+    private void writeString(String string) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < string.length(); i++) {
+            char ch = string.charAt(i);
+            switch (ch) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (ch < ' ')
+                        writer.write(String.format("\\u%04x", (int) ch));
+                    else
+                        writer.write(ch);
+            }
+        }
+        writer.write('"');
+    }
+}
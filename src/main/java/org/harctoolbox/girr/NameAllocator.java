@@ -0,0 +1,91 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Allocates unique names, by appending "_" and a number to names already taken.
+ * The last number used is remembered per base name, so that allocating n copies of a name takes O(n),
+ * not O(n<sup>2</sup>) as when probing from 1 every time. The result is the same as probing:
+ * the lowest number greater than the previous one for the base name that gives a free name.
+ */
+final class NameAllocator {
+
+    private static final char SEPARATOR = '_';
+
+    private final Set<String> taken;
+    private final Map<String, Integer> counters;
+
+    NameAllocator() {
+        taken = new HashSet<>(Command.INITIAL_HASHMAP_CAPACITY);
+        counters = new HashMap<>(Command.INITIAL_HASHMAP_CAPACITY);
+    }
+
+    /**
+     * Takes the name given, or, if already taken, a name derived from it.
+     * @param name
+     * @return the name taken.
+     */
+    String allocate(String name) {
+        if (taken.add(name))
+            return name;
+        int counter = counters.getOrDefault(name, 0);
+        String candidate;
+        do {
+            counter++;
+            candidate = name + SEPARATOR + Integer.toString(counter);
+        } while (!taken.add(candidate));
+        counters.put(name, counter);
+        return candidate;
+    }
+
+    boolean contains(String name) {
+        return taken.contains(name);
+    }
+
+    /**
+     * Marks a name as free again. The counter of its base name is not reset.
+     * @param name
+     */
+    void release(String name) {
+        taken.remove(name);
+    }
+
+    int size() {
+        return taken.size();
+    }
+
+    /**
+     * Renames the Remote, if its name is already taken, and notes the change in the comment.
+     * @param remote
+     * @return the possibly new name.
+     */
+    String allocate(Remote remote) {
+        String originalName = remote.getName();
+        String name = allocate(originalName);
+        if (!name.equals(originalName)) {
+            remote.setName(name);
+            remote.setComment("Name changed from \"" + originalName + "\" to \"" + name + "\".");
+        }
+        return name;
+    }
+}
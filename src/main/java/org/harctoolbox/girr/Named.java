@@ -79,6 +79,17 @@ public interface Named extends Serializable {
         return map;
     }
 
+    /**
+     * Rebuild the keys of the map from the current names of its values, preserving the order,
+     * for example after a value has been renamed.
+     * @param <T>
+     * @param map
+     */
+    public static <T extends Named> void rekey(Map<String, T> map) {
+        List<T> list = new ArrayList<>(map.values());
+        populateMap(map, list);
+    }
+
     /**
      * Return the name of the object.
      * @return
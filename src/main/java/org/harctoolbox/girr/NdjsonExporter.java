@@ -0,0 +1,345 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.harctoolbox.ircore.IrCoreException;
+import org.harctoolbox.ircore.ThisCannotHappenException;
+import org.harctoolbox.irp.IrpException;
+import org.xml.sax.SAXException;
+
+/**
+ * Export in NDJSON (newline delimited JSON) format, with one self-contained record per Command,
+ * carrying the data of its Remote and CommandSet, for log and search pipelines.
+ * A record looks like
+ * <pre>{"remote":"tv","manufacturer":"Sony","model":"X","deviceClass":"TV","commandSet":"commandSet","command":"power",
+ * "protocol":"Sony12","parameters":{"D":1,"F":21},"frequency":40000,"ccf":["0000 0067 ..."],"raw":[{"intro":"...","repeat":"+2400 -600 ...","ending":"..."}]}</pre>
+ * The rendering of the Remotes runs in parallel, but the output is in the original order, the records of a Remote together.
+ * An interrupted export to a file can be resumed; Remotes already completely written are then skipped.
+ */
+public final class NdjsonExporter {
+
+    private static final Logger logger = Logger.getLogger(NdjsonExporter.class.getName());
+
+    public static final String EXTENSION = ".ndjson";
+
+    private static final String REMOTE_NAME = "remote";
+    private static final String COMMANDSET_NAME = "commandSet";
+    private static final String COMMAND_NAME = "command";
+    private static final char LINE_SEPARATOR = '\n';
+
+    private boolean prontoHex;
+    private boolean raw;
+    private int threads;
+
+    public NdjsonExporter() {
+        prontoHex = true;
+        raw = false;
+        threads = 0;
+    }
+
+    /**
+     * @param prontoHex if true, the Pronto Hex form is rendered into the records. Default true.
+     */
+    public void setProntoHex(boolean prontoHex) {
+        this.prontoHex = prontoHex;
+    }
+
+    /**
+     * @param raw if true, the raw form is rendered into the records. Default false.
+     */
+    public void setRaw(boolean raw) {
+        this.raw = raw;
+    }
+
+    /**
+     * @param threads number of rendering threads; 0 (default) for one per available processor.
+     */
+    public void setThreads(int threads) {
+        if (threads < 0)
+            throw new IllegalArgumentException("threads must be non-negative");
+        this.threads = threads;
+    }
+
+    /**
+     * Writes the records of the Remotes given.
+     * @param remotes
+     * @param writer
+     * @return number of records written.
+     * @throws IOException
+     */
+    public int export(Iterable<Remote> remotes, Writer writer) throws IOException {
+        return export(remotes, writer, Collections.emptySet());
+    }
+
+    /**
+     * Writes the records of the Remotes given to a file.
+     * @param remotes
+     * @param file
+     * @param resume If true, and the file exists, Remotes already completely in the file are skipped, and the rest appended.
+     * @return number of records written by this call.
+     * @throws IOException
+     */
+    public int export(Iterable<Remote> remotes, File file, boolean resume) throws IOException {
+        Set<String> done = resume && file.exists() ? prepareResume(file) : Collections.emptySet();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, resume), StandardCharsets.UTF_8))) {
+            return export(remotes, writer, done);
+        }
+    }
+
+    /**
+     * Writes the records of all Girr files in a directory tree, in alphabetical order, to a file.
+     * The files are read in parallel as well. Files that cannot be read are logged and skipped.
+     * @param root file or directory.
+     * @param file
+     * @param resume If true, and the file exists, Remotes already completely in the file are skipped, and the rest appended.
+     * @return number of records written by this call.
+     * @throws IOException
+     */
+    public int exportTree(File root, File file, boolean resume) throws IOException {
+        Set<String> done = resume && file.exists() ? prepareResume(file) : Collections.emptySet();
+        List<File> files = new ArrayList<>(Command.INITIAL_HASHMAP_CAPACITY);
+        TreeImporter.collectFiles(root, RemoteSetIndex.GIRR_EXTENSION, files);
+        List<Callable<Chunk>> tasks = new ArrayList<>(files.size());
+        files.forEach((input) -> {
+            tasks.add(() -> renderFile(input, done));
+        });
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, resume), StandardCharsets.UTF_8))) {
+            return run(tasks, writer);
+        }
+    }
+
+    private int export(Iterable<Remote> remotes, Writer writer, Set<String> done) throws IOException {
+        List<Callable<Chunk>> tasks = new ArrayList<>(Command.INITIAL_HASHMAP_CAPACITY);
+        for (Remote remote : remotes)
+            if (!done.contains(remote.getName()))
+                tasks.add(() -> render(remote, new Chunk()));
+        return run(tasks, writer);
+    }
+
+    /**
+     * Runs the tasks in parallel, writing their results in order, with a bounded number of results pending.
+     */
+    private int run(List<Callable<Chunk>> tasks, Writer writer) throws IOException {
+        int nThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        int maxPending = 2 * nThreads;
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        Deque<Future<Chunk>> pending = new ArrayDeque<>(maxPending);
+        int count = 0;
+        try {
+            for (Callable<Chunk> task : tasks) {
+                if (pending.size() >= maxPending)
+                    count += write(pending.removeFirst(), writer);
+                pending.addLast(executor.submit(task));
+            }
+            while (!pending.isEmpty())
+                count += write(pending.removeFirst(), writer);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export interrupted", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static int write(Future<Chunk> future, Writer writer) throws IOException, InterruptedException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new ThisCannotHappenException(cause);
+        }
+        writer.write(chunk.text.toString());
+        // Makes sure that a resumed export finds complete Remotes only.
+        writer.flush();
+        return chunk.records;
+    }
+
+    private Chunk renderFile(File input, Set<String> done) {
+        Chunk chunk = new Chunk();
+        try {
+            for (Remote remote : new RemoteSet(input))
+                if (!done.contains(remote.getName()))
+                    render(remote, chunk);
+        } catch (GirrException | IOException | SAXException ex) {
+            logger.log(Level.WARNING, "Could not read file {0}: {1}", new Object[]{input, ex.getMessage()});
+        }
+        return chunk;
+    }
+
+    private Chunk render(Remote remote, Chunk chunk) throws IOException {
+        for (CommandSet commandSet : remote)
+            for (Command command : commandSet) {
+                // A Command may fail halfway, so its record is collected before written.
+                StringWriter record = new StringWriter(1024);
+                JsonWriter json = new JsonWriter(record, 0);
+                json.beginObject();
+                json.property(REMOTE_NAME, remote.getName());
+                json.property(XmlStatic.MANUFACTURER_ATTRIBUTE_NAME, remote.getManufacturer());
+                json.property(XmlStatic.MODEL_ATTRIBUTE_NAME, remote.getModel());
+                json.property(XmlStatic.DEVICECLASS_ATTRIBUTE_NAME, remote.getDeviceClass());
+                json.property(COMMANDSET_NAME, commandSet.getName());
+                json.property(COMMAND_NAME, command.getName());
+                json.property(XmlStatic.DISPLAYNAME_ATTRIBUTE_NAME, command.getDisplayName());
+                try {
+                    renderSignal(json, command);
+                } catch (GirrException | IrpException | IrCoreException ex) {
+                    logger.log(Level.WARNING, "Command {0} could not be rendered: {1}", new Object[]{command.getName(), ex.getLocalizedMessage()});
+                    continue;
+                }
+                json.endObject();
+                chunk.text.write(record.toString());
+                chunk.text.write(LINE_SEPARATOR);
+                chunk.records++;
+            }
+        return chunk;
+    }
+
+    private void renderSignal(JsonWriter json, Command command) throws IOException, GirrException, IrpException, IrCoreException {
+        try {
+            String protocolName = command.getProtocolName();
+            if (protocolName != null) {
+                json.property(XmlStatic.PROTOCOL_ATTRIBUTE_NAME, protocolName);
+                json.name(XmlStatic.PARAMETERS_ELEMENT_NAME).beginObject();
+                for (Map.Entry<String, Long> parameter : command.getParameters().entrySet())
+                    json.name(parameter.getKey()).value(parameter.getValue());
+                json.endObject();
+            }
+        } catch (IrpException | IrCoreException ex) {
+            // Not decodable; the record gets no protocol.
+        }
+
+        // The forms are generated before the frequency is asked for, since it may come with them.
+        int toggles = command.numberOfToggleValues();
+        String[] prontoHexes = new String[prontoHex ? toggles : 0];
+        for (int T = 0; T < prontoHexes.length; T++)
+            prontoHexes[T] = command.getProntoHex(T);
+        String[][] sequences = new String[raw ? toggles : 0][];
+        for (int T = 0; T < sequences.length; T++)
+            sequences[T] = new String[] { command.getIntro(T), command.getRepeat(T), command.getEnding(T) };
+        Double frequency = command.knownFrequency();
+        if (frequency == null)
+            frequency = command.toIrSignal().getFrequency();
+
+        if (frequency != null)
+            json.name(XmlStatic.FREQUENCY_ATTRIBUTE_NAME).value(Math.round(frequency));
+        if (prontoHex) {
+            json.name(XmlStatic.PRONTO_HEX_ELEMENT_NAME).beginArray();
+            for (String string : prontoHexes)
+                json.value(string);
+            json.endArray();
+        }
+        if (raw) {
+            json.name(XmlStatic.RAW_ELEMENT_NAME).beginArray();
+            for (String[] sequence : sequences) {
+                json.beginObject();
+                json.property(XmlStatic.INTRO_ELEMENT_NAME, sequence[0]);
+                json.property(XmlStatic.REPEAT_ELEMENT_NAME, sequence[1]);
+                json.property(XmlStatic.ENDING_ELEMENT_NAME, sequence[2]);
+                json.endObject();
+            }
+            json.endArray();
+        }
+    }
+
+    /**
+     * Finds the Remotes that are completely contained in an NDJSON file, and truncates the file after them,
+     * thus removing the (possibly incomplete) records of the last Remote.
+     * @param file
+     * @return names of the Remotes completely contained in the file.
+     * @throws IOException
+     */
+    static Set<String> prepareResume(File file) throws IOException {
+        Set<String> done = new HashSet<>(Command.INITIAL_HASHMAP_CAPACITY);
+        String current = null;
+        long currentStart = 0L;
+        long offset = 0L;
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(file))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(1024);
+            for (int ch = stream.read(); ch != -1; ch = stream.read()) {
+                if (ch != LINE_SEPARATOR) {
+                    line.write(ch);
+                    continue;
+                }
+                String remote = remoteName(new String(line.toByteArray(), StandardCharsets.UTF_8));
+                if (remote != null && !remote.equals(current)) {
+                    if (current != null)
+                        done.add(current);
+                    current = remote;
+                    currentStart = offset;
+                }
+                offset += line.size() + 1;
+                line.reset();
+            }
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(current != null ? currentStart : offset);
+        }
+        return done;
+    }
+
+    private static String remoteName(String line) {
+        try {
+            JsonReader json = new JsonReader(new StringReader(line));
+            json.beginObject();
+            return json.hasNext() && json.nextName().equals(REMOTE_NAME) ? json.nextString() : null;
+        } catch (IOException | GirrException ex) {
+            return null;
+        }
+    }
+
+    private static final class Chunk {
+        private final StringWriter text = new StringWriter(4096);
+        private int records = 0;
+    }
+}
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -75,12 +76,37 @@ public final class Remote extends XmlExporter implements Named, Iterable<Command
 
     private final static Logger logger = Logger.getLogger(Remote.class.getName());
 
+    private static boolean useFragmentCache = false;
+
+    /**
+     * If set to true, every Remote keeps a copy of its last exported XML fragment,
+     * together with the export options used.
+     * A subsequent export with the same options of an unmodified Remote just copies the fragment,
+     * instead of generating it anew.
+     * A Remote is considered modified if it, one of its CommandSets, or one of their Commands, is dirty,
+     * see {@link #isDirty()}.
+     * @param val
+     */
+    public static void setUseFragmentCache(boolean val) {
+        useFragmentCache = val;
+    }
+
+    public static boolean isUseFragmentCache() {
+        return useFragmentCache;
+    }
+
     private final MetaData metaData;
     private final AdminData adminData;
     private String comment;
     private final Map<String, String> notes;
     private final Map<String, CommandSet> commandSets;
     private final Map<String, Map<String, String>> applicationParameters;
+    private transient boolean dirty = true;
+    private transient Element cachedFragment = null;
+    private transient FragmentKey cachedFragmentKey = null;
+    private transient String ownHash = null;
+    private transient String merkleHash = null;
+    private transient String[] merkleChildren = null;
 
     /**
      * This constructor is used to read a Girr file into a Remote.
@@ -171,7 +197,12 @@ public final class Remote extends XmlExporter implements Named, Iterable<Command
     // Sorry for that.
     public Remote(MetaData metaData, String source, String comment, Map<String, String> notes,
             Collection<CommandSet> commandSetsCollection, Map<String, Map<String, String>> applicationParameters) {
-        this.adminData = new AdminData(source);
+        this(new AdminData(source), metaData, comment, notes, commandSetsCollection, applicationParameters);
+    }
+
+    Remote(AdminData adminData, MetaData metaData, String comment, Map<String, String> notes,
+            Collection<CommandSet> commandSetsCollection, Map<String, Map<String, String>> applicationParameters) {
+        this.adminData = adminData;
         this.metaData = metaData;
         this.comment = comment;
         this.notes = notes != null ? notes : new HashMap<>(2);
@@ -230,9 +261,31 @@ public final class Remote extends XmlExporter implements Named, Iterable<Command
 
     @Override
     public Element toElement(Document doc, boolean fatRaw, boolean generateParameters, boolean generateProntoHex, boolean generateRaw) {
+        return toElement(doc, ExportOptions.fromGlobals(fatRaw, generateParameters, generateProntoHex, generateRaw));
+    }
+
+    @Override
+    public Element toElement(Document doc, ExportOptions options) {
+        if (!useFragmentCache)
+            return createElement(doc, options);
+
+        FragmentKey key = FragmentKey.current(options);
+        // The cache is shared between exports, possibly running in different threads.
+        synchronized (this) {
+            if (cachedFragment == null || isDirty() || !key.equals(cachedFragmentKey)) {
+                // Clean before generating, since the export itself may modify Commands, e.g. by decoding.
+                markClean();
+                cachedFragment = createElement(XmlUtils.newDocument(true), options);
+                cachedFragmentKey = key;
+            }
+            return (Element) doc.importNode(cachedFragment, true);
+        }
+    }
+
+    private Element createElement(Document doc, ExportOptions options) {
         Element element = doc.createElementNS(GIRR_NAMESPACE, REMOTE_ELEMENT_NAME);
-        XmlStatic.setPrefix(element);
-        Element adminDataEl = adminData.toElement(doc);
+        options.setPrefix(element);
+        Element adminDataEl = adminData.toElement(doc, options);
         if (adminDataEl.hasChildNodes() || adminDataEl.hasAttributes())
             element.appendChild(adminDataEl);
         element.setAttribute(NAME_ATTRIBUTE_NAME, metaData.name);
@@ -249,9 +302,9 @@ public final class Remote extends XmlExporter implements Named, Iterable<Command
         if (comment != null && !comment.isEmpty())
             element.setAttribute(COMMENT_ATTRIBUTE_NAME, comment);
         if (notes != null) {
-            notes.entrySet().stream().map((note) -> {
+            options.entries(notes).stream().map((note) -> {
                 Element notesEl = doc.createElementNS(GIRR_NAMESPACE, NOTES_ELEMENT_NAME);
-                XmlStatic.setPrefix(notesEl);
+                options.setPrefix(notesEl);
                 notesEl.setAttribute(XML_LANG_ATTRIBUTE_NAME, note.getKey());
                 notesEl.setTextContent(note.getValue());
                 return notesEl;
@@ -261,15 +314,15 @@ public final class Remote extends XmlExporter implements Named, Iterable<Command
         }
 
         if (applicationParameters != null) {
-            applicationParameters.entrySet().forEach((kvp) -> {
+            options.entries(applicationParameters).forEach((kvp) -> {
                 if (kvp.getValue() != null) {
                     Element appEl = doc.createElementNS(GIRR_NAMESPACE, APPLICATIONDATA_ELEMENT_NAME);
-                    XmlStatic.setPrefix(appEl);
+                    options.setPrefix(appEl);
                     appEl.setAttribute(APPLICATION_ATTRIBUTE_NAME, kvp.getKey());
                     element.appendChild(appEl);
-                    kvp.getValue().entrySet().stream().map((param) -> {
+                    options.entries(kvp.getValue()).stream().map((param) -> {
                         Element paramEl = doc.createElementNS(GIRR_NAMESPACE, APPPARAMETER_ELEMENT_NAME);
-                        XmlStatic.setPrefix(paramEl);
+                        options.setPrefix(paramEl);
                         paramEl.setAttribute(NAME_ATTRIBUTE_NAME, param.getKey());
                         paramEl.setAttribute(VALUE_ATTRIBUTE_NAME, param.getValue());
                         return paramEl;
@@ -281,7 +334,7 @@ public final class Remote extends XmlExporter implements Named, Iterable<Command
         }
 
         for (CommandSet commandSet : this)
-            element.appendChild(commandSet.toElement(doc, fatRaw, generateParameters, generateProntoHex, generateRaw));
+            element.appendChild(commandSet.toElement(doc, options));
 
         return element;
     }
@@ -294,6 +347,7 @@ public final class Remote extends XmlExporter implements Named, Iterable<Command
         List<CommandSet> list = new ArrayList<>(commandSets.values());
         Collections.sort(list, comparator);
         Named.populateMap(commandSets, list);
+        modified();
     }
 
     public void sortCommands(Comparator<? super Named> comparator) {
@@ -341,12 +395,80 @@ public final class Remote extends XmlExporter implements Named, Iterable<Command
         CommandSet commandSet = new CommandSet("MergedCommandSet", notesCmdSet, commands, null, null);
         commandSets.clear();
         commandSets.put(commandSet.getName(), commandSet);
+        modified();
         int missing = numberOfOriginalCommands - commandSet.size();
         if (missing > 0)
             noteString += "\n" + missing + " commands lost in merge";
         notesCmdSet.put(XmlUtils.ENGLISH, noteString);
     }
 
+    /**
+     * Splits CommandSets, so that every group of at least minimumGroupSize Commands sharing
+     * protocol and parameters (except F) gets a CommandSet of its own, from which they can inherit.
+     * The CommandSet of the first such group keeps the name and the notes of the original CommandSet.
+     * The other groups, followed by the remaining Commands, get CommandSets with the original name,
+     * extended by an underscore and a number.
+     * @param minimumGroupSize minimal number of Commands for a new CommandSet; should be at least 2.
+     * @return number of CommandSets added.
+     */
+    public int splitForInheritance(int minimumGroupSize) {
+        Map<String, CommandSet> result = new LinkedHashMap<>(commandSets.size());
+        int added = 0;
+        for (CommandSet commandSet : this) {
+            List<Map<String, Command>> groups = InheritanceOptimizer.split(commandSet, minimumGroupSize);
+            if (groups.size() < 2) {
+                result.put(commandSet.getName(), commandSet);
+                continue;
+            }
+            for (int i = 0; i < groups.size(); i++) {
+                String baseName = commandSet.getName();
+                String name = baseName;
+                for (int n = i; n > 0 && (result.containsKey(name) || commandSets.containsKey(name)); n++)
+                    name = baseName + "_" + Integer.toString(n);
+                result.put(name, new CommandSet(name, i == 0 ? new HashMap<>(commandSet.getAllNotes()) : null, groups.get(i), null, null));
+            }
+            added += groups.size() - 1;
+        }
+        if (added > 0) {
+            commandSets.clear();
+            commandSets.putAll(result);
+            modified();
+        }
+        return added;
+    }
+
+    /**
+     * Optimizes the inheritance of protocol and parameters from the CommandSets,
+     * possibly splitting CommandSets, and reports the effect on the size of the XML export.
+     * Inheritance must be enabled, see {@link ExportOptions#withInheritance(boolean)}.
+     * Since the CommandSets compute their inheritance when exported, the optimization
+     * takes effect in subsequent exports with {@link ExportOptions#withOptimizeInheritance(boolean)} on.
+     * @param minimumGroupSize minimal group size for {@link #splitForInheritance(int)}; 0 for not splitting.
+     * @param options
+     * @return number of bytes saved, compared to inheriting from the first Command of the CommandSets.
+     */
+    public long optimizeInheritance(int minimumGroupSize, ExportOptions options) {
+        long before = serializedSize(options.withOptimizeInheritance(false));
+        if (minimumGroupSize > 0)
+            splitForInheritance(minimumGroupSize);
+        long after = serializedSize(options.withOptimizeInheritance(true));
+        logger.log(Level.INFO, "Inheritance optimization of remote {0}: {1} -> {2} bytes", new Object[]{getName(), before, after});
+        return before - after;
+    }
+
+    /**
+     * Optimizes the inheritance, using the global export settings, see {@link #optimizeInheritance(int, ExportOptions)}.
+     * @param minimumGroupSize
+     * @param fatRaw
+     * @param generateParameters
+     * @param generateProntoHex
+     * @param generateRaw
+     * @return number of bytes saved.
+     */
+    public long optimizeInheritance(int minimumGroupSize, boolean fatRaw, boolean generateParameters, boolean generateProntoHex, boolean generateRaw) {
+        return optimizeInheritance(minimumGroupSize, ExportOptions.fromGlobals(fatRaw, generateParameters, generateProntoHex, generateRaw));
+    }
+
     /**
      * Applies the format argument to all Command's in the Remote.
      *
@@ -420,6 +542,7 @@ public final class Remote extends XmlExporter implements Named, Iterable<Command
 
     public void setName(String name) {
         metaData.name = name;
+        modified();
     }
 
     /**
@@ -487,10 +610,10 @@ public final class Remote extends XmlExporter implements Named, Iterable<Command
     }
 
     /**
-     * @return the applicationParameters
+     * @return the applicationParameters, empty if there are none.
      */
     public Map<String, Map<String, String>> getApplicationParameters() {
-        return Collections.unmodifiableMap(applicationParameters);
+        return applicationParameters != null ? Collections.unmodifiableMap(applicationParameters) : Collections.emptyMap();
     }
 
     /**
@@ -553,14 +676,105 @@ public final class Remote extends XmlExporter implements Named, Iterable<Command
 
     public void setNotes(String lang, String string) {
         this.notes.put(lang, string);
+        modified();
     }
 
     public void setNotes(String string) {
-        this.notes.put(ENGLISH, string);
+        setNotes(ENGLISH, string);
     }
 
     void setComment(String comment) {
         this.comment = comment;
+        modified();
+    }
+
+    /**
+     * Returns true if the Remote, one of its CommandSets, or one of their Commands,
+     * has been modified since it was last exported through a cached fragment.
+     * @return true if modified.
+     */
+    public boolean isDirty() {
+        if (dirty)
+            return true;
+        for (CommandSet commandSet : this)
+            if (commandSet.isDirty())
+                return true;
+        return false;
+    }
+
+    /**
+     * Marks the Remote as modified, for changes not made through its own methods,
+     * like modifications of its AdminData.
+     */
+    void markDirty() {
+        modified();
+    }
+
+    private void modified() {
+        dirty = true;
+        ownHash = null;
+        merkleHash = null;
+    }
+
+    /**
+     * Returns a hash of the own content of the Remote, i.e., everything except its CommandSets and its AdminData,
+     * which typically differs between versions only in its source and date.
+     * It is kept as long as the Remote is not modified.
+     * @return SHA-256 as lower case hexadecimal string.
+     */
+    synchronized String ownHash() {
+        if (ownHash == null)
+            ownHash = new Remote(new AdminData(), metaData, comment, notes, null, applicationParameters).contentHash(ExportOptions.MASTER_ONLY);
+        return ownHash;
+    }
+
+    /**
+     * Returns a hash of the content of the Remote, combined from its own content and the
+     * {@link CommandSet#merkleHash()} of its CommandSets, in order.
+     * It is kept as long as the Remote is not modified, and the hashes of its CommandSets are unchanged.
+     * @return SHA-256 as lower case hexadecimal string.
+     */
+    public synchronized String merkleHash() {
+        String[] children = new String[commandSets.size()];
+        int i = 0;
+        for (CommandSet commandSet : this)
+            children[i++] = commandSet.merkleHash();
+        if (merkleHash == null || !Arrays.equals(children, merkleChildren)) {
+            merkleHash = ContentHash.combine(REMOTE_ELEMENT_NAME, ownHash(), children);
+            merkleChildren = children;
+        }
+        return merkleHash;
+    }
+
+    private void markClean() {
+        dirty = false;
+        for (CommandSet commandSet : this)
+            commandSet.markClean();
+    }
+
+    /**
+     * Adds the CommandSet, replacing a CommandSet with the same name, if any.
+     * @param commandSet
+     */
+    void putCommandSet(CommandSet commandSet) {
+        commandSets.put(commandSet.getName(), commandSet);
+        modified();
+    }
+
+    CommandSet removeCommandSet(String commandSetName) {
+        modified();
+        return commandSets.remove(commandSetName);
+    }
+
+    /**
+     * Renames a CommandSet, keeping its position.
+     * @param commandSetName
+     * @param newName
+     */
+    void renameCommandSet(String commandSetName, String newName) {
+        commandSets.get(commandSetName).setName(newName);
+        Named.rekey(commandSets);
+        modified();
     }
 
     public void checkForParameters() throws IrpException, IrCoreException {
@@ -0,0 +1,28 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.IOException;
+
+/**
+ * Receiver of the Remotes generated by a streaming or batch import,
+ * like {@link IrdbCsv#importTree(java.io.File, int, Command.MasterType, RemoteHandler)}.
+ */
+public interface RemoteHandler {
+    void handle(Remote remote) throws IOException;
+}
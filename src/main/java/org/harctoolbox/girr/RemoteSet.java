@@ -32,12 +32,22 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import static javax.xml.XMLConstants.XMLNS_ATTRIBUTE;
+import static javax.xml.XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
 import javax.xml.validation.Schema;
 import static org.harctoolbox.girr.Command.INITIAL_HASHMAP_CAPACITY;
 import static org.harctoolbox.girr.XmlStatic.ADMINDATA_ELEMENT_NAME;
@@ -48,12 +58,15 @@ import static org.harctoolbox.girr.XmlStatic.REMOTES_ELEMENT_NAME;
 import static org.harctoolbox.girr.XmlStatic.REMOTE_ELEMENT_NAME;
 import org.harctoolbox.ircore.IrCoreException;
 import org.harctoolbox.ircore.IrSignal;
+import org.harctoolbox.ircore.ThisCannotHappenException;
 import org.harctoolbox.irp.IrpDatabase;
 import org.harctoolbox.irp.IrpException;
 import org.harctoolbox.irp.IrpParseException;
+import org.harctoolbox.xml.XmlUtils;
 import static org.harctoolbox.xml.XmlUtils.IRP_NAMESPACE_URI;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
@@ -67,6 +80,35 @@ public final class RemoteSet extends XmlExporter implements Iterable<Remote> {
 
     private static final Logger logger = Logger.getLogger(RemoteSet.class.getName());
     private static final int INITIAL_LIST_CAPACITY = 8;
+    private static final String IRP_PROTOCOL_ELEMENT_NAME = "protocol";
+    private static final String IRP_NAME_ATTRIBUTE_NAME = "name";
+
+    private static int exportThreads = 1;
+
+    /**
+     * Sets the default number of threads used by {@link #toElement(Document, boolean, boolean, boolean, boolean)},
+     * cf. {@link ExportOptions#withThreads(int)}.
+     * With more than one thread, every Remote, including the rendering or decoding of its Commands,
+     * is exported on a worker thread into a private Document;
+     * the fragments are then inserted in the original order.
+     * Since Commands are not shared between Remotes, this is safe as long as
+     * the same Command is not modified concurrently by the caller.
+     * @param threads number of threads; 1 (default) means sequential export, 0 means one thread per available processor.
+     */
+    public static void setExportThreads(int threads) {
+        if (threads < 0)
+            throw new IllegalArgumentException("Number of export threads cannot be negative");
+        exportThreads = threads;
+    }
+
+    public static int getExportThreads() {
+        return exportThreads;
+    }
+
+    private static int effectiveExportThreads(int requested, int remotes) {
+        int threads = requested > 0 ? requested : Runtime.getRuntime().availableProcessors();
+        return Math.min(threads, remotes);
+    }
 
     /**
      * For testing only, not deployment.
@@ -192,7 +234,7 @@ public final class RemoteSet extends XmlExporter implements Iterable<Remote> {
         }
     }
 
-    private static boolean ignoreByExtension(String path) {
+    static boolean ignoreByExtension(String path) {
         int index = path.lastIndexOf('.');
         if (index == -1)
             return false;
@@ -249,7 +291,10 @@ public final class RemoteSet extends XmlExporter implements Iterable<Remote> {
 
     private final AdminData adminData;
     private final Map<String, Remote> remotes;
-    private final IrpDatabase irpDatabase;
+    private IrpDatabase irpDatabase;
+    private transient String irpDatabaseHash = null;
+    private transient String merkleHash = null;
+    private transient String[] merkleChildren = null;
 
     public RemoteSet(String creatingUser, File file) {
         this(creatingUser, file.toString(), parseAsCollection(file, null));
@@ -260,22 +305,10 @@ public final class RemoteSet extends XmlExporter implements Iterable<Remote> {
                 Version.appName,
                 Version.versionString,
                 null, null);
-        for (RemoteSet remoteSet : remoteSets) {
-            irpDatabase.patch(remoteSet.getIrpDatabase());
-            for (Remote remote : remoteSet) {
-                String originalName = remote.getName();
-                String name = originalName;
-                int i = 0;
-                while (remotes.containsKey(name)) {
-                    i++;
-                    name = originalName + "_" + Integer.toString(i);
-                    remote.setName(name);
-                    remote.setComment("Name changed from \"" + originalName + "\" to \"" + name + "\".");
-                }
-                remote.getAdminData().merge(remoteSet.getAdminData());
-                remotes.put(name, remote);
-            }
-        }
+        RemoteSetMergeEngine engine = new RemoteSetMergeEngine(RemoteSetMergeEngine.Strategy.rename, false);
+        for (RemoteSet remoteSet : remoteSets)
+            engine.add(remoteSet);
+        engine.copyTo(this);
     }
 
     /**
@@ -313,6 +346,7 @@ public final class RemoteSet extends XmlExporter implements Iterable<Remote> {
         if (nl.getLength() > 0) {
             Element protocolsElement = (Element) nl.item(0);
             irpDatabase = mkIrpDatabase(protocolsElement);
+            irpDatabaseHash = ContentHash.sha256(protocolsElement);
         } else
             irpDatabase = new IrpDatabase();
     }
@@ -539,23 +573,226 @@ public final class RemoteSet extends XmlExporter implements Iterable<Remote> {
         remotes.putAll(remoteSet.remotes);
     }
 
+    /**
+     * Returns a hash of the content of the RemoteSet, combined from the {@link Remote#merkleHash()} of its Remotes, in order.
+     * The AdminData and the IrpDatabase are not included.
+     * It is kept as long as the hashes of the Remotes are unchanged.
+     * @return SHA-256 as lower case hexadecimal string.
+     * @see RemoteSetDiff
+     */
+    public synchronized String merkleHash() {
+        String[] children = new String[remotes.size()];
+        int i = 0;
+        for (Remote remote : this)
+            children[i++] = remote.merkleHash();
+        if (merkleHash == null || !Arrays.equals(children, merkleChildren)) {
+            merkleHash = ContentHash.combine(REMOTES_ELEMENT_NAME, null, children);
+            merkleChildren = children;
+        }
+        return merkleHash;
+    }
+
+    /**
+     * Adds the Remote, replacing a Remote with the same name, if any.
+     * @param remote
+     */
+    void putRemote(Remote remote) {
+        remotes.put(remote.getName(), remote);
+    }
+
+    Remote removeRemote(String name) {
+        return remotes.remove(name);
+    }
+
+    /**
+     * Renames a Remote, keeping its position.
+     * @param name
+     * @param newName
+     */
+    void renameRemote(String name, String newName) {
+        remotes.get(name).setName(newName);
+        Named.rekey(remotes);
+    }
+
     @Override
     public Element toElement(Document doc, boolean fatRaw,
             boolean generateParameters, boolean generateProntoHex, boolean generateRaw) {
+        return toElement(doc, ExportOptions.fromGlobals(fatRaw, generateParameters, generateProntoHex, generateRaw));
+    }
+
+    @Override
+    public Element toElement(Document doc, ExportOptions options) {
+        Element element = createRootElement(doc, options);
+        int threads = effectiveExportThreads(options.getThreads(), remotes.size());
+        if (threads > 1)
+            appendRemotesParallel(element, threads, options);
+        else
+            for (Remote remote : this)
+                element.appendChild(remote.toElement(doc, options));
+
+        return element;
+    }
+
+    /**
+     * Creates the "remotes" element, with admin data and IrpDatabase, but without Remotes.
+     */
+    private Element createRootElement(Document doc, ExportOptions options) {
         Element element = doc.createElementNS(GIRR_NAMESPACE, REMOTES_ELEMENT_NAME);
-        XmlStatic.setPrefix(element);
+        options.setPrefix(element);
 
-        Element adminDataEl = adminData.toElement(doc);
+        Element adminDataEl = adminData.toElement(doc, options);
         if (adminDataEl.hasChildNodes() || adminDataEl.hasAttributes())
             element.appendChild(adminDataEl);
 
-        if (!irpDatabase.isEmpty())
-            element.appendChild(irpDatabase.toElement(doc));
+        if (!irpDatabase.isEmpty()) {
+            Element irpDatabaseEl = irpDatabase.toElement(doc);
+            if (options.isPruneIrpDatabase())
+                pruneProtocols(irpDatabaseEl, getReferencedProtocols(false));
+            if (irpDatabaseEl.getElementsByTagNameNS(IRP_NAMESPACE_URI, IRP_PROTOCOL_ELEMENT_NAME).getLength() > 0)
+                element.appendChild(irpDatabaseEl);
+        }
+        return element;
+    }
 
-        for (Remote remote : this)
-            element.appendChild(remote.toElement(doc, fatRaw, generateParameters , generateProntoHex, generateRaw));
+    /**
+     * Exports every Remote into a file of its own, and writes an index document, referencing these through XInclude.
+     * Since the import is XInclude aware, the index can be read as an ordinary RemoteSet;
+     * alternatively, {@link RemoteSetIndex} reads the Remotes lazily, on first access.
+     * The file names are derived from the names of the Remotes, see {@link RemoteSetIndex#fileNames(Collection, String)}.
+     * The Remotes are written in parallel, according to {@link ExportOptions#getThreads()}.
+     * @param directory Directory for the files; created if not existing.
+     * @param indexFileName Name of the index file, within the directory.
+     * @param options
+     * @return the index file.
+     * @throws IOException
+     */
+    public File printSplit(File directory, String indexFileName, ExportOptions options) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Cannot create directory " + directory);
+
+        Map<String, String> fileNames = RemoteSetIndex.fileNames(remotes.keySet(), indexFileName);
+        printRemotes(directory, fileNames, options);
+
+        Document doc = XmlUtils.newDocument(true);
+        Element element = createRootElement(doc, options);
+        // A prefix is needed, since the attribute is in the Girr name space, but the element is not.
+        String nameQualifier = (options.getPrefix() != null ? options.getPrefix() : RemoteSetIndex.GIRR_PREFIX) + ':';
+        fileNames.entrySet().forEach((kvp) -> {
+            Element include = doc.createElementNS(RemoteSetIndex.XINCLUDE_NAMESPACE, RemoteSetIndex.XINCLUDE_PREFIX + ':' + RemoteSetIndex.INCLUDE_ELEMENT_NAME);
+            include.setAttribute(RemoteSetIndex.HREF_ATTRIBUTE_NAME, kvp.getValue());
+            include.setAttributeNS(GIRR_NAMESPACE, nameQualifier + XmlStatic.NAME_ATTRIBUTE_NAME, kvp.getKey());
+            element.appendChild(include);
+        });
+        XmlStatic.createDocument(null, element, options);
+        element.setAttributeNS(XMLNS_ATTRIBUTE_NS_URI, XMLNS_ATTRIBUTE + ':' + RemoteSetIndex.XINCLUDE_PREFIX, RemoteSetIndex.XINCLUDE_NAMESPACE);
+        if (options.getPrefix() == null)
+            element.setAttributeNS(XMLNS_ATTRIBUTE_NS_URI, XMLNS_ATTRIBUTE + ':' + RemoteSetIndex.GIRR_PREFIX, GIRR_NAMESPACE);
+
+        File indexFile = new File(directory, indexFileName);
+        try (OutputStream ostr = new FileOutputStream(indexFile)) {
+            printDocument(ostr, doc, options);
+        }
+        return indexFile;
+    }
 
-        return element;
+    private void printRemotes(File directory, Map<String, String> fileNames, ExportOptions options) throws IOException {
+        int threads = effectiveExportThreads(options.getThreads(), remotes.size());
+        if (threads <= 1) {
+            for (Remote remote : this)
+                printRemote(remote, new File(directory, fileNames.get(remote.getName())), options);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<File>> futures = new ArrayList<>(remotes.size());
+            for (Remote remote : this) {
+                File file = new File(directory, fileNames.get(remote.getName()));
+                futures.add(executor.submit(() -> printRemote(remote, file, options)));
+            }
+            for (Future<File> future : futures)
+                future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new ThisCannotHappenException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static File printRemote(Remote remote, File file, ExportOptions options) throws IOException {
+        try (OutputStream ostr = new FileOutputStream(file)) {
+            remote.print(ostr, options);
+        }
+        return file;
+    }
+
+    private void appendRemotesParallel(Element element, int threads, ExportOptions options) {
+        Document doc = element.getOwnerDocument();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // A DOM Document is not thread safe, so every Remote gets its own.
+            List<Future<Element>> fragments = new ArrayList<>(remotes.size());
+            for (Remote remote : this)
+                fragments.add(executor.submit(() -> remote.toElement(XmlUtils.newDocument(true), options)));
+
+            for (Future<Element> future : fragments) {
+                Element fragment = future.get();
+                Node node = doc.adoptNode(fragment);
+                element.appendChild(node != null ? node : doc.importNode(fragment, true));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new ThisCannotHappenException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Computes a SHA-256 hash for every contained Remote, from a single export of the RemoteSet.
+     * @param fatRaw
+     * @param generateParameters
+     * @param generateProntoHex
+     * @param generateRaw
+     * @return Map from the name of the Remote to its hash, in the order of the Remotes.
+     * @see XmlExporter#contentHash(boolean, boolean, boolean, boolean)
+     */
+    public Map<String, String> remoteContentHashes(boolean fatRaw, boolean generateParameters, boolean generateProntoHex, boolean generateRaw) {
+        return remoteContentHashes(ExportOptions.fromGlobals(fatRaw, generateParameters, generateProntoHex, generateRaw));
+    }
+
+    /**
+     * Computes a SHA-256 hash for every contained Remote, from a single export of the RemoteSet.
+     * @param options
+     * @return Map from the name of the Remote to its hash, in the order of the Remotes.
+     * @see XmlExporter#contentHash(ExportOptions)
+     */
+    public Map<String, String> remoteContentHashes(ExportOptions options) {
+        Element element = toElement(XmlUtils.newDocument(true), options);
+        Map<String, String> result = new LinkedHashMap<>(remotes.size());
+        NodeList nodeList = element.getElementsByTagNameNS(GIRR_NAMESPACE, REMOTE_ELEMENT_NAME);
+        for (int i = 0; i < nodeList.getLength(); i++) {
+            Element remoteElement = (Element) nodeList.item(i);
+            result.put(remoteElement.getAttribute(XmlStatic.NAME_ATTRIBUTE_NAME), contentHash(remoteElement));
+        }
+        return result;
     }
 
     /**
@@ -704,6 +941,89 @@ public final class RemoteSet extends XmlExporter implements Iterable<Remote> {
         return irpDatabase;
     }
 
+    /**
+     * Computes the names of the protocols used by the contained Commands,
+     * with aliases expanded through the embedded IrpDatabase.
+     * Commands without parameters are decoded, if possible.
+     * @return Set of protocol names, in lower case.
+     */
+    public Set<String> getReferencedProtocols() {
+        return getReferencedProtocols(true);
+    }
+
+    /**
+     * @param decode if false, Commands without parameters are ignored, instead of being decoded,
+     * leaving the Commands unmodified, as required by export.
+     */
+    private Set<String> getReferencedProtocols(boolean decode) {
+        Set<String> result = new LinkedHashSet<>(INITIAL_LIST_CAPACITY);
+        for (Remote remote : this)
+            for (CommandSet commandSet : remote)
+                for (Command command : commandSet) {
+                    try {
+                        String protocolName = decode ? command.getProtocolName() : command.knownProtocolName();
+                        if (protocolName != null)
+                            result.add(irpDatabase.expandAlias(protocolName).toLowerCase(Locale.US));
+                    } catch (IrpException | IrCoreException ex) {
+                        logger.log(Level.WARNING, "Command {0} could not be decoded: {1}", new Object[]{command.getName(), ex.getLocalizedMessage()});
+                    }
+                }
+        return result;
+    }
+
+    /**
+     * Removes the protocols not used by any of the contained Commands from the embedded IrpDatabase,
+     * for example after merging several RemoteSets.
+     * @return number of protocols removed.
+     */
+    public int pruneIrpDatabase() {
+        return pruneIrpDatabase(getReferencedProtocols());
+    }
+
+    /**
+     * @return hash of the XML form of the embedded IrpDatabase, as read, or null if not read from XML.
+     */
+    String getIrpDatabaseHash() {
+        return irpDatabaseHash;
+    }
+
+    /**
+     * Removes the protocols not in the argument from the embedded IrpDatabase.
+     * @param protocolNames names of the protocols to keep; aliases are expanded, and case is ignored.
+     * @return number of protocols removed.
+     */
+    int pruneIrpDatabase(Collection<String> protocolNames) {
+        if (irpDatabase.isEmpty())
+            return 0;
+        Set<String> referenced = new HashSet<>(protocolNames.size());
+        protocolNames.forEach((name) -> {
+            referenced.add(irpDatabase.expandAlias(name).toLowerCase(Locale.US));
+        });
+        Element irpDatabaseEl = irpDatabase.toElement(XmlUtils.newDocument(true));
+        int removed = pruneProtocols(irpDatabaseEl, referenced);
+        if (removed > 0) {
+            irpDatabase = mkIrpDatabase(irpDatabaseEl);
+            irpDatabaseHash = null;
+        }
+        return removed;
+    }
+
+    private int pruneProtocols(Element irpDatabaseEl, Set<String> referenced) {
+        NodeList nodeList = irpDatabaseEl.getElementsByTagNameNS(IRP_NAMESPACE_URI, IRP_PROTOCOL_ELEMENT_NAME);
+        List<Element> unused = new ArrayList<>(nodeList.getLength());
+        for (int i = 0; i < nodeList.getLength(); i++) {
+            Element protocolEl = (Element) nodeList.item(i);
+            String name = irpDatabase.expandAlias(protocolEl.getAttribute(IRP_NAME_ATTRIBUTE_NAME));
+            if (!referenced.contains(name.toLowerCase(Locale.US)))
+                unused.add(protocolEl);
+        }
+        // The NodeList is live, so the nodes are removed only after the traversal.
+        unused.forEach((protocolEl) -> {
+            protocolEl.getParentNode().removeChild(protocolEl);
+        });
+        return unused.size();
+    }
+
     /**
      * Return the number of contained Remotes.
      * @return
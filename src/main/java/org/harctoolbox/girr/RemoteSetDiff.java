@@ -0,0 +1,171 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import static org.harctoolbox.girr.Command.INITIAL_HASHMAP_CAPACITY;
+
+/**
+ * Structured comparison of two RemoteSets, using the cached hierarchical hashes
+ * ({@link RemoteSet#merkleHash()}, {@link Remote#merkleHash()}, {@link CommandSet#merkleHash()}, {@link Command#merkleHash()}).
+ * Subtrees with equal hashes are not descended into, so the work after the first comparison is proportional to
+ * the number of the elements, not to their size, plus the size of the changed subtrees.
+ * An added or removed Remote or CommandSet is reported as one change, without its children.
+ * A renaming is reported as removal and addition; see {@link RemoteSetPatch} for detection of renaming.
+ */
+public final class RemoteSetDiff {
+
+    public enum Kind {
+        added,
+        removed,
+        /**
+         * The content of the element has changed; for Remotes and CommandSets, its own content or the order of its children,
+         * but not the children themselves; for the RemoteSet, the order of its Remotes.
+         */
+        changed
+    }
+
+    /**
+     * A change of the RemoteSet, a Remote, CommandSet, or Command, identified by the names of it and its parents.
+     */
+    public static final class Change {
+
+        private final Kind kind;
+        private final String remote;
+        private final String commandSet;
+        private final String command;
+
+        private Change(Kind kind, String remote, String commandSet, String command) {
+            this.kind = kind;
+            this.remote = remote;
+            this.commandSet = commandSet;
+            this.command = command;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return name of the Remote, or null if the change concerns the RemoteSet.
+         */
+        public String getRemote() {
+            return remote;
+        }
+
+        /**
+         * @return name of the CommandSet, or null if the change concerns the Remote.
+         */
+        public String getCommandSet() {
+            return commandSet;
+        }
+
+        /**
+         * @return name of the Command, or null if the change concerns the Remote or the CommandSet.
+         */
+        public String getCommand() {
+            return command;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder str = new StringBuilder(64).append(kind).append(' ').append(remote != null ? remote : "/");
+            if (commandSet != null)
+                str.append('/').append(commandSet);
+            if (command != null)
+                str.append('/').append(command);
+            return str.toString();
+        }
+    }
+
+    /**
+     * Computes the changes turning the first RemoteSet into the second,
+     * in the order of the first RemoteSet (removals) and the second (changes and additions).
+     * @param from
+     * @param to
+     * @return unmodifiable list of changes, empty if the RemoteSets have equal content.
+     */
+    public static List<Change> diff(RemoteSet from, RemoteSet to) {
+        if (from.merkleHash().equals(to.merkleHash()))
+            return Collections.emptyList();
+        List<Change> changes = new ArrayList<>(INITIAL_HASHMAP_CAPACITY);
+        Map<String, Remote> fromRemotes = Named.toMap(from.getRemotes());
+        for (Remote remote : from)
+            if (to.getRemote(remote.getName()) == null)
+                changes.add(new Change(Kind.removed, remote.getName(), null, null));
+        for (Remote remote : to) {
+            Remote old = fromRemotes.get(remote.getName());
+            if (old == null)
+                changes.add(new Change(Kind.added, remote.getName(), null, null));
+            else if (!old.merkleHash().equals(remote.merkleHash()))
+                diff(old, remote, changes);
+        }
+        // Only the order of the Remotes differs
+        if (changes.isEmpty())
+            changes.add(new Change(Kind.changed, null, null, null));
+        return Collections.unmodifiableList(changes);
+    }
+
+    private static void diff(Remote from, Remote to, List<Change> changes) {
+        String remoteName = to.getName();
+        int position = changes.size();
+        if (!from.ownHash().equals(to.ownHash()))
+            changes.add(new Change(Kind.changed, remoteName, null, null));
+        Map<String, CommandSet> fromCommandSets = from.getCommandSets();
+        Map<String, CommandSet> toCommandSets = to.getCommandSets();
+        for (String name : fromCommandSets.keySet())
+            if (!toCommandSets.containsKey(name))
+                changes.add(new Change(Kind.removed, remoteName, name, null));
+        for (CommandSet commandSet : to) {
+            CommandSet old = fromCommandSets.get(commandSet.getName());
+            if (old == null)
+                changes.add(new Change(Kind.added, remoteName, commandSet.getName(), null));
+            else if (!old.merkleHash().equals(commandSet.merkleHash()))
+                diff(remoteName, old, commandSet, changes);
+        }
+        // Only the order of the CommandSets differs
+        if (changes.size() == position)
+            changes.add(new Change(Kind.changed, remoteName, null, null));
+    }
+
+    private static void diff(String remoteName, CommandSet from, CommandSet to, List<Change> changes) {
+        String commandSetName = to.getName();
+        int position = changes.size();
+        if (!from.getAllNotes().equals(to.getAllNotes()))
+            changes.add(new Change(Kind.changed, remoteName, commandSetName, null));
+        for (Command command : from)
+            if (to.getCommand(command.getName()) == null)
+                changes.add(new Change(Kind.removed, remoteName, commandSetName, command.getName()));
+        for (Command command : to) {
+            Command old = from.getCommand(command.getName());
+            if (old == null)
+                changes.add(new Change(Kind.added, remoteName, commandSetName, command.getName()));
+            else if (!old.merkleHash().equals(command.merkleHash()))
+                changes.add(new Change(Kind.changed, remoteName, commandSetName, command.getName()));
+        }
+        // Only the order of the Commands differs
+        if (changes.size() == position)
+            changes.add(new Change(Kind.changed, remoteName, commandSetName, null));
+    }
+
+    private RemoteSetDiff() {
+    }
+}
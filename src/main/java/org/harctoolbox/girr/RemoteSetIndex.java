@@ -0,0 +1,223 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.validation.Schema;
+import static org.harctoolbox.girr.XmlStatic.ADMINDATA_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.GIRR_NAMESPACE;
+import static org.harctoolbox.girr.XmlStatic.NAME_ATTRIBUTE_NAME;
+import static org.harctoolbox.girr.XmlStatic.REMOTES_ELEMENT_NAME;
+import org.harctoolbox.irp.IrpDatabase;
+import org.harctoolbox.irp.IrpParseException;
+import org.harctoolbox.xml.XmlUtils;
+import static org.harctoolbox.xml.XmlUtils.IRP_NAMESPACE_URI;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Index of a RemoteSet that has been exported with one file per Remote,
+ * see {@link RemoteSet#printSplit(File, String, ExportOptions)}.
+ * The index is read without XInclude processing; the Remotes are read when first requested, and then kept.
+ * This class is thread safe.
+ */
+public final class RemoteSetIndex {
+
+    private static final Logger logger = Logger.getLogger(RemoteSetIndex.class.getName());
+
+    static final String XINCLUDE_NAMESPACE = "http://www.w3.org/2001/XInclude";
+    static final String XINCLUDE_PREFIX = "xi";
+    static final String INCLUDE_ELEMENT_NAME = "include";
+    static final String HREF_ATTRIBUTE_NAME = "href";
+    static final String GIRR_PREFIX = "girr";
+    static final String GIRR_EXTENSION = ".girr";
+
+    private static final int MAX_FILE_NAME_LENGTH = 100;
+    private static final char REPLACEMENT_CHARACTER = '_';
+
+    /**
+     * Computes a file name for every name given as argument.
+     * Characters other than ASCII letters, digits, "-", "_", and "." are replaced by "_",
+     * and the names are made unique, also on case insensitive file systems, by appending a number.
+     * @param names
+     * @param reserved File name that must not be used, typically the name of the index file.
+     * @return Map from the name to its file name, in the order of the argument.
+     */
+    static Map<String, String> fileNames(Collection<String> names, String reserved) {
+        return fileNames(names, reserved, GIRR_EXTENSION);
+    }
+
+    /**
+     * As {@link #fileNames(Collection, String)}, but with an arbitrary file extension.
+     * @param names
+     * @param reserved
+     * @param extension File extension, including the period.
+     * @return Map from the name to its file name, in the order of the argument.
+     */
+    static Map<String, String> fileNames(Collection<String> names, String reserved, String extension) {
+        Map<String, String> result = new LinkedHashMap<>(names.size());
+        Set<String> used = new HashSet<>(names.size() + 1);
+        used.add(reserved.toLowerCase(Locale.US));
+        for (String name : names) {
+            String base = mangle(name);
+            String fileName = base + extension;
+            for (int n = 1; !used.add(fileName.toLowerCase(Locale.US)); n++)
+                fileName = base + REPLACEMENT_CHARACTER + n + extension;
+            result.put(name, fileName);
+        }
+        return result;
+    }
+
+    private static String mangle(String name) {
+        StringBuilder str = new StringBuilder(Math.min(name.length(), MAX_FILE_NAME_LENGTH) + 1);
+        if (name.isEmpty() || name.charAt(0) == '.')
+            str.append(REPLACEMENT_CHARACTER);
+        for (int i = 0; i < name.length() && str.length() < MAX_FILE_NAME_LENGTH; i++) {
+            char ch = name.charAt(i);
+            boolean safe = (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9')
+                    || ch == '-' || ch == '_' || ch == '.';
+            str.append(safe ? ch : REPLACEMENT_CHARACTER);
+        }
+        return str.toString();
+    }
+
+    private final File indexFile;
+    private final AdminData adminData;
+    private final Element irpDatabaseElement;
+    private final Map<String, File> files;
+    private final Map<String, Remote> loaded;
+
+    /**
+     * Reads the index file, but none of the Remotes.
+     * @param indexFile Index file, as written by {@link RemoteSet#printSplit(File, String, ExportOptions)}.
+     * @throws IOException
+     * @throws SAXException
+     * @throws GirrException if the file is not an index file.
+     */
+    public RemoteSetIndex(File indexFile) throws IOException, SAXException, GirrException {
+        this.indexFile = indexFile;
+        Schema schema = null;
+        Element root = XmlUtils.openXmlFile(indexFile, schema, true, false).getDocumentElement();
+        if (!root.getLocalName().equals(REMOTES_ELEMENT_NAME))
+            throw new GirrException("Root element not of type \"" + REMOTES_ELEMENT_NAME + "\", but " + root.getTagName());
+
+        NodeList nodeList = root.getElementsByTagNameNS(GIRR_NAMESPACE, ADMINDATA_ELEMENT_NAME);
+        adminData = nodeList.getLength() > 0 ? new AdminData((Element) nodeList.item(0)) : new AdminData();
+        adminData.setSourceIfEmpty(indexFile.toString());
+        nodeList = root.getElementsByTagNameNS(IRP_NAMESPACE_URI, IrpDatabase.PROTOCOLS_NAME);
+        irpDatabaseElement = nodeList.getLength() > 0 ? (Element) nodeList.item(0) : null;
+
+        nodeList = root.getElementsByTagNameNS(XINCLUDE_NAMESPACE, INCLUDE_ELEMENT_NAME);
+        files = new LinkedHashMap<>(nodeList.getLength());
+        File directory = indexFile.getAbsoluteFile().getParentFile();
+        for (int i = 0; i < nodeList.getLength(); i++) {
+            Element include = (Element) nodeList.item(i);
+            String name = include.getAttributeNS(GIRR_NAMESPACE, NAME_ATTRIBUTE_NAME);
+            String href = include.getAttribute(HREF_ATTRIBUTE_NAME);
+            if (name.isEmpty() || href.isEmpty())
+                throw new GirrException("Index entry without remote name or href in " + indexFile);
+            files.put(name, new File(directory, href));
+        }
+        loaded = new HashMap<>(files.size());
+    }
+
+    /**
+     * @return the names of the Remotes, in the order of the index.
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(files.keySet());
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    public File getIndexFile() {
+        return indexFile;
+    }
+
+    /**
+     * @param name
+     * @return the file containing the Remote with the name given as argument, or null if not in the index.
+     */
+    public File getFile(String name) {
+        return files.get(name);
+    }
+
+    /**
+     * @param name
+     * @return true if the Remote with the name given as argument has been read.
+     */
+    public synchronized boolean isLoaded(String name) {
+        return loaded.containsKey(name);
+    }
+
+    /**
+     * Returns the Remote with the name given as argument, reading its file on the first call.
+     * @param name
+     * @return Remote, or null if not in the index.
+     * @throws GirrException
+     * @throws IOException
+     * @throws SAXException
+     */
+    public synchronized Remote getRemote(String name) throws GirrException, IOException, SAXException {
+        Remote remote = loaded.get(name);
+        if (remote == null) {
+            File file = files.get(name);
+            if (file == null)
+                return null;
+            remote = new Remote(file.getPath());
+            loaded.put(name, remote);
+        }
+        return remote;
+    }
+
+    /**
+     * Reads all Remotes not already read, and returns them as a RemoteSet, together with the admin data and the IrpDatabase of the index.
+     * @return new RemoteSet
+     * @throws GirrException
+     * @throws IOException
+     * @throws SAXException
+     */
+    public RemoteSet toRemoteSet() throws GirrException, IOException, SAXException {
+        Map<String, Remote> remotes = new LinkedHashMap<>(files.size());
+        for (String name : files.keySet())
+            remotes.put(name, getRemote(name));
+        RemoteSet remoteSet = new RemoteSet(adminData, remotes);
+        if (irpDatabaseElement != null) {
+            try {
+                remoteSet.getIrpDatabase().patch(new IrpDatabase(irpDatabaseElement));
+            } catch (IrpParseException ex) {
+                logger.log(Level.WARNING, ex.getLocalizedMessage());
+            }
+        }
+        return remoteSet;
+    }
+}
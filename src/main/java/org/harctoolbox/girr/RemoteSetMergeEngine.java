@@ -0,0 +1,215 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.harctoolbox.irp.IrpDatabase;
+
+/**
+ * Merges RemoteSets in memory, with a selectable strategy for Remotes with the same name,
+ * and optional removal of exact duplicates.
+ * Name collisions are resolved with a counter per base name, and an IrpDatabase embedded in many inputs
+ * is patched in only once, so the merge takes time linear in the size of the input.
+ *
+ * <p>The Remotes added become part of the result, and may be modified (renamed, or, for
+ * {@link Strategy#mergeCommandSets}, extended).
+ */
+public final class RemoteSetMergeEngine {
+
+    /**
+     * What to do with a Remote with the same name as a Remote already present.
+     */
+    public enum Strategy {
+        /** Add it, with "_" and a number appended to its name. This is the behavior of {@link RemoteSet#RemoteSet(String, String, Collection)}. */
+        rename,
+
+        /** Ignore it. */
+        keepFirst,
+
+        /** Replace the present one, at its position. */
+        keepLast,
+
+        /**
+         * Add its CommandSets to the present Remote; Commands of a CommandSet with the same name are added to that CommandSet.
+         * Commands with the same name but different content are renamed like Remotes.
+         */
+        mergeCommandSets
+    }
+
+    /**
+     * Convenience function: merges the RemoteSets into a new RemoteSet.
+     * @param creatingUser
+     * @param source
+     * @param remoteSets
+     * @param strategy
+     * @param dropDuplicates
+     * @return new RemoteSet
+     */
+    public static RemoteSet merge(String creatingUser, String source, Collection<RemoteSet> remoteSets, Strategy strategy, boolean dropDuplicates) {
+        RemoteSetMergeEngine engine = new RemoteSetMergeEngine(strategy, dropDuplicates);
+        for (RemoteSet remoteSet : remoteSets)
+            engine.add(remoteSet);
+        return engine.toRemoteSet(creatingUser, source);
+    }
+
+    private final Strategy strategy;
+    private final boolean dropDuplicates;
+    private final Map<String, Remote> remotes;
+    private final NameAllocator names;
+    private final Set<String> hashes;
+    private final IrpDatabase irpDatabase;
+    private final IrpDatabasePatcher irpDatabasePatcher;
+    private int duplicates;
+    private int collisions;
+
+    /**
+     * @param strategy treatment of Remotes with the same name.
+     * @param dropDuplicates If true, a Remote with the same {@link Remote#merkleHash()} as one already present,
+     * which implies the same name, is ignored, irrespective of the strategy.
+     */
+    public RemoteSetMergeEngine(Strategy strategy, boolean dropDuplicates) {
+        this.strategy = strategy;
+        this.dropDuplicates = dropDuplicates;
+        remotes = new LinkedHashMap<>(Command.INITIAL_HASHMAP_CAPACITY);
+        names = new NameAllocator();
+        hashes = new HashSet<>(Command.INITIAL_HASHMAP_CAPACITY);
+        irpDatabase = new IrpDatabase();
+        irpDatabasePatcher = new IrpDatabasePatcher(irpDatabase);
+        duplicates = 0;
+        collisions = 0;
+    }
+
+    /**
+     * Adds the Remotes of the RemoteSet, and patches its IrpDatabase into the result.
+     * @param remoteSet
+     */
+    public void add(RemoteSet remoteSet) {
+        irpDatabasePatcher.patch(remoteSet);
+        for (Remote remote : remoteSet)
+            add(remote, remoteSet.getAdminData());
+    }
+
+    private void add(Remote remote, AdminData adminData) {
+        String hash = dropDuplicates ? remote.merkleHash() : null;
+        if (hash != null && hashes.contains(hash)) {
+            duplicates++;
+            return;
+        }
+
+        String name = remote.getName();
+        Remote present = remotes.get(name);
+        if (present != null) {
+            collisions++;
+            switch (strategy) {
+                case rename:
+                    name = names.allocate(remote);
+                    break;
+                case keepFirst:
+                    return;
+                case keepLast:
+                    if (dropDuplicates)
+                        hashes.remove(present.merkleHash());
+                    break;
+                case mergeCommandSets:
+                    if (dropDuplicates)
+                        hashes.remove(present.merkleHash());
+                    mergeCommandSets(present, remote);
+                    if (dropDuplicates)
+                        hashes.add(present.merkleHash());
+                    return;
+                default:
+                    throw new IllegalStateException();
+            }
+        } else
+            names.allocate(name);
+
+        remote.getAdminData().merge(adminData);
+        remote.markDirty();
+        remotes.put(name, remote);
+        if (hash != null)
+            hashes.add(hash);
+    }
+
+    private static void mergeCommandSets(Remote present, Remote remote) {
+        for (CommandSet commandSet : remote) {
+            CommandSet presentCommandSet = present.getCommandSets().get(commandSet.getName());
+            if (presentCommandSet == null) {
+                present.putCommandSet(commandSet);
+                continue;
+            }
+            NameAllocator commandNames = null;
+            for (Command command : commandSet) {
+                Command presentCommand = presentCommandSet.getCommand(command.getName());
+                if (presentCommand == null)
+                    presentCommandSet.putCommand(command);
+                else if (!presentCommand.merkleHash().equals(command.merkleHash())) {
+                    if (commandNames == null) {
+                        commandNames = new NameAllocator();
+                        for (Command c : presentCommandSet)
+                            commandNames.allocate(c.getName());
+                    }
+                    command.setName(commandNames.allocate(command.getName()));
+                    presentCommandSet.putCommand(command);
+                }
+            }
+        }
+        present.markDirty();
+    }
+
+    /**
+     * @return number of Remotes in the result so far.
+     */
+    public int size() {
+        return remotes.size();
+    }
+
+    /**
+     * @return number of Remotes dropped as exact duplicates.
+     */
+    public int getNumberOfDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return number of Remotes having a name already present, and not being duplicates.
+     */
+    public int getNumberOfCollisions() {
+        return collisions;
+    }
+
+    /**
+     * Creates the merged RemoteSet.
+     * @param creatingUser
+     * @param source
+     * @return new RemoteSet, containing the Remotes added.
+     */
+    public RemoteSet toRemoteSet(String creatingUser, String source) {
+        RemoteSet remoteSet = new RemoteSet(creatingUser, source, null, Version.appName, Version.versionString, null, null);
+        copyTo(remoteSet);
+        return remoteSet;
+    }
+
+    void copyTo(RemoteSet remoteSet) {
+        remotes.values().forEach(remoteSet::putRemote);
+        remoteSet.getIrpDatabase().patch(irpDatabase);
+    }
+}
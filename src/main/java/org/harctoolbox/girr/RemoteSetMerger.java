@@ -0,0 +1,406 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.validation.Schema;
+import org.harctoolbox.ircore.IrCoreException;
+import org.harctoolbox.irp.IrpException;
+import org.harctoolbox.xml.XmlUtils;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Merges many Girr files into one "remotes" document, with bounded memory usage.
+ * This is the streaming counterpart of {@link RemoteSet#RemoteSet(String, String, java.util.Collection)}:
+ * Remotes are renamed on name collisions in the same way, and the IrpDatabases are patched together.
+ *
+ * <p>The inputs are read one file at a time. Every Remote is serialized as soon as it has been read,
+ * and kept in a window of at most {@link #setWindowSize(int)} Remotes; a full window is spilled
+ * to a temporary file, called a run. If sorted output is requested, every run is sorted before being spilled,
+ * and the runs are merged when writing the output. Only the names of the Remotes, the IrpDatabase,
+ * the window, and one Remote per run are kept in memory.
+ *
+ * <p>Usage: {@link #add(File)} any number of files or directories, then {@link #write(File)} once, then {@link #close()}.
+ */
+public final class RemoteSetMerger implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(RemoteSetMerger.class.getName());
+
+    public static final int DEFAULT_WINDOW_SIZE = 1000;
+
+    private static final String RUN_PREFIX = "girrmerge";
+    private static final String RUN_SUFFIX = ".run";
+    private static final String MARKER = "remotes merged here";
+    private static final Comparator<Record> SORT_ORDER
+            = Comparator.comparing((Record record) -> record.name, String.CASE_INSENSITIVE_ORDER).thenComparing((Record record) -> record.name);
+
+    private final RemoteSet header;
+    private final ExportOptions options;
+    private final String indent;
+    private final NameAllocator names;
+    private final IrpDatabasePatcher irpDatabasePatcher;
+    private final Set<String> protocolNames;
+    private final List<Record> window;
+    private final List<Path> runs;
+    private boolean sorted;
+    private int windowSize;
+    private Schema schema;
+    private File tempDirectory;
+
+    /**
+     * @param creatingUser creating user of the result; may be null.
+     * @param source source of the result; may be null.
+     * @param options ExportOptions for the output.
+     */
+    public RemoteSetMerger(String creatingUser, String source, ExportOptions options) {
+        header = new RemoteSet(new AdminData(creatingUser, source, null, Version.appName, Version.versionString, null, null, null), null);
+        this.options = options;
+        indent = XmlExporter.spaces(XmlExporter.indentAmount(options));
+        names = new NameAllocator();
+        irpDatabasePatcher = new IrpDatabasePatcher(header.getIrpDatabase());
+        protocolNames = new HashSet<>(Command.INITIAL_HASHMAP_CAPACITY);
+        window = new ArrayList<>(DEFAULT_WINDOW_SIZE);
+        runs = new ArrayList<>(Command.INITIAL_HASHMAP_CAPACITY);
+        sorted = false;
+        windowSize = DEFAULT_WINDOW_SIZE;
+        schema = null;
+        tempDirectory = null;
+    }
+
+    /**
+     * @param sorted If true, the Remotes are written sorted by name, ignoring case; otherwise in the order read.
+     */
+    public void setSorted(boolean sorted) {
+        if (!runs.isEmpty() || !window.isEmpty())
+            throw new IllegalStateException("Sorting must be set before adding input");
+        this.sorted = sorted;
+    }
+
+    /**
+     * @param windowSize Maximal number of Remotes kept in memory before spilling to a temporary file.
+     */
+    public void setWindowSize(int windowSize) {
+        if (windowSize < 1)
+            throw new IllegalArgumentException("Window size must be positive");
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * @param schema Schema to validate the input against; null (default) for no validation.
+     */
+    public void setSchema(Schema schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * @param tempDirectory Directory for the temporary files; null (default) for the system default.
+     */
+    public void setTempDirectory(File tempDirectory) {
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Reads a file, or, recursively, all files in a directory, in alphabetical order.
+     * As {@link RemoteSet#parseAsCollection(File, Schema)}, files that cannot be read are logged and skipped.
+     * @param file
+     * @throws IOException if a temporary file cannot be written.
+     */
+    public void add(File file) throws IOException {
+        if (file.isFile() && !RemoteSet.ignoreByExtension(file.getName())) {
+            RemoteSet remoteSet;
+            try {
+                remoteSet = RemoteSet.parse(XmlExporter.getElement(file, schema), file.toString());
+            } catch (GirrException | IOException | SAXException ex) {
+                logger.log(Level.WARNING, "Could not read file {0}: {1}", new Object[]{file.toString(), ex.getMessage()});
+                return;
+            }
+            add(remoteSet);
+        } else if (file.isDirectory()) {
+            File[] files = file.listFiles();
+            if (files == null) {
+                logger.log(Level.WARNING, "Could not read directory {0}", file.toString());
+                return;
+            }
+            Arrays.sort(files);
+            for (File f : files)
+                add(f);
+        }
+    }
+
+    /**
+     * Adds the Remotes of a RemoteSet, possibly renaming them, and patches its IrpDatabase into the result.
+     * The RemoteSet is not referenced afterwards.
+     * @param remoteSet
+     * @throws IOException if a temporary file cannot be written.
+     */
+    public void add(RemoteSet remoteSet) throws IOException {
+        irpDatabasePatcher.patch(remoteSet);
+        for (Remote remote : remoteSet) {
+            String name = names.allocate(remote);
+            remote.getAdminData().merge(remoteSet.getAdminData());
+            remote.markDirty();
+            if (options.isPruneIrpDatabase())
+                collectProtocols(remote);
+            String fragment = XmlExporter.serializeFragment(remote.toElement(XmlUtils.newDocument(true), options), options, indent);
+            window.add(new Record(name, fragment));
+            if (window.size() >= windowSize)
+                spill();
+        }
+    }
+
+    private void collectProtocols(Remote remote) {
+        for (CommandSet commandSet : remote)
+            for (Command command : commandSet) {
+                try {
+                    String protocolName = command.getProtocolName();
+                    if (protocolName != null)
+                        protocolNames.add(protocolName);
+                } catch (IrpException | IrCoreException ex) {
+                    logger.log(Level.WARNING, "Command {0} could not be decoded: {1}", new Object[]{command.getName(), ex.getLocalizedMessage()});
+                }
+            }
+    }
+
+    /**
+     * @return number of Remotes added so far.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * @return number of temporary runs written so far.
+     */
+    public int getNumberOfRuns() {
+        return runs.size();
+    }
+
+    private void spill() throws IOException {
+        if (window.isEmpty())
+            return;
+        if (sorted)
+            window.sort(SORT_ORDER);
+        Path run = tempDirectory != null
+                ? Files.createTempFile(tempDirectory.toPath(), RUN_PREFIX, RUN_SUFFIX)
+                : Files.createTempFile(RUN_PREFIX, RUN_SUFFIX);
+        runs.add(run);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+            for (Record record : window)
+                record.write(out);
+        }
+        window.clear();
+    }
+
+    /**
+     * Writes the merged document.
+     * @param file output file.
+     * @return number of Remotes written.
+     * @throws IOException
+     */
+    public int write(File file) throws IOException {
+        try (OutputStream ostr = new BufferedOutputStream(new FileOutputStream(file))) {
+            return write(ostr);
+        }
+    }
+
+    /**
+     * Writes the merged document.
+     * @param ostr OutputStream, not closed.
+     * @return number of Remotes written.
+     * @throws IOException
+     */
+    public int write(OutputStream ostr) throws IOException {
+        if (options.isPruneIrpDatabase())
+            header.pruneIrpDatabase(protocolNames);
+
+        // The header is exported with a marker comment in place of the Remotes, which is then split at the marker.
+        Document doc = header.toDocument(null, options.withPruneIrpDatabase(false));
+        doc.getDocumentElement().appendChild(doc.createComment(MARKER));
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        XmlExporter.printDocument(headerBytes, doc, options);
+        String headerText = new String(headerBytes.toByteArray(), StandardCharsets.UTF_8);
+        String marker = "<!--" + MARKER + "-->";
+        int markerPosition = headerText.indexOf(marker);
+
+        Writer writer = new OutputStreamWriter(ostr, StandardCharsets.UTF_8);
+        writer.write(headerText, 0, markerPosition);
+        String separator = options.getIndentation() == ExportOptions.NO_INDENTATION ? "" : XmlExporter.LINE_SEPARATOR + indent;
+        int count = 0;
+        if (runs.isEmpty()) {
+            if (sorted)
+                window.sort(SORT_ORDER);
+            for (Record record : window)
+                count = writeRecord(writer, record, count, separator);
+        } else {
+            spill();
+            count = sorted ? mergeRuns(writer, separator) : concatenateRuns(writer, separator);
+        }
+        writer.write(headerText, markerPosition + marker.length(), headerText.length() - markerPosition - marker.length());
+        writer.flush();
+        return count;
+    }
+
+    private static int writeRecord(Writer writer, Record record, int count, String separator) throws IOException {
+        if (count > 0)
+            writer.write(separator);
+        writer.write(record.fragment);
+        return count + 1;
+    }
+
+    private int concatenateRuns(Writer writer, String separator) throws IOException {
+        int count = 0;
+        for (Path run : runs) {
+            try (RunReader reader = new RunReader(run)) {
+                for (Record record = reader.next(); record != null; record = reader.next())
+                    count = writeRecord(writer, record, count, separator);
+            }
+        }
+        return count;
+    }
+
+    private int mergeRuns(Writer writer, String separator) throws IOException {
+        List<RunReader> readers = new ArrayList<>(runs.size());
+        PriorityQueue<Head> queue = new PriorityQueue<>(runs.size(), (a, b) -> SORT_ORDER.compare(a.record, b.record));
+        try {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                readers.add(reader);
+                Record record = reader.next();
+                if (record != null)
+                    queue.add(new Head(record, reader));
+            }
+            int count = 0;
+            while (!queue.isEmpty()) {
+                Head head = queue.poll();
+                count = writeRecord(writer, head.record, count, separator);
+                Record next = head.reader.next();
+                if (next != null)
+                    queue.add(new Head(next, head.reader));
+            }
+            return count;
+        } finally {
+            for (RunReader reader : readers)
+                reader.close();
+        }
+    }
+
+    /**
+     * Deletes the temporary files.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        for (Path run : runs)
+            Files.deleteIfExists(run);
+        runs.clear();
+        window.clear();
+    }
+
+    private static final class Record {
+
+        private final String name;
+        private final String fragment;
+
+        Record(String name, String fragment) {
+            this.name = name;
+            this.fragment = fragment;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            writeString(out, name);
+            writeString(out, fragment);
+        }
+
+        // DataOutputStream.writeUTF is limited to 64 kB.
+        private static void writeString(DataOutputStream out, String string) throws IOException {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static final class RunReader implements Closeable {
+
+        private final DataInputStream in;
+
+        RunReader(Path run) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+        }
+
+        /**
+         * @return next Record, or null at the end of the run.
+         */
+        Record next() throws IOException {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException ex) {
+                return null;
+            }
+            String name = readString(length);
+            return new Record(name, readString(in.readInt()));
+        }
+
+        private String readString(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class Head {
+
+        private final Record record;
+        private final RunReader reader;
+
+        Head(Record record, RunReader reader) {
+            this.record = record;
+            this.reader = reader;
+        }
+    }
+}
@@ -0,0 +1,437 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import static org.harctoolbox.girr.Command.INITIAL_HASHMAP_CAPACITY;
+import static org.harctoolbox.girr.XmlStatic.GIRR_NAMESPACE;
+import static org.harctoolbox.girr.XmlStatic.NAME_ATTRIBUTE_NAME;
+import org.harctoolbox.xml.XmlUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * A patch between two versions of a RemoteSet, that can be applied to a loaded RemoteSet in place.
+ * It consists of a sequence of operations on Remotes, CommandSets, and Commands:
+ * removal, renaming, and "put", i.e., addition or replacement of an element given in Girr form.
+ * A changed Command is put as a whole; a Remote or CommandSet with changed own data (metadata, notes, etc.) likewise.
+ * Renaming is detected as an element that has disappeared, and another one with the same content but another name appeared.
+ *
+ * <p>The XML form has the root element "girrPatch", with child elements
+ * "removeRemote", "renameRemote", "putRemote", "removeCommandSet", etc., in the Girr name space, but not part of the schema,
+ * addressing their target through the attributes "remote", "commandSet", "command", and "newName".
+ * The put operations contain the element in Girr form, with the Commands not inheriting from their CommandSet.
+ *
+ * <p>Within each parent, removals are applied first, then renamings, then puts.
+ * Added elements are appended after the existing ones.
+ */
+public final class RemoteSetPatch extends XmlExporter {
+
+    public static final String PATCH_ELEMENT_NAME = "girrPatch";
+    public static final String EXTENSION = ".girrpatch";
+
+    private static final String REMOTE_ATTRIBUTE_NAME = "remote";
+    private static final String COMMANDSET_ATTRIBUTE_NAME = "commandSet";
+    private static final String COMMAND_ATTRIBUTE_NAME = "command";
+    private static final String NEWNAME_ATTRIBUTE_NAME = "newName";
+
+    private enum Kind {
+        removeRemote,
+        renameRemote,
+        putRemote,
+        removeCommandSet,
+        renameCommandSet,
+        putCommandSet,
+        removeCommand,
+        renameCommand,
+        putCommand;
+
+        static Kind parse(String string) throws GirrException {
+            try {
+                return valueOf(string);
+            } catch (IllegalArgumentException ex) {
+                throw new GirrException("Unknown patch operation: " + string);
+            }
+        }
+    }
+
+    /**
+     * Computes the patch turning the first RemoteSet into the second.
+     * Only the master form of the Commands, and their other formats, are compared.
+     * Unchanged subtrees are skipped by their cached hashes, see {@link RemoteSetDiff}.
+     * @param from
+     * @param to
+     * @return the patch, empty if the RemoteSets are equal.
+     */
+    public static RemoteSetPatch diff(RemoteSet from, RemoteSet to) {
+        RemoteSetPatch patch = new RemoteSetPatch();
+        if (!from.merkleHash().equals(to.merkleHash()))
+            patch.diffRemotes(from, to, XmlUtils.newDocument(true));
+        return patch;
+    }
+
+    private static String nameLessHash(XmlExporter thing, Document doc) {
+        Element element = thing.toElement(doc, ExportOptions.MASTER_ONLY);
+        element.removeAttribute(NAME_ATTRIBUTE_NAME);
+        return contentHash(element);
+    }
+
+    private static <T extends Named> Set<String> difference(Map<String, T> map, Map<String, T> other) {
+        Set<String> result = new LinkedHashSet<>(map.keySet());
+        result.removeAll(other.keySet());
+        return result;
+    }
+
+    /**
+     * Matches disappeared and appeared elements with equal content.
+     * The matched names are removed from the sets.
+     * @return map from old to new name.
+     */
+    private static <T extends XmlExporter & Named> Map<String, String> renamings(Map<String, T> from, Set<String> removed,
+            Map<String, T> to, Set<String> added, Document doc) {
+        if (removed.isEmpty() || added.isEmpty())
+            return Collections.emptyMap();
+        Map<String, String> oldNames = new HashMap<>(removed.size());
+        for (String name : removed)
+            oldNames.putIfAbsent(nameLessHash(from.get(name), doc), name);
+        Map<String, String> result = new HashMap<>(INITIAL_HASHMAP_CAPACITY);
+        for (String name : new ArrayList<>(added)) {
+            String oldName = oldNames.remove(nameLessHash(to.get(name), doc));
+            if (oldName != null) {
+                result.put(oldName, name);
+                removed.remove(oldName);
+                added.remove(name);
+            }
+        }
+        return result;
+    }
+
+    private final List<Operation> operations;
+
+    public RemoteSetPatch() {
+        operations = new ArrayList<>(INITIAL_HASHMAP_CAPACITY);
+    }
+
+    /**
+     * Reads a patch from its XML form.
+     * @param element root element "girrPatch".
+     * @throws GirrException
+     */
+    public RemoteSetPatch(Element element) throws GirrException {
+        this();
+        if (!PATCH_ELEMENT_NAME.equals(element.getLocalName()))
+            throw new GirrException("Element \"" + PATCH_ELEMENT_NAME + "\" expected");
+        NodeList nodes = element.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            if (nodes.item(i).getNodeType() != Node.ELEMENT_NODE)
+                continue;
+            Element el = (Element) nodes.item(i);
+            Element payload = null;
+            NodeList children = el.getChildNodes();
+            for (int j = 0; j < children.getLength(); j++)
+                if (children.item(j).getNodeType() == Node.ELEMENT_NODE) {
+                    payload = (Element) children.item(j);
+                    break;
+                }
+            Operation operation = new Operation(Kind.parse(el.getLocalName()), attribute(el, REMOTE_ATTRIBUTE_NAME),
+                    attribute(el, COMMANDSET_ATTRIBUTE_NAME), attribute(el, COMMAND_ATTRIBUTE_NAME), attribute(el, NEWNAME_ATTRIBUTE_NAME), payload);
+            operation.check();
+            operations.add(operation);
+        }
+    }
+
+    public RemoteSetPatch(File file) throws GirrException, IOException, SAXException {
+        this(getElement(file));
+    }
+
+    public RemoteSetPatch(Reader reader) throws GirrException, IOException, SAXException {
+        this(getElement(reader));
+    }
+
+    private static String attribute(Element element, String name) {
+        String value = element.getAttribute(name);
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * @return number of operations.
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    private void diffRemotes(RemoteSet from, RemoteSet to, Document doc) {
+        Map<String, Remote> fromRemotes = Named.toMap(from.getRemotes());
+        Map<String, Remote> toRemotes = Named.toMap(to.getRemotes());
+        Set<String> removed = difference(fromRemotes, toRemotes);
+        Set<String> added = difference(toRemotes, fromRemotes);
+        Map<String, String> renamed = renamings(fromRemotes, removed, toRemotes, added, doc);
+        removed.forEach((name) -> {
+            add(Kind.removeRemote, name, null, null, null, null);
+        });
+        renamed.entrySet().forEach((kvp) -> {
+            add(Kind.renameRemote, kvp.getKey(), null, null, kvp.getValue(), null);
+        });
+        for (Remote remote : to) {
+            String name = remote.getName();
+            Remote old = fromRemotes.get(name);
+            if (added.contains(name) || (old != null && !old.ownHash().equals(remote.ownHash())))
+                add(Kind.putRemote, name, null, null, null, remote.toElement(doc, ExportOptions.MASTER_ONLY));
+            else if (old != null && !old.merkleHash().equals(remote.merkleHash()))
+                diffCommandSets(old, remote, doc);
+        }
+    }
+
+    private void diffCommandSets(Remote from, Remote to, Document doc) {
+        String remoteName = to.getName();
+        Map<String, CommandSet> fromCommandSets = from.getCommandSets();
+        Map<String, CommandSet> toCommandSets = to.getCommandSets();
+        Set<String> removed = difference(fromCommandSets, toCommandSets);
+        Set<String> added = difference(toCommandSets, fromCommandSets);
+        Map<String, String> renamed = renamings(fromCommandSets, removed, toCommandSets, added, doc);
+        removed.forEach((name) -> {
+            add(Kind.removeCommandSet, remoteName, name, null, null, null);
+        });
+        renamed.entrySet().forEach((kvp) -> {
+            add(Kind.renameCommandSet, remoteName, kvp.getKey(), null, kvp.getValue(), null);
+        });
+        for (CommandSet commandSet : to) {
+            String name = commandSet.getName();
+            CommandSet old = fromCommandSets.get(name);
+            if (added.contains(name) || (old != null && !old.getAllNotes().equals(commandSet.getAllNotes())))
+                add(Kind.putCommandSet, remoteName, null, null, null, commandSet.toElement(doc, ExportOptions.MASTER_ONLY));
+            else if (old != null && !old.merkleHash().equals(commandSet.merkleHash()))
+                diffCommands(remoteName, old, commandSet, doc);
+        }
+    }
+
+    private void diffCommands(String remoteName, CommandSet from, CommandSet to, Document doc) {
+        String commandSetName = to.getName();
+        Map<String, Command> fromCommands = Named.toMap(from.getCommands());
+        Map<String, Command> toCommands = Named.toMap(to.getCommands());
+        Set<String> removed = difference(fromCommands, toCommands);
+        Set<String> added = difference(toCommands, fromCommands);
+        Map<String, String> renamed = renamings(fromCommands, removed, toCommands, added, doc);
+        removed.forEach((name) -> {
+            add(Kind.removeCommand, remoteName, commandSetName, name, null, null);
+        });
+        renamed.entrySet().forEach((kvp) -> {
+            add(Kind.renameCommand, remoteName, commandSetName, kvp.getKey(), kvp.getValue(), null);
+        });
+        for (Command command : to) {
+            String name = command.getName();
+            Command old = fromCommands.get(name);
+            if (added.contains(name) || (old != null && !old.merkleHash().equals(command.merkleHash())))
+                add(Kind.putCommand, remoteName, commandSetName, null, null, command.toElement(doc, ExportOptions.MASTER_ONLY));
+        }
+    }
+
+    private void add(Kind kind, String remote, String commandSet, String command, String newName, Element payload) {
+        operations.add(new Operation(kind, remote, commandSet, command, newName, payload));
+    }
+
+    /**
+     * Applies the patch to the RemoteSet, which is modified in place.
+     * The operations are checked one at a time; if one fails, the preceding operations remain applied.
+     * @param remoteSet
+     * @throws GirrException if an operation refers to a non-existing element, renames to an existing name,
+     * or contains invalid Girr data.
+     */
+    public void apply(RemoteSet remoteSet) throws GirrException {
+        for (Operation operation : operations)
+            operation.apply(remoteSet);
+    }
+
+    @Override
+    Element toElement(Document doc, ExportOptions options) {
+        Element element = doc.createElementNS(GIRR_NAMESPACE, PATCH_ELEMENT_NAME);
+        options.setPrefix(element);
+        for (Operation operation : operations)
+            element.appendChild(operation.toElement(doc, options));
+        return element;
+    }
+
+    private static final class Operation {
+
+        private final Kind kind;
+        private final String remote;
+        private final String commandSet;
+        private final String command;
+        private final String newName;
+        private final Element payload;
+
+        Operation(Kind kind, String remote, String commandSet, String command, String newName, Element payload) {
+            this.kind = kind;
+            this.remote = remote;
+            this.commandSet = commandSet;
+            this.command = command;
+            this.newName = newName;
+            this.payload = payload;
+        }
+
+        /**
+         * Checks that the attributes required by the kind are present.
+         */
+        void check() throws GirrException {
+            boolean ok = remote != null;
+            switch (kind) {
+                case putRemote:
+                    ok = payload != null;
+                    break;
+                case renameRemote:
+                    ok = ok && newName != null;
+                    break;
+                case putCommandSet:
+                    ok = ok && payload != null;
+                    break;
+                case removeCommandSet:
+                    ok = ok && commandSet != null;
+                    break;
+                case renameCommandSet:
+                    ok = ok && commandSet != null && newName != null;
+                    break;
+                case putCommand:
+                    ok = ok && commandSet != null && payload != null;
+                    break;
+                case removeCommand:
+                    ok = ok && commandSet != null && command != null;
+                    break;
+                case renameCommand:
+                    ok = ok && commandSet != null && command != null && newName != null;
+                    break;
+                default:
+                    break;
+            }
+            if (!ok)
+                throw new GirrException("Incomplete patch operation " + kind);
+        }
+
+        void apply(RemoteSet remoteSet) throws GirrException {
+            switch (kind) {
+                case removeRemote:
+                    if (remoteSet.removeRemote(remote) == null)
+                        throw new GirrException("Remote " + remote + " not found");
+                    break;
+                case renameRemote:
+                    find(remoteSet);
+                    if (remoteSet.getRemote(newName) != null)
+                        throw new GirrException("Remote " + newName + " already exists");
+                    remoteSet.renameRemote(remote, newName);
+                    break;
+                case putRemote:
+                    remoteSet.putRemote(new Remote(payload, null));
+                    break;
+                case removeCommandSet:
+                    if (find(remoteSet).removeCommandSet(commandSet) == null)
+                        throw new GirrException("CommandSet " + commandSet + " not found in Remote " + remote);
+                    break;
+                case renameCommandSet: {
+                    Remote r = find(remoteSet);
+                    find(r);
+                    if (r.getCommandSets().containsKey(newName))
+                        throw new GirrException("CommandSet " + newName + " already exists in Remote " + remote);
+                    r.renameCommandSet(commandSet, newName);
+                    break;
+                }
+                case putCommandSet:
+                    find(remoteSet).putCommandSet(new CommandSet(payload));
+                    break;
+                case removeCommand: {
+                    Remote r = find(remoteSet);
+                    if (find(r).removeCommand(command) == null)
+                        throw new GirrException("Command " + command + " not found in CommandSet " + commandSet);
+                    r.markDirty();
+                    break;
+                }
+                case renameCommand: {
+                    Remote r = find(remoteSet);
+                    CommandSet c = find(r);
+                    if (c.getCommand(command) == null)
+                        throw new GirrException("Command " + command + " not found in CommandSet " + commandSet);
+                    if (c.getCommand(newName) != null)
+                        throw new GirrException("Command " + newName + " already exists in CommandSet " + commandSet);
+                    c.renameCommand(command, newName);
+                    r.markDirty();
+                    break;
+                }
+                case putCommand: {
+                    Remote r = find(remoteSet);
+                    find(r).putCommand(new Command(payload));
+                    r.markDirty();
+                    break;
+                }
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+
+        private Remote find(RemoteSet remoteSet) throws GirrException {
+            Remote r = remoteSet.getRemote(remote);
+            if (r == null)
+                throw new GirrException("Remote " + remote + " not found");
+            return r;
+        }
+
+        private CommandSet find(Remote r) throws GirrException {
+            CommandSet c = r.getCommandSets().get(commandSet);
+            if (c == null)
+                throw new GirrException("CommandSet " + commandSet + " not found in Remote " + remote);
+            return c;
+        }
+
+        Element toElement(Document doc, ExportOptions options) {
+            Element element = doc.createElementNS(GIRR_NAMESPACE, kind.name());
+            options.setPrefix(element);
+            setAttribute(element, REMOTE_ATTRIBUTE_NAME, remote);
+            setAttribute(element, COMMANDSET_ATTRIBUTE_NAME, commandSet);
+            setAttribute(element, COMMAND_ATTRIBUTE_NAME, command);
+            setAttribute(element, NEWNAME_ATTRIBUTE_NAME, newName);
+            if (payload != null)
+                element.appendChild(doc.importNode(payload, true));
+            return element;
+        }
+
+        private static void setAttribute(Element element, String name, String value) {
+            if (value != null)
+                element.setAttribute(name, value);
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + Objects.toString(remote, "") + "/" + Objects.toString(commandSet, "") + "/"
+                    + Objects.toString(command, "") + (newName != null ? " -> " + newName : "");
+        }
+    }
+}
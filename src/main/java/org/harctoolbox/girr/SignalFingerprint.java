@@ -0,0 +1,152 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import static org.harctoolbox.girr.Command.TOGGLE_PARAMETER_NAME;
+import org.harctoolbox.ircore.IrSequence;
+import org.harctoolbox.ircore.IrSignal;
+import org.harctoolbox.irp.Protocol;
+
+/**
+ * Canonical, representation independent identification of the signal of a Command,
+ * see {@link Command#getSignalFingerprint()}.
+ * If the signal can be decoded, it consists of the protocol name, in lower case, and the parameters,
+ * completed with the defaults of the protocol, without the toggle, and sorted by name.
+ * Otherwise, it consists of a hash of the frequency, quantized to {@link #FREQUENCY_QUANTUM} Hz,
+ * and the intro, repeat, and ending sequences, with the durations quantized to {@link #DURATION_QUANTUM} microseconds.
+ *
+ * <p>Instances are immutable, and implement equals and hashCode, so they can be used as keys in HashMaps or HashSets.
+ */
+public final class SignalFingerprint {
+
+    public static final int DURATION_QUANTUM = 50;
+    public static final int FREQUENCY_QUANTUM = 1000;
+
+    private static final String RAW_KIND = "raw";
+
+    private final String protocolName;
+    private final Map<String, Long> parameters;
+    private final String rawHash;
+    private final int hashCode;
+
+    /**
+     * @param protocolName name of the protocol the signal was decoded as.
+     * @param protocol the protocol, for the defaults of the parameters; may be null.
+     * @param parameters
+     */
+    SignalFingerprint(String protocolName, Protocol protocol, Map<String, Long> parameters) {
+        this.protocolName = protocolName.toLowerCase(Locale.US);
+        Map<String, Long> map = new TreeMap<>(parameters);
+        if (protocol != null)
+            new InheritedParameters(null, null).getProtocolDefaults(protocolName, protocol).evaluateMissing(parameters).forEach((name, value) -> {
+                if (value != null)
+                    map.put(name, value);
+            });
+        map.remove(TOGGLE_PARAMETER_NAME);
+        this.parameters = Collections.unmodifiableMap(map);
+        this.rawHash = null;
+        this.hashCode = Objects.hash(this.protocolName, this.parameters);
+    }
+
+    /**
+     * @param irSignal signal that could not be decoded.
+     */
+    SignalFingerprint(IrSignal irSignal) {
+        Double frequency = irSignal.getFrequency();
+        String quantizedFrequency = frequency != null ? Long.toString(Math.round(frequency / FREQUENCY_QUANTUM)) : "";
+        String[] sequences = {
+            quantize(irSignal.getIntroSequence()),
+            quantize(irSignal.getRepeatSequence()),
+            quantize(irSignal.getEndingSequence())
+        };
+        this.protocolName = null;
+        this.parameters = null;
+        this.rawHash = ContentHash.combine(RAW_KIND, quantizedFrequency, sequences);
+        this.hashCode = rawHash.hashCode();
+    }
+
+    private static String quantize(IrSequence sequence) {
+        if (sequence == null)
+            return "";
+        StringBuilder str = new StringBuilder(4 * sequence.getLength());
+        for (int i = 0; i < sequence.getLength(); i++) {
+            if (i > 0)
+                str.append(' ');
+            str.append(Math.round(sequence.get(i) / DURATION_QUANTUM));
+        }
+        return str.toString();
+    }
+
+    /**
+     * @return true if the fingerprint is based on a decode, false if on the durations.
+     */
+    public boolean isDecoded() {
+        return protocolName != null;
+    }
+
+    /**
+     * @return protocol name in lower case, or null if not decoded.
+     */
+    public String getProtocolName() {
+        return protocolName;
+    }
+
+    /**
+     * @return unmodifiable, sorted, normalized parameters, or null if not decoded.
+     */
+    public Map<String, Long> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof SignalFingerprint))
+            return false;
+        SignalFingerprint other = (SignalFingerprint) obj;
+        return hashCode == other.hashCode
+                && Objects.equals(protocolName, other.protocolName)
+                && Objects.equals(parameters, other.parameters)
+                && Objects.equals(rawHash, other.rawHash);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * @return for example "nec1 D=12 F=34 S=243", or "raw:" followed by the hash.
+     */
+    @Override
+    public String toString() {
+        if (!isDecoded())
+            return RAW_KIND + ':' + rawHash;
+        StringBuilder str = new StringBuilder(protocolName);
+        parameters.forEach((name, value) -> {
+            str.append(' ').append(name).append('=').append(value);
+        });
+        return str.toString();
+    }
+}
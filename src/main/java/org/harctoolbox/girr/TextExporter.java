@@ -0,0 +1,227 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.harctoolbox.ircore.IrCoreException;
+import org.harctoolbox.irp.IrpException;
+
+/**
+ * Streaming text export of Remotes, walking the model directly, without DOM or XSLT.
+ * The output format is given by a {@link Format}; the predefined formats {@link #RAW} and {@link #PRONTO_HEX}
+ * replace the stylesheets girr2text.xsl and text-ccf.xsl.
+ * Missing forms are generated on demand, and Commands with a toggle are written once for each toggle value.
+ */
+public final class TextExporter {
+
+    private static final Logger logger = Logger.getLogger(TextExporter.class.getName());
+
+    private static final String LINE_SEPARATOR = "\n";
+    private static final String TOGGLE_PARAMETER_NAME = "T";
+
+    /**
+     * Output format of the TextExporter. Only {@link #command(Appendable, Command, Integer)} is mandatory.
+     */
+    public interface Format {
+
+        /**
+         * Called once, before everything else.
+         * @param out
+         * @throws IOException
+         */
+        default void begin(Appendable out) throws IOException {
+        }
+
+        /**
+         * Called before the Commands of every Remote.
+         * @param out
+         * @param remote
+         * @throws IOException
+         */
+        default void beginRemote(Appendable out, Remote remote) throws IOException {
+        }
+
+        /**
+         * Formats a Command.
+         * @param out
+         * @param command
+         * @param T toggle value, or null if the Command has no toggle.
+         * @throws IOException
+         * @throws GirrException
+         * @throws IrpException
+         * @throws IrCoreException
+         */
+        void command(Appendable out, Command command, Integer T) throws IOException, GirrException, IrpException, IrCoreException;
+
+        /**
+         * Called after the Commands of every Remote.
+         * @param out
+         * @param remote
+         * @throws IOException
+         */
+        default void endRemote(Appendable out, Remote remote) throws IOException {
+        }
+
+        /**
+         * Called once, after everything else.
+         * @param out
+         * @throws IOException
+         */
+        default void end(Appendable out) throws IOException {
+        }
+    }
+
+    /**
+     * The name of the Command on one line, followed by the raw signal, like "Freq=38400[+9024 -4512 ...][...][]",
+     * and an empty line. Same format as girr2text.xsl, suitable for IrpTransmogrifier.
+     * The "Freq=" part is left out if the frequency is not known.
+     */
+    public static final Format RAW = (Appendable out, Command command, Integer T) -> {
+        int toggle = T != null ? T : 0;
+        // Getting the sequences first generates the raw form, and with it the frequency, if needed.
+        String intro = nonNull(command.getIntro(toggle));
+        String repeat = nonNull(command.getRepeat(toggle));
+        String ending = nonNull(command.getEnding(toggle));
+        Double frequency = command.knownFrequency();
+        appendName(out, command, T).append(LINE_SEPARATOR);
+        if (frequency != null)
+            out.append("Freq=").append(Long.toString(Math.round(frequency)));
+        out.append('[').append(intro).append(']');
+        out.append('[').append(repeat).append(']');
+        out.append('[').append(ending).append(']');
+        out.append(LINE_SEPARATOR).append(LINE_SEPARATOR);
+    };
+
+    /**
+     * For every Remote a line "Remote name", then, for every Command, an empty line, the name and the parameters,
+     * like "Power (Protocol=NEC1, D=12, F=34)", and the Pronto Hex on one line. Same format as text-ccf.xsl.
+     */
+    public static final Format PRONTO_HEX = new Format() {
+        @Override
+        public void beginRemote(Appendable out, Remote remote) throws IOException {
+            out.append("Remote ").append(remote.getName()).append(LINE_SEPARATOR);
+        }
+
+        @Override
+        public void command(Appendable out, Command command, Integer T) throws IOException, GirrException, IrpException, IrCoreException {
+            String prontoHex = command.getProntoHex(T != null ? T : 0);
+            out.append(LINE_SEPARATOR).append(command.getName());
+            appendParameters(out, command, T);
+            out.append(LINE_SEPARATOR).append(prontoHex).append(LINE_SEPARATOR);
+        }
+
+        @Override
+        public void endRemote(Appendable out, Remote remote) throws IOException {
+            out.append(LINE_SEPARATOR).append(LINE_SEPARATOR);
+        }
+    };
+
+    /**
+     * Makes a Format of a {@link Command.CommandTextFormat}, writing "name: formatted signal" on one line.
+     * @param format
+     * @param repeatCount number of repeats, passed to the CommandTextFormat.
+     * @return new Format
+     */
+    public static Format fromCommandTextFormat(Command.CommandTextFormat format, int repeatCount) {
+        return (Appendable out, Command command, Integer T) -> {
+            String text = format.format(command.toIrSignal(T), repeatCount);
+            appendName(out, command, T).append(": ").append(text).append(LINE_SEPARATOR);
+        };
+    }
+
+    /**
+     * Writes the Remotes in the Format given. Commands that cannot be rendered are logged and skipped.
+     * @param out
+     * @param remotes
+     * @param format
+     * @return number of Commands written, counting every toggle value.
+     * @throws IOException
+     */
+    public static int export(Appendable out, Iterable<Remote> remotes, Format format) throws IOException {
+        int count = 0;
+        format.begin(out);
+        for (Remote remote : remotes) {
+            format.beginRemote(out, remote);
+            for (CommandSet commandSet : remote)
+                for (Command command : commandSet)
+                    count += exportCommand(out, command, format);
+            format.endRemote(out, remote);
+        }
+        format.end(out);
+        return count;
+    }
+
+    /**
+     * Writes a single Remote in the Format given.
+     * @param out
+     * @param remote
+     * @param format
+     * @return number of Commands written, counting every toggle value.
+     * @throws IOException
+     */
+    public static int export(Appendable out, Remote remote, Format format) throws IOException {
+        return export(out, Arrays.asList(remote), format);
+    }
+
+    private static int exportCommand(Appendable out, Command command, Format format) throws IOException {
+        int toggles = command.numberOfToggleValues();
+        int count = 0;
+        for (int T = 0; T < toggles; T++) {
+            try {
+                // Formats may fail halfway, so the output of a Command is collected before written.
+                StringBuilder str = new StringBuilder(256);
+                format.command(str, command, toggles > 1 ? T : null);
+                out.append(str);
+                count++;
+            } catch (GirrException | IrpException | IrCoreException ex) {
+                logger.log(Level.WARNING, "Command {0} could not be rendered: {1}", new Object[]{command.getName(), ex.getLocalizedMessage()});
+            }
+        }
+        return count;
+    }
+
+    private static Appendable appendName(Appendable out, Command command, Integer T) throws IOException {
+        out.append(command.getName());
+        if (T != null)
+            out.append(" (").append(TOGGLE_PARAMETER_NAME).append('=').append(Integer.toString(T)).append(')');
+        return out;
+    }
+
+    static void appendParameters(Appendable out, Command command, Integer T) throws IOException, IrpException, IrCoreException {
+        String protocolName = command.getProtocolName();
+        if (protocolName == null)
+            return;
+        out.append(" (Protocol=").append(protocolName);
+        for (Map.Entry<String, Long> parameter : command.getParameters().entrySet())
+            out.append(", ").append(parameter.getKey()).append('=').append(parameter.getValue().toString());
+        if (T != null)
+            out.append(", ").append(TOGGLE_PARAMETER_NAME).append('=').append(Integer.toString(T));
+        out.append(')');
+    }
+
+    private static String nonNull(String string) {
+        return string != null ? string : "";
+    }
+
+    private TextExporter() {
+    }
+}
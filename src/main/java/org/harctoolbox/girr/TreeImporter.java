@@ -0,0 +1,153 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.harctoolbox.ircore.IrCoreException;
+import org.harctoolbox.ircore.ThisCannotHappenException;
+import org.harctoolbox.irp.IrpException;
+
+/**
+ * Parallel, but ordered, import of all files with a given extension in a directory tree.
+ */
+final class TreeImporter {
+
+    private static final Logger logger = Logger.getLogger(TreeImporter.class.getName());
+
+    interface FileParser {
+        Iterable<Remote> parse(File file) throws IOException, GirrException;
+    }
+
+    /**
+     * Reads all files with the given extension in a directory tree, in alphabetical order,
+     * passing each generated Remote to the handler, in that order.
+     * Files are read, and possibly pre-rendered, in parallel, but at most the Remotes of 2 * threads files are held at the same time.
+     * Files that cannot be read or parsed are logged and skipped.
+     * @param root file or directory.
+     * @param extension file extension, including the period.
+     * @param threads number of threads; 0 for one per available processor.
+     * @param parser
+     * @param preRender Form to compute in advance for all Commands; raw or ccf (Pronto Hex), or parameters for none.
+     * @param handler Receiver of the Remotes.
+     * @return number of Remotes read.
+     * @throws IOException if the handler throws it.
+     */
+    static int importTree(File root, String extension, int threads, FileParser parser, Command.MasterType preRender, RemoteHandler handler) throws IOException {
+        List<File> files = new ArrayList<>(Command.INITIAL_HASHMAP_CAPACITY);
+        collectFiles(root, extension, files);
+        int nThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        int maxPending = 2 * nThreads;
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        Deque<Future<Iterable<Remote>>> pending = new ArrayDeque<>(maxPending);
+        int count = 0;
+        try {
+            for (File file : files) {
+                if (pending.size() >= maxPending)
+                    count += deliver(pending.removeFirst(), handler);
+                pending.addLast(executor.submit(() -> preRender(parse(parser, file), preRender)));
+            }
+            while (!pending.isEmpty())
+                count += deliver(pending.removeFirst(), handler);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+        return count;
+    }
+
+    private static Iterable<Remote> parse(FileParser parser, File file) {
+        try {
+            return parser.parse(file);
+        } catch (IOException | GirrException ex) {
+            logger.log(Level.WARNING, "Could not read file {0}: {1}", new Object[]{file, ex.getMessage()});
+            return Collections.emptyList();
+        }
+    }
+
+    private static int deliver(Future<Iterable<Remote>> future, RemoteHandler handler) throws IOException, InterruptedException {
+        Iterable<Remote> remotes;
+        try {
+            remotes = future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new ThisCannotHappenException(cause);
+        }
+        int count = 0;
+        for (Remote remote : remotes) {
+            handler.handle(remote);
+            count++;
+        }
+        return count;
+    }
+
+    static void collectFiles(File file, String extension, List<File> files) {
+        if (file.isFile() && file.getName().endsWith(extension))
+            files.add(file);
+        else if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null) {
+                logger.log(Level.WARNING, "Could not read directory {0}", file.toString());
+                return;
+            }
+            Arrays.sort(children);
+            for (File child : children)
+                collectFiles(child, extension, files);
+        }
+    }
+
+    private static Iterable<Remote> preRender(Iterable<Remote> remotes, Command.MasterType form) {
+        if (form == Command.MasterType.parameters)
+            return remotes;
+        for (Remote remote : remotes)
+            for (CommandSet commandSet : remote)
+                for (Command command : commandSet) {
+                    try {
+                        for (int T = 0; T < command.numberOfToggleValues(); T++)
+                            if (form == Command.MasterType.raw)
+                                command.getIntro(T);
+                            else
+                                command.getProntoHex(T);
+                    } catch (GirrException | IrpException | IrCoreException ex) {
+                        logger.log(Level.WARNING, "Command {0} could not be rendered: {1}", new Object[]{command.getName(), ex.getLocalizedMessage()});
+                    }
+                }
+        return remotes;
+    }
+
+    private TreeImporter() {
+    }
+}
@@ -23,7 +23,17 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Serializable;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
 import javax.xml.validation.Schema;
 import org.harctoolbox.ircore.IrCoreUtils;
 import org.harctoolbox.ircore.ThisCannotHappenException;
@@ -31,6 +41,7 @@ import org.harctoolbox.xml.XmlUtils;
 import static org.harctoolbox.xml.XmlUtils.DEFAULT_CHARSETNAME;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
 /**
@@ -38,7 +49,10 @@ import org.xml.sax.SAXException;
  */
 public abstract class XmlExporter implements Serializable {
 
-    //private final static Logger logger = Logger.getLogger(XmlExporter.class.getName());
+    private final static Logger logger = Logger.getLogger(XmlExporter.class.getName());
+    private static final String INDENT_AMOUNT_PROPERTY = "{http://xml.apache.org/xslt}indent-amount";
+    private static final int DEFAULT_INDENT_AMOUNT = 4;
+    static final String LINE_SEPARATOR = "\n";
     private static final boolean IS_NAMESPACE_AWARE = true;
     private static final boolean IS_XINCLUDE_AWARE = true;
 
@@ -123,6 +137,81 @@ public abstract class XmlExporter implements Serializable {
     protected XmlExporter() {
     }
 
+    /**
+     * Writes a Document onto the OutputStream, with indentation according to the ExportOptions.
+     * @param ostr
+     * @param doc
+     * @param options
+     */
+    static void printDocument(OutputStream ostr, Document doc, ExportOptions options) {
+        try {
+            if (options.getIndentation() == ExportOptions.DEFAULT_INDENTATION) {
+                XmlUtils.printDOM(ostr, doc, DEFAULT_CHARSETNAME, null);
+                return;
+            }
+
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.METHOD, "xml");
+            transformer.setOutputProperty(OutputKeys.ENCODING, DEFAULT_CHARSETNAME);
+            boolean indent = options.getIndentation() > ExportOptions.NO_INDENTATION;
+            transformer.setOutputProperty(OutputKeys.INDENT, indent ? "yes" : "no");
+            if (indent)
+                transformer.setOutputProperty(INDENT_AMOUNT_PROPERTY, Integer.toString(options.getIndentation()));
+            transformer.transform(new DOMSource(doc), new StreamResult(ostr));
+        } catch (UnsupportedEncodingException | TransformerConfigurationException ex) {
+            throw new ThisCannotHappenException(ex);
+        } catch (TransformerException ex) {
+            logger.log(Level.SEVERE, ex.getMessage());
+        }
+    }
+
+    /**
+     * @param options
+     * @return the number of spaces per level of indentation, with {@link ExportOptions#DEFAULT_INDENTATION} counting as 4.
+     */
+    static int indentAmount(ExportOptions options) {
+        return options.getIndentation() == ExportOptions.DEFAULT_INDENTATION ? DEFAULT_INDENT_AMOUNT : options.getIndentation();
+    }
+
+    static String spaces(int n) {
+        StringBuilder str = new StringBuilder(n);
+        for (int i = 0; i < n; i++)
+            str.append(' ');
+        return str.toString();
+    }
+
+    /**
+     * Serializes an Element, to be inserted as a fragment into a document, without XML declaration.
+     * @param element
+     * @param options
+     * @param indent White space put in front of every line but the first.
+     * @return serialized Element, without leading and trailing white space.
+     */
+    static String serializeFragment(Element element, ExportOptions options, String indent) {
+        try {
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            int amount = indentAmount(options);
+            transformer.setOutputProperty(OutputKeys.INDENT, amount > 0 ? "yes" : "no");
+            if (amount > 0)
+                transformer.setOutputProperty(INDENT_AMOUNT_PROPERTY, Integer.toString(amount));
+            StringWriter writer = new StringWriter();
+            transformer.transform(new DOMSource(element), new StreamResult(writer));
+            return writer.toString().trim().replace(LINE_SEPARATOR, LINE_SEPARATOR + indent);
+        } catch (TransformerException ex) {
+            throw new ThisCannotHappenException(ex);
+        }
+    }
+
+    /**
+     * Convenience function that generates a DOM and dumps it onto the argument.
+     * @param ostr
+     * @param options
+     */
+    public final void print(OutputStream ostr, ExportOptions options) {
+        printDocument(ostr, toDocument(null, options), options);
+    }
+
     /**
      * Convenience function that generates a DOM and dumps it onto the argument.
      * @param ostr
@@ -131,12 +220,18 @@ public abstract class XmlExporter implements Serializable {
      * @param generateRaw
      */
     public final void print(OutputStream ostr, boolean generateProtocol, boolean generateProntoHex, boolean generateRaw) {
-        Document doc = toDocument(null, false, generateProtocol, generateProntoHex, generateRaw);
-        try {
-            XmlUtils.printDOM(ostr, doc, DEFAULT_CHARSETNAME, null);
-        } catch (UnsupportedEncodingException ex) {
-            throw new ThisCannotHappenException(ex);
-        }
+        print(ostr, ExportOptions.fromGlobals(false, generateProtocol, generateProntoHex, generateRaw));
+    }
+
+    /**
+     * Convenience function that generates a DOM and dumps it onto the argument.
+     *
+     * @param file
+     * @param options
+     * @throws java.io.IOException
+     */
+    public final void print(String file, ExportOptions options) throws IOException {
+        print(IrCoreUtils.getPrintStream(file, DEFAULT_CHARSETNAME), options);
     }
 
     /**
@@ -162,6 +257,17 @@ public abstract class XmlExporter implements Serializable {
         print(file, true, true, true);
     }
 
+    /**
+     * Convenience function that generates a DOM and dumps it onto the argument.
+     *
+     * @param file
+     * @param options
+     * @throws java.io.IOException
+     */
+    public final void print(File file, ExportOptions options) throws IOException {
+        print(new FileOutputStream(file), options);
+    }
+
     /**
      * Convenience function that generates a DOM and dumps it onto the argument.
      *
@@ -185,6 +291,42 @@ public abstract class XmlExporter implements Serializable {
         print(file, true, true, true);
     }
 
+    /**
+     * Returns the number of bytes the XML export would occupy, as written by print.
+     * Useful for measuring the effect of different export options, and of optimizations.
+     * @param options
+     * @return size in bytes.
+     */
+    public final long serializedSize(ExportOptions options) {
+        CountingOutputStream counter = new CountingOutputStream();
+        print(counter, options);
+        return counter.count;
+    }
+
+    /**
+     * Returns the number of bytes the XML export would occupy, as written by print.
+     * @param fatRaw
+     * @param generateParameters
+     * @param generateProntoHex
+     * @param generateRaw
+     * @return size in bytes.
+     */
+    public final long serializedSize(boolean fatRaw, boolean generateParameters, boolean generateProntoHex, boolean generateRaw) {
+        return serializedSize(ExportOptions.fromGlobals(fatRaw, generateParameters, generateProntoHex, generateRaw));
+    }
+
+    /**
+     * Generates an XML Document.
+     *
+     * @param title Textual title of document.
+     * @param options
+     * @return W3C Document
+     */
+    public final Document toDocument(String title, ExportOptions options) {
+        Element root = toElement(XmlUtils.newDocument(true), options);
+        return XmlStatic.createDocument(title, root, options);
+    }
+
     /**
      * Generates an XML Document from a RemoteSet.
      *
@@ -201,13 +343,49 @@ public abstract class XmlExporter implements Serializable {
     public final Document toDocument(String title,
             boolean fatRaw,
             boolean generateParameters, boolean generateProntoHex, boolean generateRaw)  {
-        Element root = toElement(XmlUtils.newDocument(true), fatRaw,
-                generateParameters, generateProntoHex, generateRaw);
-        return XmlStatic.createDocument(title, root);
+        return toDocument(title, ExportOptions.fromGlobals(fatRaw, generateParameters, generateProntoHex, generateRaw));
     }
 
     /**
-     * Exports the Object to an Element.
+     * Computes a SHA-256 hash of the XML export, suitable as cache key or ETag.
+     * The hash depends only on the content of the generated Element, not on its serialization,
+     * see {@link #contentHash(Node)}.
+     * For hashes that are stable between runs, use canonical export, see {@link ExportOptions#withCanonical(boolean)}.
+     *
+     * @param options
+     * @return SHA-256 as lower case hexadecimal string.
+     */
+    public final String contentHash(ExportOptions options) {
+        return contentHash(toElement(XmlUtils.newDocument(true), options));
+    }
+
+    /**
+     * Computes a SHA-256 hash of the XML export, using the global settings.
+     *
+     * @param fatRaw
+     * @param generateParameters
+     * @param generateProntoHex
+     * @param generateRaw
+     * @return SHA-256 as lower case hexadecimal string.
+     * @see #contentHash(ExportOptions)
+     */
+    public final String contentHash(boolean fatRaw, boolean generateParameters, boolean generateProntoHex, boolean generateRaw) {
+        return contentHash(ExportOptions.fromGlobals(fatRaw, generateParameters, generateProntoHex, generateRaw));
+    }
+
+    /**
+     * Computes a SHA-256 hash of an already exported DOM Node, for example a Document, or one of its Elements.
+     * Namespace prefixes, namespace declarations, attribute order, comments, and
+     * differences in white space within text are ignored.
+     * @param node
+     * @return SHA-256 as lower case hexadecimal string.
+     */
+    public static String contentHash(Node node) {
+        return ContentHash.sha256(node);
+    }
+
+    /**
+     * Exports the Object to an Element, using the global settings.
      *
      * @param doc Owner Document.
      * @param fatRaw If generating the raw form, generate it in the so-called fat form, with one element per duration.
@@ -216,6 +394,31 @@ public abstract class XmlExporter implements Serializable {
      * @param generateRaw If true, generate the raw form.
      * @return newly constructed element, belonging to the doc Document.
      */
-    abstract Element toElement(Document doc, boolean fatRaw,
-            boolean generateParameters, boolean generateProntoHex, boolean generateRaw);
+    Element toElement(Document doc, boolean fatRaw,
+            boolean generateParameters, boolean generateProntoHex, boolean generateRaw) {
+        return toElement(doc, ExportOptions.fromGlobals(fatRaw, generateParameters, generateProntoHex, generateRaw));
+    }
+
+    /**
+     * Exports the Object to an Element.
+     *
+     * @param doc Owner Document.
+     * @param options
+     * @return newly constructed element, belonging to the doc Document.
+     */
+    abstract Element toElement(Document doc, ExportOptions options);
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count = 0L;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
 }
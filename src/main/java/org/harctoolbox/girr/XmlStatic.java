@@ -18,10 +18,14 @@ this program. If not, see http://www.gnu.org/licenses/.
 package org.harctoolbox.girr;
 
 import java.io.InputStream;
-import java.util.HashMap;
+import java.io.Reader;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import static javax.xml.XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI;
 import static javax.xml.XMLConstants.XMLNS_ATTRIBUTE;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.validation.Schema;
 import org.harctoolbox.xml.XmlUtils;
 import static org.harctoolbox.xml.XmlUtils.ENGLISH;
@@ -74,6 +78,24 @@ public abstract class XmlStatic {
      * Location of schema file (namespace version) in jar.
      */
     public static final String GIRR_SCHEMA_LOCATION_JAR = "/girr_ns-"  + GIRR_VERSION + ".xsd";
+
+    /**
+     * Version of the Girr specification introducing the compact raw encoding.
+     * Documents using that encoding claim this version; others still claim GIRR_VERSION.
+     */
+    public static final String GIRR_COMPACT_RAW_VERSION = "1.3";
+
+    /**
+     * URL for schema file supporting the compact raw encoding.
+     */
+    public static final String GIRR_COMPACT_RAW_SCHEMA_LOCATION_URI = "https://www.harctoolbox.org/schemas/girr_ns-"  + GIRR_COMPACT_RAW_VERSION + ".xsd";
+
+    /**
+     * Location of schema file supporting the compact raw encoding in jar.
+     * Also accepts documents of version GIRR_VERSION.
+     */
+    public static final String GIRR_COMPACT_RAW_SCHEMA_LOCATION_JAR = "/girr_ns-"  + GIRR_COMPACT_RAW_VERSION + ".xsd";
+
     /**
      * Comment string pointing to Girr docu.
      */
@@ -104,6 +126,7 @@ public abstract class XmlStatic {
     public static final String TOOLVERSIION_ATTRIBUTE_NAME = "toolVersion";
     public static final String TOOL2_ATTRIBUTE_NAME        = "tool2";
     public static final String TOOL2VERSION_ATTRIBUTE_NAME = "tool2Version";
+    public static final String ENCODING_ATTRIBUTE_NAME     = "encoding";
 
     // Element names in Girr files.
     public static final String PRONTO_HEX_ELEMENT_NAME     = "ccf";
@@ -130,11 +153,16 @@ public abstract class XmlStatic {
     public static final String SPACE                       = " ";
     public static final String EQUALS                      = "=";
 
+    // Values of the encoding attribute of intro, repeat, and ending.
+    public static final String BASE64_VARINT_ENCODING      = "base64-varint";
+
     private static String stylesheetType                   = null;
     private static String stylesheetUrl                    = null;
 
     private static String girrNSPrefix                     = null;
 
+    private static boolean canonical                       = false;
+
     /**
      * @param aStylesheetType the stylesheetType to set
      */
@@ -153,6 +181,33 @@ public abstract class XmlStatic {
         girrNSPrefix = prefix;
     }
 
+    /**
+     * If set to true, the export is canonical, i.e., byte stable:
+     * Notes, parameters, application data, and other formats are written sorted by their keys
+     * (instead of the order of the, possibly hashed, maps),
+     * and raw sequences are written with normalized white space and integer durations.
+     * @param val
+     */
+    public static void setCanonical(boolean val) {
+        canonical = val;
+    }
+
+    public static boolean isCanonical() {
+        return canonical;
+    }
+
+    static String getStylesheetType() {
+        return stylesheetType;
+    }
+
+    static String getStylesheetUrl() {
+        return stylesheetUrl;
+    }
+
+    static String getGirrNSPrefix() {
+        return girrNSPrefix;
+    }
+
     public static void setPrefix(Node node) {
         if (girrNSPrefix != null)
            node.setPrefix(girrNSPrefix);
@@ -165,13 +220,16 @@ public abstract class XmlStatic {
      * @param root Element to transfer
      * @return
      */
-    static Document createDocument(String title, Element root) {
+    static Document createDocument(String title, Element root, ExportOptions options) {
         Document document = root.getOwnerDocument();
+        String type = options.getStylesheetType();
+        String url = options.getStylesheetUrl();
+        String nsPrefix = options.getPrefix();
 
-        if (stylesheetType != null && !stylesheetType.isEmpty()
-                && stylesheetUrl != null && !stylesheetUrl.isEmpty()) {
+        if (type != null && !type.isEmpty()
+                && url != null && !url.isEmpty()) {
             ProcessingInstruction pi = document.createProcessingInstruction("xml-stylesheet",
-                    "type=\"text/" + stylesheetType + "\" href=\"" + stylesheetUrl + "\"");
+                    "type=\"text/" + type + "\" href=\"" + url + "\"");
             document.appendChild(pi);
         }
 
@@ -183,18 +241,19 @@ public abstract class XmlStatic {
         Comment comment = document.createComment(GIRR_COMMENT);
         document.appendChild(comment);
         document.appendChild(root);
-        root.setAttribute(GIRR_VERSION_ATTRIBUTE_NAME, GIRR_VERSION);
+        boolean compact = options.isCompactRaw();
+        root.setAttribute(GIRR_VERSION_ATTRIBUTE_NAME, compact ? GIRR_COMPACT_RAW_VERSION : GIRR_VERSION);
         root.setAttribute(W3C_SCHEMA_NAMESPACE_ATTRIBUTE_NAME, W3C_XML_SCHEMA_INSTANCE_NS_URI);
-        root.setAttribute(XMLNS_ATTRIBUTE + (girrNSPrefix != null ? ':' + girrNSPrefix : ""), GIRR_NAMESPACE);
+        root.setAttribute(XMLNS_ATTRIBUTE + (nsPrefix != null ? ':' + nsPrefix : ""), GIRR_NAMESPACE);
         root.setAttribute(HTML_NAMESPACE_ATTRIBUTE_NAME, HTML_NAMESPACE_URI);
-        root.setAttribute(SCHEMA_LOCATION_ATTRIBUTE_NAME, GIRR_NAMESPACE + " " + GIRR_SCHEMA_LOCATION_URI);
+        root.setAttribute(SCHEMA_LOCATION_ATTRIBUTE_NAME, GIRR_NAMESPACE + " " + (compact ? GIRR_COMPACT_RAW_SCHEMA_LOCATION_URI : GIRR_SCHEMA_LOCATION_URI));
         if (title != null && ! title.isEmpty())
             root.setAttribute(TITLE_ATTRIBUTE_NAME, title);
         return document;
     }
 
     static Map<String, String> parseElementsByLanguage(NodeList nodeList) {
-        Map<String, String> map = new HashMap<>(nodeList.getLength());
+        Map<String, String> map = new LinkedHashMap<>(nodeList.getLength());
         for (int i = 0; i < nodeList.getLength(); i++) {
             Element note = (Element) nodeList.item(i);
             String lang = note.getAttribute(XML_LANG_ATTRIBUTE_NAME);
@@ -206,10 +265,32 @@ public abstract class XmlStatic {
     }
 
     static Schema girrSchema() throws SAXException {
-        InputStream stream = XmlStatic.class.getResourceAsStream(GIRR_SCHEMA_LOCATION_JAR);
+        return girrSchema(false);
+    }
+
+    /**
+     * @param compactRaw if true, the schema of version GIRR_COMPACT_RAW_VERSION, allowing the compact raw form,
+     * otherwise the one of version GIRR_VERSION.
+     */
+    static Schema girrSchema(boolean compactRaw) throws SAXException {
+        InputStream stream = XmlStatic.class.getResourceAsStream(compactRaw ? GIRR_COMPACT_RAW_SCHEMA_LOCATION_JAR : GIRR_SCHEMA_LOCATION_JAR);
         return XmlUtils.readSchema(stream);
     }
 
+    /**
+     * Creates a streaming reader for foreign XML formats, with DTDs and external entities disabled.
+     * @param reader
+     * @return new XMLStreamReader
+     * @throws XMLStreamException
+     */
+    static XMLStreamReader createXmlStreamReader(Reader reader) throws XMLStreamException {
+        // XMLInputFactory is not guaranteed to be thread safe, so it is not shared.
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory.createXMLStreamReader(reader);
+    }
+
     private XmlStatic() {
     }
 }
@@ -0,0 +1,212 @@
+/*
+Copyright (C) 2026 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.girr;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import org.harctoolbox.ircore.ThisCannotHappenException;
+import org.xml.sax.SAXException;
+
+/**
+ * Application of XSLT stylesheets, like the bundled simplehtml.xsl or girr2text.xsl, to Girr data.
+ * Every stylesheet is compiled only once into a (thread safe) Templates, which is then cached.
+ * The transformation is fed directly from the model, without serializing and parsing a file.
+ */
+public final class XsltTransformer {
+
+    private static final Logger logger = Logger.getLogger(XsltTransformer.class.getName());
+
+    private static final Map<String, Templates> templatesCache = new HashMap<>(Command.INITIAL_HASHMAP_CAPACITY);
+
+    /**
+     * Returns the compiled form of a stylesheet on the class path, like "simplehtml.xsl".
+     * @param resourceName
+     * @return Templates, compiled only at the first call.
+     * @throws GirrException if the resource does not exist, or cannot be compiled.
+     */
+    public static synchronized Templates getTemplates(String resourceName) throws GirrException {
+        String name = resourceName.startsWith("/") ? resourceName : "/" + resourceName;
+        Templates templates = templatesCache.get(name);
+        if (templates == null) {
+            URL url = XsltTransformer.class.getResource(name);
+            if (url == null)
+                throw new GirrException("Stylesheet " + resourceName + " not found");
+            try (InputStream stream = url.openStream()) {
+                templates = compile(new StreamSource(stream, url.toString()));
+            } catch (IOException ex) {
+                throw new GirrException(ex);
+            }
+            templatesCache.put(name, templates);
+        }
+        return templates;
+    }
+
+    /**
+     * Returns the compiled form of a stylesheet file. It is compiled again if the file has been modified.
+     * @param stylesheet
+     * @return Templates
+     * @throws GirrException if the file cannot be compiled.
+     */
+    public static synchronized Templates getTemplates(File stylesheet) throws GirrException {
+        String key = stylesheet.getAbsolutePath() + "@" + stylesheet.lastModified();
+        Templates templates = templatesCache.get(key);
+        if (templates == null) {
+            templates = compile(new StreamSource(stylesheet));
+            templatesCache.put(key, templates);
+        }
+        return templates;
+    }
+
+    /**
+     * Removes all compiled stylesheets from the cache.
+     */
+    public static synchronized void clearCache() {
+        templatesCache.clear();
+    }
+
+    private static Templates compile(Source source) throws GirrException {
+        try {
+            return TransformerFactory.newInstance().newTemplates(source);
+        } catch (TransformerException ex) {
+            throw new GirrException(ex);
+        }
+    }
+
+    /**
+     * Transforms a RemoteSet, Remote, CommandSet, or Command.
+     * @param exporter
+     * @param options ExportOptions for generating the input of the transformation.
+     * @param templates
+     * @param result
+     * @throws GirrException if the transformation fails.
+     */
+    public static void transform(XmlExporter exporter, ExportOptions options, Templates templates, Result result) throws GirrException {
+        transform(new DOMSource(exporter.toDocument(null, options)), templates, result);
+    }
+
+    /**
+     * Transforms a RemoteSet, Remote, CommandSet, or Command onto an OutputStream.
+     * @param exporter
+     * @param options ExportOptions for generating the input of the transformation.
+     * @param templates
+     * @param ostr
+     * @throws GirrException if the transformation fails.
+     */
+    public static void transform(XmlExporter exporter, ExportOptions options, Templates templates, OutputStream ostr) throws GirrException {
+        transform(exporter, options, templates, new StreamResult(ostr));
+    }
+
+    private static void transform(Source source, Templates templates, Result result) throws GirrException {
+        try {
+            templates.newTransformer().transform(source, result);
+        } catch (TransformerException ex) {
+            throw new GirrException(ex);
+        }
+    }
+
+    /**
+     * Transforms all files with a given extension in a directory tree, using a pool of threads.
+     * The results are written to the output directory, with the same relative path, but with the output extension.
+     * Files that cannot be read or transformed are logged and skipped.
+     * @param root input file or directory.
+     * @param extension file extension of the input files, including the period, for example ".girr".
+     * @param outputDirectory
+     * @param outputExtension file extension of the output files, including the period, for example ".html".
+     * @param templates
+     * @param threads number of threads; 0 for one per available processor.
+     * @return number of files successfully transformed.
+     * @throws IOException if the output directory cannot be created.
+     */
+    public static int transformTree(File root, String extension, File outputDirectory, String outputExtension, Templates templates, int threads) throws IOException {
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+            throw new IOException("Cannot create directory " + outputDirectory);
+        List<File> files = new ArrayList<>(Command.INITIAL_HASHMAP_CAPACITY);
+        TreeImporter.collectFiles(root, extension, files);
+        String rootPath = root.isDirectory() ? root.getAbsolutePath() : root.getAbsoluteFile().getParent();
+        int nThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>(files.size());
+            for (File file : files) {
+                String relative = file.getAbsolutePath().substring(rootPath.length() + 1);
+                File output = new File(outputDirectory, relative.substring(0, relative.length() - extension.length()) + outputExtension);
+                futures.add(executor.submit(() -> transformFile(file, output, templates)));
+            }
+            int count = 0;
+            for (Future<Boolean> future : futures)
+                if (future.get())
+                    count++;
+            return count;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Transformation interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new ThisCannotHappenException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean transformFile(File input, File output, Templates templates) {
+        File parent = output.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            logger.log(Level.WARNING, "Cannot create directory {0}", parent);
+            return false;
+        }
+        try (OutputStream ostr = new BufferedOutputStream(new FileOutputStream(output))) {
+            // Parse to DOM, so that XInclude, for example of split RemoteSets, is resolved.
+            DOMSource source = new DOMSource(XmlExporter.getElement(input).getOwnerDocument(), input.toURI().toString());
+            transform(source, templates, new StreamResult(ostr));
+            return true;
+        } catch (IOException | SAXException | GirrException ex) {
+            logger.log(Level.WARNING, "{0}: {1}", new Object[]{input, ex.getMessage()});
+            return false;
+        }
+    }
+
+    private XsltTransformer() {
+    }
+}
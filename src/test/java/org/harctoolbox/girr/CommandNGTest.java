@@ -25,6 +25,8 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
 @SuppressWarnings("UseOfSystemOutOrSystemErr")
@@ -566,6 +568,48 @@ public class CommandNGTest {
         assertFileEqualContent(file);
     }
 
+    /**
+     * Test of the compact raw form, export and import.
+     * @throws org.harctoolbox.girr.GirrException
+     * @throws org.harctoolbox.ircore.IrCoreException
+     * @throws org.harctoolbox.irp.IrpException
+     */
+    @Test
+    public void testCompactRaw() throws GirrException, IrCoreException, IrpException {
+        System.out.println("compactRaw");
+        Command.setUseCompactRaw(true);
+        Document doc;
+        try {
+            doc = nec1_12_34_56_irSignal.toDocument(null, false, false, false, true);
+        } finally {
+            Command.setUseCompactRaw(false);
+        }
+        assertEquals(doc.getDocumentElement().getAttribute("girrVersion"), XmlStatic.GIRR_COMPACT_RAW_VERSION);
+        Element intro = (Element) doc.getElementsByTagNameNS(XmlStatic.GIRR_NAMESPACE, XmlStatic.INTRO_ELEMENT_NAME).item(0);
+        assertEquals(intro.getAttribute(XmlStatic.ENCODING_ATTRIBUTE_NAME), XmlStatic.BASE64_VARINT_ENCODING);
+        assertTrue(intro.getTextContent().length() < NEC1_12_34_56_INTRO.length());
+        Command command = new Command(doc.getDocumentElement());
+        assertEquals(command.getIntro(), NEC1_12_34_56_INTRO);
+        assertEquals(command.getRepeat(), NEC1_REPEAT);
+    }
+
+    /**
+     * Test of the compact raw form with sequences that cannot be encoded without loss.
+     */
+    @Test
+    public void testCompactRawLossy() {
+        System.out.println("compactRawLossy");
+        assertEquals(CompactRaw.decode(CompactRaw.encode("+9024 -4512.0 564 -564")), "+9024 -4512 +564 -564");
+        String[] erroneous = { "+9024 -4512.5", "+9024 +4512", "-9024 -4512" };
+        for (String sequence : erroneous) {
+            try {
+                CompactRaw.encode(sequence);
+                fail(sequence);
+            } catch (NumberFormatException ex) {
+            }
+        }
+    }
+
     @Test
     public void testConstructorWithAlias() throws GirrException, IrpException, IrCoreException {
         System.out.println("constructorWithAlias");
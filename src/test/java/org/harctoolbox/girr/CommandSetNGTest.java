@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import static org.harctoolbox.girr.CommandNGTest.OUTDIR;
 import org.harctoolbox.ircore.IrCoreException;
@@ -208,8 +209,12 @@ public class CommandSetNGTest {
         CommandSet cs = new CommandSet("src/test/girr/tv_template.girr");
         assertEquals(cs.getNumberOfCommand(), 0);
         Command.setAcceptEmptyCommands(true);
-        cs = new CommandSet("src/test/girr/tv_template.girr");
-        assertEquals(cs.getNumberOfCommand(), 25);
+        try {
+            cs = new CommandSet("src/test/girr/tv_template.girr");
+            assertEquals(cs.getNumberOfCommand(), 25);
+        } finally {
+            Command.setAcceptEmptyCommands(false);
+        }
     }
 
     // See https://github.com/bengtmartensson/IrScrutinizer/issues/539
@@ -234,4 +239,47 @@ public class CommandSetNGTest {
             assertEquals(kvp.getValue(), name.equals("D") ? appleDefaultD : expectedParameters.get(name));
         }
     }
+
+    private static CommandSet mkOutlierFirst() throws Exception {
+        Map<String, Command> commands = new LinkedHashMap<>(8);
+        commands.put("outlier", new Command("outlier", null, "NEC1", new NameEngine("{D=1,F=1}").toMap()));
+        for (int i = 1; i <= 4; i++) {
+            String name = "cmd" + i;
+            commands.put(name, new Command(name, null, "NEC1", new NameEngine("{D=12,F=" + i + "}").toMap()));
+        }
+        return new CommandSet("cmdSet", null, commands, null, null);
+    }
+
+    /**
+     * Test of generateInheritanceParameters and the optimizer.
+     * @throws Exception
+     */
+    @Test
+    public void testOptimizeInheritance() throws Exception {
+        System.out.println("optimizeInheritance");
+        CommandSet cmdSet = mkOutlierFirst();
+        Document doc = cmdSet.toDocument("cmdSet", new ExportOptions().withGenerateProntoHex(false).withGenerateRaw(false).withOptimizeInheritance(true));
+        // One for the CommandSet, one for the outlier
+        assertEquals(doc.getElementsByTagNameNS(XmlStatic.GIRR_NAMESPACE, XmlStatic.PARAMETERS_ELEMENT_NAME).getLength(), 2);
+        CommandSet cs = new CommandSet(doc);
+        assertEquals(cs.getCommand("outlier").getParameters().get("D"), Long.valueOf(1L));
+        assertEquals(cs.getCommand("cmd3").getParameters().get("D"), Long.valueOf(12L));
+        assertEquals(cs.getCommand("cmd3").getParameters().get("F"), Long.valueOf(3L));
+        // Export must not change the CommandSet
+        assertEquals(cmdSet.toString(), "cmdSet:  (5 commands)");
+
+        Remote remote = new Remote(mkOutlierFirst());
+        long saved = remote.optimizeInheritance(0, false, true, false, false);
+        assertTrue(saved > 0);
+        assertEquals(remote.getCommandSets().size(), 1);
+
+        assertEquals(remote.splitForInheritance(2), 1);
+        assertEquals(remote.getCommandSets().size(), 2);
+        // The first group keeps the name, the remaining Commands come last
+        assertEquals(remote.getCommandSet("cmdSet").size(), 4);
+        assertNull(remote.getCommandSet("cmdSet").getCommand("outlier"));
+        assertEquals(remote.getCommandSet("cmdSet_1").size(), 1);
+        assertEquals(remote.getCommandSet("cmdSet_1").getCommand("outlier").getName(), "outlier");
+        assertEquals(remote.getCommandSets().keySet().iterator().next(), "cmdSet");
+    }
 }
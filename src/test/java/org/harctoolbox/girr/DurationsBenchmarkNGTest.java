@@ -0,0 +1,82 @@
+package org.harctoolbox.girr;
+
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+/**
+ * Micro benchmark comparing the Durations scanner and formatter with the
+ * split/regex/substring code previously used for raw sequences.
+ * In the group "benchmark", which is excluded from the default test run; run with
+ * <pre>mvn test -Dtest=DurationsBenchmarkNGTest -DexcludedGroups=none -Dgroups=benchmark</pre>
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class DurationsBenchmarkNGTest {
+
+    private static final String SEQUENCE = "+9024 -4512 +564 -564 +564 -564 +564 -1692 +564 -1692 +564 -564 +564 -564 +564 -564 +564 -564 +564 -564 +564 -1692 +564 -564 +564 -564 +564 -564 +564 -1692 +564 -564 +564 -564 +564 -564 +564 -564 +564 -564 +564 -1692 +564 -1692 +564 -1692 +564 -564 +564 -564 +564 -1692 +564 -1692 +564 -1692 +564 -564 +564 -564 +564 -564 +564 -1692 +564 -1692 +564 -44268";
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 200000;
+
+    private static double run(String title, Task task) {
+        long sink = 0L;
+        for (int i = 0; i < WARMUP; i++)
+            sink += task.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            sink += task.run();
+        double nsPerOp = ((double) (System.nanoTime() - start)) / ITERATIONS;
+        System.out.println(String.format("%-36s %8.1f ns/op (%d)", title, nsPerOp, sink));
+        return nsPerOp;
+    }
+
+    // This is the code of Command.insertFatElements, before the Durations class.
+    private static String[] legacySplit(String sequence) {
+        String[] durations = sequence.split(XmlStatic.SPACE);
+        for (int i = 0; i < durations.length; i++)
+            durations[i] = durations[i].replaceAll("[\\+-]", "");
+        return durations;
+    }
+
+    private static long scan(String sequence) {
+        long sum = 0L;
+        Durations.Scanner scanner = new Durations.Scanner(sequence);
+        while (scanner.next())
+            sum += scanner.end() - scanner.start();
+        return sum;
+    }
+
+    // This is the code of Command.parseSequence, as in the lean form.
+    private static String legacyFormat(String[] durations) {
+        StringBuilder str = new StringBuilder(64);
+        for (int i = 0; i < durations.length; i++)
+            str.append(i % 2 == 0 ? " +" : " -").append(durations[i]);
+        return str.substring(1);
+    }
+
+    private static String normalize(String sequence) {
+        return Durations.normalize(sequence);
+    }
+
+    @Test(groups = "benchmark")
+    public void testTokenize() {
+        System.out.println("tokenize");
+        long digits = 0L;
+        for (String duration : legacySplit(SEQUENCE))
+            digits += duration.length();
+        assertEquals(scan(SEQUENCE), digits);
+        run("tokenize, split + replaceAll", () -> legacySplit(SEQUENCE).length);
+        run("tokenize, Durations.Scanner", () -> scan(SEQUENCE));
+    }
+
+    @Test(groups = "benchmark")
+    public void testFormat() {
+        System.out.println("format");
+        String[] fat = legacySplit(SEQUENCE);
+        assertEquals(normalize(SEQUENCE), legacyFormat(fat));
+        run("format, StringBuilder + substring", () -> legacyFormat(fat).length());
+        run("format, Durations.normalize", () -> normalize(SEQUENCE).length());
+    }
+
+    private interface Task {
+        long run();
+    }
+}
@@ -0,0 +1,107 @@
+package org.harctoolbox.girr;
+
+import static org.harctoolbox.girr.XmlStatic.FLASH_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.GAP_ELEMENT_NAME;
+import static org.harctoolbox.girr.XmlStatic.GIRR_NAMESPACE;
+import static org.harctoolbox.girr.XmlStatic.INTRO_ELEMENT_NAME;
+import org.harctoolbox.xml.XmlUtils;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class DurationsNGTest {
+
+    private static final String NEC1_REPEAT = "+9024 -2256 +564 -96156";
+
+    public DurationsNGTest() {
+    }
+
+    /**
+     * Test of the Scanner class.
+     */
+    @Test
+    public void testScanner() {
+        System.out.println("scanner");
+        Durations.Scanner scanner = new Durations.Scanner(" \n+9024\t-2256 564   96155.5 ");
+        long[] expected = { 9024L, 2256L, 564L, 96156L };
+        int[] expectedSigns = { 1, -1, 0, 0 };
+        for (int i = 0; i < expected.length; i++) {
+            assertTrue(scanner.next());
+            assertEquals(scanner.index(), i);
+            assertEquals(scanner.magnitude(), expected[i]);
+            assertEquals(scanner.sign(), expectedSigns[i]);
+        }
+        assertFalse(scanner.next());
+        assertFalse(scanner.reset("   ").next());
+
+        scanner = new Durations.Scanner("+1 -2 +3".toCharArray(), 3, 5);
+        assertTrue(scanner.next());
+        assertEquals(scanner.magnitude(), 2L);
+    }
+
+    /**
+     * Test of the Scanner class, erroneous input.
+     */
+    @Test
+    public void testScannerError() {
+        System.out.println("scannerError");
+        String[] erroneous = { "+9024 -22x56", "+", "1.2.3", ".", "--1" };
+        for (String s : erroneous) {
+            Durations.Scanner scanner = new Durations.Scanner(s);
+            try {
+                while (scanner.next()) {
+                }
+                fail(s);
+            } catch (NumberFormatException ex) {
+            }
+        }
+    }
+
+    /**
+     * Test of appendSigned method, of class Durations.
+     */
+    @Test
+    public void testAppendSigned() {
+        System.out.println("appendSigned");
+        StringBuilder str = new StringBuilder(32);
+        Durations.Scanner scanner = new Durations.Scanner("9024 2256 564 96156");
+        while (scanner.next())
+            Durations.appendSigned(str, scanner.index() % 2 == 0, scanner.magnitude());
+        assertEquals(str.toString(), NEC1_REPEAT);
+    }
+
+    /**
+     * Test of normalize method, of class Durations.
+     */
+    @Test
+    public void testNormalize() {
+        System.out.println("normalize");
+        assertEquals(Durations.normalize("  9024\t-2256.0\n+563.7   96156 "), NEC1_REPEAT);
+        assertEquals(Durations.normalize(NEC1_REPEAT), NEC1_REPEAT);
+        assertEquals(Durations.normalize(""), "");
+    }
+
+    private static Element fatSequence(String... durations) {
+        Document doc = XmlUtils.newDocument(true);
+        Element element = doc.createElementNS(GIRR_NAMESPACE, INTRO_ELEMENT_NAME);
+        for (int i = 0; i < durations.length; i++) {
+            Element el = doc.createElementNS(GIRR_NAMESPACE, i % 2 == 0 ? FLASH_ELEMENT_NAME : GAP_ELEMENT_NAME);
+            el.setTextContent(durations[i]);
+            element.appendChild(el);
+        }
+        return element;
+    }
+
+    /**
+     * Test of the fat form in parseSequence method, of class Command.
+     */
+    @Test
+    public void testParseFatSequence() {
+        System.out.println("parseFatSequence");
+        // The durations are taken verbatim, without rounding or checking.
+        assertEquals(Command.parseSequence(fatSequence("9024", "2256", "564", "96156")), NEC1_REPEAT);
+        assertEquals(Command.parseSequence(fatSequence("9024", "2256", "563.7", "96156")), "+9024 -2256 +563.7 -96156");
+    }
+}
@@ -0,0 +1,105 @@
+package org.harctoolbox.girr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class ExportOptionsNGTest {
+
+    private final Remote sonyRemote;
+
+    public ExportOptionsNGTest() throws GirrException, IOException, SAXException {
+        sonyRemote = new Remote("src/test/girr/sony_tv.girr");
+    }
+
+    private static String print(XmlExporter exporter, ExportOptions options) {
+        ByteArrayOutputStream ostr = new ByteArrayOutputStream();
+        exporter.print(ostr, options);
+        return new String(ostr.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test that the default options give the same result as the legacy boolean arguments.
+     */
+    @Test
+    public void testDefaults() {
+        System.out.println("defaults");
+        ExportOptions options = new ExportOptions();
+        assertEquals(options, ExportOptions.fromGlobals(false, true, true, true));
+        assertEquals(sonyRemote.contentHash(options), sonyRemote.contentHash(false, true, true, true));
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        sonyRemote.print(legacy, true, true, true);
+        assertEquals(print(sonyRemote, options), new String(legacy.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test that the with methods do not modify the original.
+     */
+    @Test
+    public void testImmutable() {
+        System.out.println("immutable");
+        ExportOptions options = new ExportOptions();
+        ExportOptions fat = options.withFatRaw(true);
+        assertFalse(options.isFatRaw());
+        assertTrue(fat.isFatRaw());
+        assertNotEquals(fat, options);
+        assertEquals(fat.withFatRaw(false), options);
+        assertEquals(fat.withFatRaw(false).hashCode(), options.hashCode());
+        try {
+            options.withThreads(-1);
+            fail();
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    /**
+     * Test of withPrefix, independently of the global setting.
+     */
+    @Test
+    public void testPrefix() {
+        System.out.println("prefix");
+        Document doc = sonyRemote.toDocument("title", new ExportOptions().withPrefix("g"));
+        Element root = doc.getDocumentElement();
+        assertEquals(root.getPrefix(), "g");
+        assertEquals(root.getLocalName(), XmlStatic.REMOTE_ELEMENT_NAME);
+        assertEquals(sonyRemote.toDocument("title", new ExportOptions()).getDocumentElement().getPrefix(), null);
+    }
+
+    /**
+     * Test of withIndentation.
+     */
+    @Test
+    public void testIndentation() {
+        System.out.println("indentation");
+        ExportOptions options = new ExportOptions();
+        String indented = print(sonyRemote, options.withIndentation(4));
+        String unindented = print(sonyRemote, options.withIndentation(ExportOptions.NO_INDENTATION));
+        assertTrue(unindented.length() < indented.length());
+        assertTrue(indented.contains("\n    <"));
+        assertEquals(sonyRemote.serializedSize(options.withIndentation(ExportOptions.NO_INDENTATION)),
+                unindented.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    /**
+     * Test of withOtherFormats.
+     * @throws org.harctoolbox.girr.GirrException
+     */
+    @Test
+    public void testOtherFormats() throws GirrException {
+        System.out.println("otherFormats");
+        Command command = new Command("cmd", null, "0000 006C 0022 0002 015B 00AD 0016 0016 0016 0016 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0041 0016 06A4 015B 0057 0016 0E6C");
+        command.addFormat("foo", "bar");
+        command.addFormat("baz", "quux");
+        ExportOptions options = new ExportOptions();
+        assertEquals(command.toDocument("title", options).getElementsByTagName(XmlStatic.FORMAT_ELEMENT_NAME).getLength(), 2);
+        assertEquals(command.toDocument("title", options.withOtherFormats(Collections.singleton("foo"))).getElementsByTagName(XmlStatic.FORMAT_ELEMENT_NAME).getLength(), 1);
+        assertEquals(command.toDocument("title", options.withOtherFormats(Collections.emptySet())).getElementsByTagName(XmlStatic.FORMAT_ELEMENT_NAME).getLength(), 0);
+    }
+}
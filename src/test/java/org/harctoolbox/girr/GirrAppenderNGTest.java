@@ -0,0 +1,102 @@
+package org.harctoolbox.girr;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import static org.harctoolbox.girr.CommandNGTest.OUTDIR;
+import static org.testng.Assert.*;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class GirrAppenderNGTest {
+
+    private static final String NEC1_PRONTO = "0000 006C 0022 0002 015B 00AD 0016 0016 0016 0016 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0041 0016 06A4 015B 0057 0016 0E6C";
+
+    private File file;
+
+    @BeforeClass
+    public void setUpClass() throws Exception {
+        CommandNGTest.assertOutDirExists();
+    }
+
+    private File freshCopy() throws IOException {
+        file = new File(OUTDIR, "appended.girr");
+        Files.copy(new File("src/test/girr/marco.girr").toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    /**
+     * Test of appendRemote method, of class GirrAppender.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testAppendRemote() throws Exception {
+        System.out.println("appendRemote");
+        freshCopy();
+        Remote sony = new Remote("src/test/girr/sony_tv.girr");
+        ExportOptions options = new ExportOptions();
+        GirrAppender.appendRemote(file, sony, options);
+        RemoteSet result = new RemoteSet(file);
+        assertEquals(result.size(), 2);
+        assertEquals(result.getRemote(sony.getName()).contentHash(options), sony.contentHash(options));
+        assertNotNull(result.getRemote("ac_remote"));
+        assertEquals(OUTDIR.listFiles((dir, name) -> name.endsWith(".tmp")).length, 0);
+    }
+
+    /**
+     * Test of appendCommand method, of class GirrAppender.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testAppendCommand() throws Exception {
+        System.out.println("appendCommand");
+        freshCopy();
+        int before = new RemoteSet(file).getRemote("ac_remote").getCommandSets().get("commandSet").size();
+        Command command = new Command("appended", null, NEC1_PRONTO);
+        GirrAppender.appendCommand(file, "commandSet", command, new ExportOptions());
+        CommandSet commandSet = new RemoteSet(file).getRemote("ac_remote").getCommandSets().get("commandSet");
+        assertEquals(commandSet.size(), before + 1);
+        assertEquals(commandSet.getCommand("appended").getProtocolName(), "NEC1");
+    }
+
+    /**
+     * Test of appendCommand method, of class GirrAppender, with a non-existing CommandSet.
+     * @throws org.harctoolbox.girr.GirrException
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testAppendCommandNotFound() throws GirrException, IOException {
+        System.out.println("appendCommandNotFound");
+        freshCopy();
+        long length = file.length();
+        Command command = new Command("appended", null, NEC1_PRONTO);
+        try {
+            GirrAppender.appendCommand(file, "nonexisting", command, new ExportOptions());
+            fail();
+        } catch (GirrException ex) {
+        }
+        assertEquals(file.length(), length);
+    }
+
+    /**
+     * Test that appending preserves the permissions of the file.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testPermissions() throws Exception {
+        System.out.println("permissions");
+        freshCopy();
+        if (Files.getFileAttributeView(file.toPath(), PosixFileAttributeView.class) == null)
+            return;
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.setPosixFilePermissions(file.toPath(), permissions);
+        GirrAppender.appendCommand(file, "commandSet", new Command("appended", null, NEC1_PRONTO), new ExportOptions());
+        assertEquals(Files.getPosixFilePermissions(file.toPath()), permissions);
+    }
+}
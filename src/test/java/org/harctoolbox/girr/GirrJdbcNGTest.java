@@ -0,0 +1,99 @@
+package org.harctoolbox.girr;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import static org.testng.Assert.*;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class GirrJdbcNGTest {
+
+    private RemoteSet remoteSet;
+
+    @BeforeClass
+    public void setUpClass() throws Exception {
+        remoteSet = new RemoteSet(new Remote("src/test/girr/sony_tv.girr"));
+    }
+
+    private static Connection open(String name) throws SQLException {
+        return DriverManager.getConnection("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+    }
+
+    private static long count(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static int numberOfCommands(Iterable<Remote> remotes) {
+        int count = 0;
+        for (Remote remote : remotes)
+            for (CommandSet commandSet : remote)
+                count += commandSet.size();
+        return count;
+    }
+
+    /**
+     * Test of export and parse methods, of class GirrJdbc.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        System.out.println("roundTrip");
+        try (Connection connection = open("roundtrip")) {
+            GirrJdbc.createTables(connection);
+            GirrJdbc jdbc = new GirrJdbc();
+            jdbc.setBatchSize(7);
+            int count = jdbc.export(connection, remoteSet);
+            assertEquals(count, numberOfCommands(remoteSet));
+            assertEquals(count(connection, GirrJdbc.COMMAND_TABLE), count);
+
+            RemoteSet result = jdbc.parse(connection);
+            assertEquals(result.size(), remoteSet.size());
+            for (Remote remote : remoteSet) {
+                Remote parsed = result.getRemote(remote.getName());
+                assertEquals(parsed.getManufacturer(), remote.getManufacturer());
+                for (CommandSet commandSet : remote) {
+                    CommandSet parsedCommandSet = parsed.getCommandSets().get(commandSet.getName());
+                    assertEquals(parsedCommandSet.size(), commandSet.size());
+                    for (Command command : commandSet) {
+                        Command parsedCommand = parsedCommandSet.getCommand(command.getName());
+                        assertEquals(parsedCommand.getProtocolName(), command.getProtocolName());
+                        assertEquals(parsedCommand.getParameters(), command.getParameters());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of export method, of class GirrJdbc, with several connections, appending to existing data.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testExportParallel() throws Exception {
+        System.out.println("exportParallel");
+        List<Remote> remotes = new ArrayList<>(Collections.nCopies(5, remoteSet.iterator().next()));
+        int commands = numberOfCommands(remotes);
+        try (Connection connection = open("parallel")) {
+            GirrJdbc.createTables(connection);
+            GirrJdbc jdbc = new GirrJdbc();
+            jdbc.setThreads(3);
+            assertEquals(jdbc.export(() -> open("parallel"), remotes), commands);
+            assertEquals(jdbc.export(() -> open("parallel"), remotes), commands);
+            assertEquals(count(connection, GirrJdbc.REMOTE_TABLE), 2 * remotes.size());
+            assertEquals(count(connection, GirrJdbc.COMMAND_TABLE), 2 * commands);
+            List<Remote> result = new ArrayList<>(2 * remotes.size());
+            assertEquals(jdbc.parse(connection, result::add), 2 * remotes.size());
+            assertEquals(numberOfCommands(result), 2 * commands);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.harctoolbox.girr;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class GirrJsonNGTest {
+
+    private final RemoteSet marco;
+    private final Remote sonyRemote;
+
+    public GirrJsonNGTest() throws GirrException, IOException, SAXException {
+        marco = new RemoteSet("src/test/girr/marco.girr");
+        sonyRemote = new Remote("src/test/girr/sony_tv.girr");
+    }
+
+    private static String export(RemoteSet remoteSet, ExportOptions options) throws IOException {
+        StringWriter writer = new StringWriter();
+        GirrJson.export(writer, remoteSet, "title", options);
+        return writer.toString();
+    }
+
+    private static void assertRoundTrip(RemoteSet remoteSet, ExportOptions options) throws IOException, GirrException {
+        RemoteSet result = GirrJson.parse(new StringReader(export(remoteSet, options)));
+        assertEquals(result.remoteContentHashes(options), remoteSet.remoteContentHashes(options));
+        assertEquals(result.getCreatingUser(), remoteSet.getCreatingUser());
+    }
+
+    /**
+     * Test of export and parse methods, of class GirrJson, compared to the XML export.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        System.out.println("roundTrip");
+        ExportOptions options = new ExportOptions();
+        assertRoundTrip(marco, options);
+        // The embedded protocols are not represented in JSON.
+        assertFalse(marco.getIrpDatabase().isEmpty());
+        assertTrue(GirrJson.parse(new StringReader(export(marco, options))).getIrpDatabase().isEmpty());
+        assertRoundTrip(new RemoteSet("Imhotep", "test", sonyRemote), options);
+        assertRoundTrip(new RemoteSet("Imhotep", "test", sonyRemote), options.withIndentation(ExportOptions.NO_INDENTATION).withInheritance(false));
+    }
+
+    /**
+     * Test of export and parse methods, of class GirrJson, with a toggling Command.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testToggle() throws Exception {
+        System.out.println("toggle");
+        Map<String, Long> parameters = new HashMap<>(2);
+        parameters.put("D", 0L);
+        parameters.put("F", 12L);
+        Command command = new Command("power", "comment", "RC5", parameters);
+        command.addFormat("foo", "bar");
+        command.addFormat("baz", "quux");
+        RemoteSet remoteSet = new RemoteSet("Imhotep", "test", new Remote(new CommandSet(command)));
+        String json = export(remoteSet, new ExportOptions());
+        RemoteSet result = GirrJson.parse(new StringReader(json));
+        Command parsed = result.iterator().next().iterator().next().getCommand("power");
+        assertEquals(parsed.numberOfToggleValues(), 2);
+        assertEquals(parsed.getProntoHex(1), command.getProntoHex(1));
+        assertEquals(parsed.getComment(), "comment");
+        assertEquals(parsed.getFormat("baz"), "quux");
+    }
+
+    /**
+     * Test of parse method, of class GirrJson, with a RemoteHandler.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testParseStreaming() throws Exception {
+        System.out.println("parseStreaming");
+        List<Remote> remotes = new ArrayList<>(1);
+        int count = GirrJson.parse(new StringReader(export(marco, new ExportOptions())), remotes::add);
+        assertEquals(count, marco.size());
+        assertEquals(remotes.get(0).getName(), marco.iterator().next().getName());
+    }
+
+    /**
+     * Test of parse method, of class GirrJson, with invalid input.
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testParseInvalid() throws IOException {
+        System.out.println("parseInvalid");
+        String[] invalids = {
+            "{\"remotes\": [",
+            "{\"remotes\": [{\"commandSets\": []}]}",
+            "{\"remotes\": [{\"name\": \"r\", \"commandSets\": [{\"name\": \"c\", \"commands\": [], \"protocol\": \"nec1\"}]}]}",
+            "{} garbage"
+        };
+        for (String invalid : invalids) {
+            try {
+                GirrJson.parse(new StringReader(invalid));
+                fail(invalid);
+            } catch (GirrException ex) {
+            }
+        }
+    }
+}
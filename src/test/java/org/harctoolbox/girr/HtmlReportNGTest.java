@@ -0,0 +1,72 @@
+package org.harctoolbox.girr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import static org.harctoolbox.girr.CommandNGTest.OUTDIR;
+import static org.testng.Assert.*;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class HtmlReportNGTest {
+
+    private final Remote sonyRemote;
+
+    public HtmlReportNGTest() throws GirrException, IOException, SAXException {
+        sonyRemote = new Remote("src/test/girr/sony_tv.girr");
+    }
+
+    @BeforeClass
+    public void setUpClass() throws Exception {
+        CommandNGTest.assertOutDirExists();
+    }
+
+    /**
+     * Test of escape method, of class HtmlReport.
+     */
+    @Test
+    public void testEscape() {
+        System.out.println("escape");
+        assertEquals(HtmlReport.escape("<a href=\"x\">&</a>"), "&lt;a href=&quot;x&quot;&gt;&amp;&lt;/a&gt;");
+        assertEquals(HtmlReport.escape(null), "");
+    }
+
+    /**
+     * Test of print method, of class HtmlReport, to one page.
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testPrint() throws Exception {
+        System.out.println("print");
+        HtmlReport report = new HtmlReport("Sony & friends");
+        report.setFlushInterval(3);
+        StringWriter out = new StringWriter();
+        int count = report.print(out, Arrays.asList(sonyRemote));
+        String html = out.toString();
+        assertTrue(html.contains("<title>Sony &amp; friends</title>"));
+        assertEquals(html.split("<h3 ").length - 1, count);
+        assertTrue(html.contains("<p>" + sonyRemote.iterator().next().iterator().next().getProntoHex()));
+        assertTrue(html.endsWith("</html>\n"));
+    }
+
+    /**
+     * Test of print method, of class HtmlReport, to a directory.
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testPrintDirectory() throws IOException {
+        System.out.println("printDirectory");
+        File directory = new File(OUTDIR, "html");
+        HtmlReport report = new HtmlReport("Report");
+        File index = report.print(directory, HtmlReport.DEFAULT_INDEX_FILE_NAME, Arrays.asList(sonyRemote));
+        String html = new String(Files.readAllBytes(index.toPath()), StandardCharsets.UTF_8);
+        String fileName = RemoteSetIndex.fileNames(Arrays.asList(sonyRemote.getName()), HtmlReport.DEFAULT_INDEX_FILE_NAME, HtmlReport.EXTENSION).get(sonyRemote.getName());
+        assertTrue(html.contains("<a href=\"" + fileName + "\">"));
+        assertTrue(new File(directory, fileName).length() > 0);
+    }
+}
@@ -0,0 +1,93 @@
+package org.harctoolbox.girr;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import static org.harctoolbox.girr.CommandNGTest.OUTDIR;
+import static org.testng.Assert.*;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class IrPlusImporterNGTest {
+
+    private static final String NEC1_PRONTO = "0000 006C 0022 0002 015B 00AD 0016 0016 0016 0016 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0041 0016 06A4 015B 0057 0016 0E6C";
+
+    private static final String IRPLUS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<irplus>\n"
+            + "  <device manufacturer=\"Acme\" model=\"TV\" columns=\"4\" format=\"PRONTO_HEX\">\n"
+            + "    <button label=\"Power\">" + NEC1_PRONTO + "|whatever</button>\n"
+            + "    <button label=\"Power\">" + NEC1_PRONTO + "</button>\n"
+            + "  </device>\n"
+            + "  <device manufacturer=\"Acme\" model=\"TV\" format=\"WINLIRC_RAW\" frequency=\"36000\">\n"
+            + "    <button label=\"Mute\">889 889 1778 889 889</button>\n"
+            + "    <button label=\"Odd\">889 889</button>\n"
+            + "  </device>\n"
+            + "</irplus>\n";
+
+    @BeforeClass
+    public void setUpClass() throws Exception {
+        CommandNGTest.assertOutDirExists();
+    }
+
+    /**
+     * Test of parse method, of class IrPlusImporter.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testParse() throws Exception {
+        System.out.println("parse");
+        RemoteSet remoteSet = IrPlusImporter.parse(new StringReader(IRPLUS), "test");
+        assertEquals(remoteSet.size(), 2);
+        Remote pronto = remoteSet.getRemote("Acme_TV");
+        assertEquals(pronto.getManufacturer(), "Acme");
+        CommandSet commandSet = pronto.iterator().next();
+        assertEquals(commandSet.size(), 2);
+        assertEquals(commandSet.getCommand("Power").getProntoHex(), NEC1_PRONTO);
+        assertEquals(commandSet.getCommand("Power_1").getProtocolName(), "NEC1");
+
+        CommandSet raw = remoteSet.getRemote("Acme_TV_1").iterator().next();
+        assertEquals(raw.size(), 1);
+        Command mute = raw.getCommand("Mute");
+        assertEquals(mute.getFrequency(), 36000.0);
+        assertTrue(mute.getRepeat(0).endsWith("30000"));
+    }
+
+    /**
+     * Test of parse method, of class IrPlusImporter, with malformed input.
+     */
+    @Test
+    public void testParseMalformed() {
+        System.out.println("parseMalformed");
+        try {
+            IrPlusImporter.parse(new StringReader("<irplus><device>"), "test");
+            fail();
+        } catch (GirrException ex) {
+        }
+    }
+
+    /**
+     * Test of importTree method, of class IrPlusImporter.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testImportTree() throws Exception {
+        System.out.println("importTree");
+        File dir = new File(OUTDIR, "irplus");
+        dir.mkdirs();
+        for (String name : new String[] { "a", "b", "c" }) {
+            try (Writer writer = Files.newBufferedWriter(new File(dir, name + IrPlusImporter.EXTENSION).toPath(), StandardCharsets.UTF_8)) {
+                writer.write(name.equals("b") ? "<irplus><device>" : IRPLUS);
+            }
+        }
+        List<Remote> remotes = new ArrayList<>(4);
+        int count = IrPlusImporter.importTree(dir, 2, Command.MasterType.ccf, remotes::add);
+        assertEquals(count, 4);
+        assertEquals(remotes.size(), 4);
+        assertEquals(remotes.get(3).getName(), "Acme_TV_1");
+    }
+}
@@ -0,0 +1,129 @@
+package org.harctoolbox.girr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.harctoolbox.girr.CommandNGTest.OUTDIR;
+import static org.testng.Assert.*;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class IrdbCsvNGTest {
+
+    private final Remote sonyRemote;
+
+    public IrdbCsvNGTest() throws GirrException, IOException, SAXException {
+        sonyRemote = new Remote("src/test/girr/sony_tv.girr");
+    }
+
+    @BeforeClass
+    public void setUpClass() throws Exception {
+        CommandNGTest.assertOutDirExists();
+    }
+
+    /**
+     * Test of split method, of class IrdbCsv.
+     */
+    @Test
+    public void testSplit() {
+        System.out.println("split");
+        assertEquals(IrdbCsv.split("POWER,NEC1,4,-1,8"), Arrays.asList("POWER", "NEC1", "4", "-1", "8"));
+        assertEquals(IrdbCsv.split("\"VOL, \"\"UP\"\"\",NEC1,4,,8"), Arrays.asList("VOL, \"UP\"", "NEC1", "4", "", "8"));
+    }
+
+    /**
+     * Test of export and parse methods, of class IrdbCsv.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        System.out.println("roundTrip");
+        StringWriter writer = new StringWriter();
+        int count = IrdbCsv.export(writer, sonyRemote);
+        String csv = writer.toString();
+        assertTrue(csv.startsWith(IrdbCsv.HEADER + "\n"));
+        assertEquals(count, csv.split("\n").length - 1);
+
+        Remote result = IrdbCsv.parse(new StringReader(csv), new Remote.MetaData("sony"), null);
+        CommandSet commandSet = result.iterator().next();
+        assertEquals(commandSet.size(), count);
+        for (CommandSet original : sonyRemote)
+            for (Command command : original) {
+                Command parsed = commandSet.getCommand(command.getName());
+                assertEquals(parsed.getProtocolName().toLowerCase(), command.getProtocolName().toLowerCase());
+                assertEquals(parsed.getParameters(), command.getParameters());
+            }
+    }
+
+    /**
+     * Test of export method, of class IrdbCsv, with a Command to be decoded, which must not be modified.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testExportRaw() throws Exception {
+        System.out.println("exportRaw");
+        Command nec1 = IrdbCsv.parse(new StringReader("power,NEC1,12,-1,34"), new Remote.MetaData("nec1"), null).iterator().next().getCommand("power");
+        Command raw = new Command("power", null, nec1.toIrSignal());
+        StringWriter writer = new StringWriter();
+        assertEquals(IrdbCsv.export(writer, new Remote(new CommandSet(raw))), 1);
+        Command parsed = IrdbCsv.parse(new StringReader(writer.toString()), new Remote.MetaData("raw"), null).iterator().next().getCommand("power");
+        assertEquals(parsed.getParameters(), nec1.getParameters());
+        assertNull(raw.knownProtocolName());
+        assertNull(raw.getNotes("en"));
+    }
+
+    /**
+     * Test of parse method, of class IrdbCsv, with several lines with the same function name.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testParseDuplicates() throws Exception {
+        System.out.println("parseDuplicates");
+        String csv = "POWER,NEC1,4,-1,8\nPOWER,NEC1,4,-1,9\nPOWER_1,NEC1,4,-1,10\nPOWER,NEC1,4,-1,11\n";
+        CommandSet commandSet = IrdbCsv.parse(new StringReader(csv), new Remote.MetaData("test"), null).iterator().next();
+        assertEquals(commandSet.size(), 4);
+        assertEquals(commandSet.getCommand("POWER_1").getParameters().get("F"), Long.valueOf(9L));
+        assertEquals(commandSet.getCommand("POWER_1_1").getParameters().get("F"), Long.valueOf(10L));
+        assertEquals(commandSet.getCommand("POWER_2").getParameters().get("F"), Long.valueOf(11L));
+    }
+
+    /**
+     * Test of importTree method, of class IrdbCsv.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testImportTree() throws Exception {
+        System.out.println("importTree");
+        File root = new File(OUTDIR, "irdb");
+        File dir = new File(root, "Acme/TV");
+        dir.mkdirs();
+        String[] models = {"1,-1", "2,-1", "3,7"};
+        for (String model : models) {
+            try (Writer writer = Files.newBufferedWriter(new File(dir, model + IrdbCsv.EXTENSION).toPath(), StandardCharsets.UTF_8)) {
+                String[] ds = model.split(",");
+                writer.write(IrdbCsv.HEADER + "\n");
+                writer.write("POWER,NEC1," + ds[0] + "," + ds[1] + ",12\n");
+                writer.write("MUTE,NEC1," + ds[0] + "," + ds[1] + ",13\n");
+                writer.write("garbage line\n");
+            }
+        }
+        List<Remote> remotes = new ArrayList<>(models.length);
+        int count = IrdbCsv.importTree(root, 2, Command.MasterType.raw, remotes::add);
+        assertEquals(count, models.length);
+        assertEquals(remotes.get(0).getName(), "Acme_TV_1,-1");
+        assertEquals(remotes.get(2).getMetaData().getManufacturer(), "Acme");
+        assertEquals(remotes.get(2).getMetaData().getDeviceClass(), "TV");
+        CommandSet commandSet = remotes.get(2).iterator().next();
+        assertEquals(commandSet.size(), 2);
+        assertEquals(commandSet.getCommand("MUTE").getParameters().get("S").longValue(), 7L);
+    }
+}
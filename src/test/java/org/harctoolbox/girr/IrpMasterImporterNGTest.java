@@ -0,0 +1,48 @@
+package org.harctoolbox.girr;
+
+import java.io.StringReader;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class IrpMasterImporterNGTest {
+
+    private static final String IRPMASTER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<protocol name=\"nec1\" frequency=\"38400\">\n"
+            + "  <signal D=\"12\" S=\"34\" F=\"56\">\n"
+            + "    <raw><intro>+9024 -4512 +564 -39756</intro><repeat>+9024 -2256 +564 -96156</repeat><ending/></raw>\n"
+            + "    <uei-learned>00 00 2F</uei-learned>\n"
+            + "  </signal>\n"
+            + "  <signal D=\"12\" S=\"34\" F=\"57\"/>\n"
+            + "</protocol>\n";
+
+    /**
+     * Test of parse method, of class IrpMasterImporter.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testParse() throws Exception {
+        System.out.println("parse");
+        Remote remote = IrpMasterImporter.parse(new StringReader(IRPMASTER), "nec", "test");
+        assertEquals(remote.getName(), "nec");
+        CommandSet commandSet = remote.iterator().next();
+        assertEquals(commandSet.size(), 2);
+        Command command = commandSet.getCommand("nec1_123456");
+        assertEquals(command.getParameters().get("F").longValue(), 56L);
+        assertEquals(command.getFormat("uei-learned"), "00 00 2F");
+        assertNotNull(commandSet.getCommand("nec1_123457"));
+    }
+
+    /**
+     * Test of parse method, of class IrpMasterImporter, with a document of the wrong type.
+     */
+    @Test
+    public void testParseWrongRoot() {
+        System.out.println("parseWrongRoot");
+        try {
+            IrpMasterImporter.parse(new StringReader("<remotes/>"), "nec", "test");
+            fail();
+        } catch (GirrException ex) {
+        }
+    }
+}
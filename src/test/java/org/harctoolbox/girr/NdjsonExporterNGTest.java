@@ -0,0 +1,101 @@
+package org.harctoolbox.girr;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import static org.harctoolbox.girr.CommandNGTest.OUTDIR;
+import static org.testng.Assert.*;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class NdjsonExporterNGTest {
+
+    private static final File INPUT = new File("src/test/girr");
+
+    @BeforeClass
+    public void setUpClass() throws Exception {
+        CommandNGTest.assertOutDirExists();
+    }
+
+    private static int numberOfCommands(Iterable<Remote> remotes) {
+        int count = 0;
+        for (Remote remote : remotes)
+            for (CommandSet commandSet : remote)
+                count += commandSet.size();
+        return count;
+    }
+
+    /**
+     * Test of export method, of class NdjsonExporter.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testExport() throws Exception {
+        System.out.println("export");
+        Remote sony = new Remote("src/test/girr/sony_tv.girr");
+        NdjsonExporter exporter = new NdjsonExporter();
+        exporter.setRaw(true);
+        exporter.setThreads(3);
+        StringWriter writer = new StringWriter();
+        int count = exporter.export(new RemoteSet(null, null, sony), writer);
+        String[] lines = writer.toString().split("\n");
+        assertEquals(count, numberOfCommands(new RemoteSet(null, null, sony)));
+        assertEquals(lines.length, count);
+        assertTrue(lines[0].startsWith("{\"remote\":\"" + sony.getName() + "\""));
+        assertTrue(lines[0].contains("\"protocol\":"));
+        assertTrue(lines[0].contains("\"ccf\":[\"0000 "));
+        assertTrue(lines[0].contains("\"raw\":[{"));
+    }
+
+    /**
+     * Test of export method, of class NdjsonExporter, with Commands having only Pronto Hex.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testExportProntoHexOnly() throws Exception {
+        System.out.println("exportProntoHexOnly");
+        RemoteSet silly = new RemoteSet("src/test/girr/silly.girr");
+        NdjsonExporter exporter = new NdjsonExporter();
+        StringWriter writer = new StringWriter();
+        exporter.export(silly, writer);
+        String result = writer.toString();
+        assertTrue(result.contains("\"command\":\"play\""));
+        int found = 0;
+        for (String line : result.split("\n"))
+            if (line.contains("\"command\":\"Work\"")) {
+                assertTrue(line.contains("\"frequency\":38"));
+                found++;
+            }
+        assertEquals(found, 1);
+    }
+
+    /**
+     * Test of exportTree method, of class NdjsonExporter, resuming an interrupted export.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testExportTreeResume() throws Exception {
+        System.out.println("exportTreeResume");
+        NdjsonExporter exporter = new NdjsonExporter();
+        exporter.setThreads(2);
+        File complete = new File(OUTDIR, "complete" + NdjsonExporter.EXTENSION);
+        int count = exporter.exportTree(INPUT, complete, false);
+        assertTrue(count > 0);
+        byte[] expected = Files.readAllBytes(complete.toPath());
+
+        File interrupted = new File(OUTDIR, "interrupted" + NdjsonExporter.EXTENSION);
+        Files.write(interrupted.toPath(), expected);
+        try (RandomAccessFile raf = new RandomAccessFile(interrupted, "rw")) {
+            raf.setLength(2 * expected.length / 3);
+        }
+        int resumed = exporter.exportTree(INPUT, interrupted, true);
+        assertTrue(resumed > 0 && resumed < count);
+        List<String> result = Files.readAllLines(interrupted.toPath(), StandardCharsets.UTF_8);
+        assertEquals(result.size(), count);
+        assertEquals(Files.readAllBytes(interrupted.toPath()), expected);
+    }
+}
@@ -322,6 +322,59 @@ public class RemoteNGTest {
         sonyRemote.checkForParameters();
     }
 
+    /**
+     * Test of the fragment cache and the dirty tracking, of class Remote.
+     * @throws org.harctoolbox.girr.GirrException
+     * @throws java.io.IOException
+     * @throws org.xml.sax.SAXException
+     */
+    @Test
+    public void testFragmentCache() throws GirrException, IOException, SAXException {
+        System.out.println("fragmentCache");
+        Remote instance = new Remote("src/test/girr/sony_tv.girr");
+        assertTrue(instance.isDirty());
+        Remote.setUseFragmentCache(true);
+        try {
+            File filename = new File(OUTDIR, "remote.girr");
+            instance.print(filename);
+            assertFalse(instance.isDirty());
+            instance.print(filename);
+            CommandNGTest.assertFileEqualContent(filename);
+
+            instance.setName("renamed");
+            assertTrue(instance.isDirty());
+            assertEquals(instance.toDocument("title", false, true, true, false).getDocumentElement().getAttribute("name"), "renamed");
+            assertFalse(instance.isDirty());
+
+            Command command = instance.iterator().next().iterator().next();
+            command.addFormat("foo", "bar");
+            assertTrue(command.isDirty());
+            assertTrue(instance.isDirty());
+        } finally {
+            Remote.setUseFragmentCache(false);
+        }
+    }
+
+    /**
+     * Test that the fragment cache is invalidated by notes added by decoding during the export.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testFragmentCacheDecode() throws Exception {
+        System.out.println("fragmentCacheDecode");
+        Remote instance = new RemoteSet("src/test/girr/silly.girr").iterator().next();
+        ExportOptions options = new ExportOptions();
+        Remote.setUseFragmentCache(true);
+        String cached;
+        try {
+            instance.contentHash(options);
+            cached = instance.contentHash(options);
+        } finally {
+            Remote.setUseFragmentCache(false);
+        }
+        assertEquals(cached, instance.contentHash(options));
+    }
+
     /**
      * Test of toFormattedString method, of class MetaData.
      * @throws org.harctoolbox.girr.GirrException
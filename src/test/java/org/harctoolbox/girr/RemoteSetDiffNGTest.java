@@ -0,0 +1,128 @@
+package org.harctoolbox.girr;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.harctoolbox.ircore.IrCoreException;
+import org.harctoolbox.irp.IrpException;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class RemoteSetDiffNGTest {
+
+    private static final String SONY_FILE = "src/test/girr/sony_tv.girr";
+    private static final String NEC1_PRONTO = "0000 006C 0022 0002 015B 00AD 0016 0016 0016 0016 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0041 0016 06A4 015B 0057 0016 0E6C";
+
+    /**
+     * Test of merkleHash methods, including the invalidation on modification.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testMerkleHash() throws Exception {
+        System.out.println("merkleHash");
+        RemoteSet original = new RemoteSet(new Remote(SONY_FILE));
+        RemoteSet copy = new RemoteSet(new Remote(SONY_FILE));
+        String hash = original.merkleHash();
+        assertEquals(hash.length(), 64);
+        assertEquals(copy.merkleHash(), hash);
+        assertEquals(original.merkleHash(), hash);
+
+        CommandSet commandSet = copy.iterator().next().getCommandSets().get("commandSet");
+        Command command = commandSet.getCommand("volume_up");
+        String commandHash = command.merkleHash();
+        commandSet.renameCommand("volume_up", "louder");
+        assertNotEquals(command.merkleHash(), commandHash);
+        assertNotEquals(copy.merkleHash(), hash);
+        commandSet.renameCommand("louder", "volume_up");
+        assertEquals(command.merkleHash(), commandHash);
+        assertEquals(copy.merkleHash(), hash);
+    }
+
+    /**
+     * Test of diff method, of class RemoteSetDiff.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testDiff() throws Exception {
+        System.out.println("diff");
+        RemoteSet original = new RemoteSet(new Remote(SONY_FILE));
+        RemoteSet modified = new RemoteSet(new Remote(SONY_FILE));
+        assertTrue(RemoteSetDiff.diff(original, modified).isEmpty());
+
+        Remote remote = modified.iterator().next();
+        CommandSet commandSet = remote.getCommandSets().get("commandSet");
+        commandSet.removeCommand("volume_down");
+        commandSet.putCommand(new Command("channel_up", null, NEC1_PRONTO));
+        commandSet.putCommand(new Command("appended", null, NEC1_PRONTO));
+        modified.renameRemote(remote.getName(), "Renamed TV");
+
+        List<RemoteSetDiff.Change> changes = RemoteSetDiff.diff(original, modified);
+        // Renamed, and changed, so reported as removed and added
+        assertEquals(changes.size(), 2);
+        assertEquals(changes.get(0).getKind(), RemoteSetDiff.Kind.removed);
+        assertEquals(changes.get(0).getRemote(), original.iterator().next().getName());
+        assertNull(changes.get(0).getCommandSet());
+
+        modified = new RemoteSet(new Remote(SONY_FILE));
+        commandSet = modified.iterator().next().getCommandSets().get("commandSet");
+        commandSet.removeCommand("volume_down");
+        commandSet.putCommand(new Command("channel_up", null, NEC1_PRONTO));
+        commandSet.putCommand(new Command("appended", null, NEC1_PRONTO));
+        changes = RemoteSetDiff.diff(original, modified);
+        assertEquals(changes.size(), 3);
+        assertEquals(changes.get(0).getKind(), RemoteSetDiff.Kind.removed);
+        assertEquals(changes.get(0).getCommand(), "volume_down");
+        assertEquals(changes.get(1).getKind(), RemoteSetDiff.Kind.changed);
+        assertEquals(changes.get(1).getCommand(), "channel_up");
+        assertEquals(changes.get(2).getKind(), RemoteSetDiff.Kind.added);
+        assertEquals(changes.get(2).getCommand(), "appended");
+    }
+
+    /**
+     * Test that decoding, possibly adding notes, does not change the merkleHash.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testMerkleHashDecode() throws Exception {
+        System.out.println("merkleHashDecode");
+        RemoteSet original = new RemoteSet("src/test/girr/silly.girr");
+        RemoteSet decoded = new RemoteSet("src/test/girr/silly.girr");
+        String hash = decoded.merkleHash();
+        for (Remote remote : decoded)
+            for (CommandSet commandSet : remote)
+                for (Command command : commandSet)
+                    try {
+                        command.getProtocolName();
+                    } catch (IrpException | IrCoreException ex) {
+                    }
+        assertEquals(decoded.merkleHash(), hash);
+        assertEquals(original.merkleHash(), hash);
+        assertTrue(RemoteSetDiff.diff(original, decoded).isEmpty());
+    }
+
+    /**
+     * Test of diff method, of class RemoteSetDiff, with only the order of the Remotes changed.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testDiffOrder() throws Exception {
+        System.out.println("diffOrder");
+        Remote sony = new Remote(SONY_FILE);
+        Remote silly = new RemoteSet("src/test/girr/silly.girr").iterator().next();
+        Map<String, Remote> remotes = new LinkedHashMap<>(2);
+        remotes.put(sony.getName(), sony);
+        remotes.put(silly.getName(), silly);
+        RemoteSet from = new RemoteSet(null, null, remotes);
+        remotes = new LinkedHashMap<>(2);
+        remotes.put(silly.getName(), silly);
+        remotes.put(sony.getName(), sony);
+        RemoteSet to = new RemoteSet(null, null, remotes);
+
+        assertNotEquals(to.merkleHash(), from.merkleHash());
+        List<RemoteSetDiff.Change> changes = RemoteSetDiff.diff(from, to);
+        assertEquals(changes.size(), 1);
+        assertEquals(changes.get(0).getKind(), RemoteSetDiff.Kind.changed);
+        assertNull(changes.get(0).getRemote());
+    }
+}
@@ -0,0 +1,93 @@
+package org.harctoolbox.girr;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class RemoteSetMergeEngineNGTest {
+
+    private static final String SONY_FILE = "src/test/girr/sony_tv.girr";
+    private static final String NEC1_PRONTO = "0000 006C 0022 0002 015B 00AD 0016 0016 0016 0016 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0041 0016 06A4 015B 0057 0016 0E6C";
+
+    private static CommandSet commandSet(RemoteSet remoteSet) {
+        return remoteSet.iterator().next().getCommandSets().get("commandSet");
+    }
+
+    /**
+     * Test of the rename strategy, with and without dropping duplicates.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testRename() throws Exception {
+        System.out.println("rename");
+        RemoteSet result = RemoteSetMergeEngine.merge(null, null,
+                Arrays.asList(new RemoteSet(new Remote(SONY_FILE)), new RemoteSet(new Remote(SONY_FILE)), new RemoteSet(new Remote(SONY_FILE))),
+                RemoteSetMergeEngine.Strategy.rename, false);
+        assertEquals(result.size(), 3);
+        Iterator<Remote> iterator = result.iterator();
+        String name = iterator.next().getName();
+        assertEquals(iterator.next().getName(), name + "_1");
+        Remote third = iterator.next();
+        assertEquals(third.getName(), name + "_2");
+        assertEquals(third.getComment(), "Name changed from \"" + name + "\" to \"" + name + "_2\".");
+
+        RemoteSetMergeEngine engine = new RemoteSetMergeEngine(RemoteSetMergeEngine.Strategy.rename, true);
+        RemoteSet modified = new RemoteSet(new Remote(SONY_FILE));
+        commandSet(modified).removeCommand("volume_down");
+        engine.add(new RemoteSet(new Remote(SONY_FILE)));
+        engine.add(new RemoteSet(new Remote(SONY_FILE)));
+        engine.add(modified);
+        assertEquals(engine.size(), 2);
+        assertEquals(engine.getNumberOfDuplicates(), 1);
+        assertEquals(engine.getNumberOfCollisions(), 1);
+    }
+
+    /**
+     * Test of the keepFirst and keepLast strategies.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testKeep() throws Exception {
+        System.out.println("keep");
+        RemoteSet modified = new RemoteSet(new Remote(SONY_FILE));
+        commandSet(modified).removeCommand("volume_down");
+        int size = commandSet(new RemoteSet(new Remote(SONY_FILE))).size();
+
+        RemoteSet first = RemoteSetMergeEngine.merge(null, null, Arrays.asList(new RemoteSet(new Remote(SONY_FILE)), modified),
+                RemoteSetMergeEngine.Strategy.keepFirst, true);
+        assertEquals(first.size(), 1);
+        assertEquals(commandSet(first).size(), size);
+
+        RemoteSet last = RemoteSetMergeEngine.merge(null, null, Arrays.asList(new RemoteSet(new Remote(SONY_FILE)), modified),
+                RemoteSetMergeEngine.Strategy.keepLast, true);
+        assertEquals(last.size(), 1);
+        assertEquals(commandSet(last).size(), size - 1);
+    }
+
+    /**
+     * Test of the mergeCommandSets strategy.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testMergeCommandSets() throws Exception {
+        System.out.println("mergeCommandSets");
+        RemoteSet original = new RemoteSet(new Remote(SONY_FILE));
+        int size = commandSet(original).size();
+        commandSet(original).removeCommand("volume_down");
+        RemoteSet other = new RemoteSet(new Remote(SONY_FILE));
+        commandSet(other).putCommand(new Command("appended", null, NEC1_PRONTO));
+        commandSet(other).putCommand(new Command("volume_up", null, NEC1_PRONTO));
+
+        RemoteSet result = RemoteSetMergeEngine.merge(null, null, Arrays.asList(original, other),
+                RemoteSetMergeEngine.Strategy.mergeCommandSets, true);
+        assertEquals(result.size(), 1);
+        CommandSet commandSet = commandSet(result);
+        // volume_down back, appended, and the conflicting volume_up renamed
+        assertEquals(commandSet.size(), size + 2);
+        assertNotNull(commandSet.getCommand("volume_down"));
+        assertNotNull(commandSet.getCommand("appended"));
+        assertEquals(commandSet.getCommand("volume_up_1").getProtocolName(), "NEC1");
+    }
+}
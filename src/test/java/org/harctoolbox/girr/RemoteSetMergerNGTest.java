@@ -0,0 +1,62 @@
+package org.harctoolbox.girr;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Map;
+import static org.harctoolbox.girr.CommandNGTest.OUTDIR;
+import static org.testng.Assert.*;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class RemoteSetMergerNGTest {
+
+    private static final File INPUT = new File("src/test/girr");
+
+    @BeforeClass
+    public void setUpClass() throws Exception {
+        CommandNGTest.assertOutDirExists();
+    }
+
+    private static Map<String, String> merge(boolean sorted, int windowSize, File output, ExportOptions options) throws Exception {
+        try (RemoteSetMerger merger = new RemoteSetMerger("Imhotep", INPUT.toString(), options)) {
+            merger.setSorted(sorted);
+            merger.setWindowSize(windowSize);
+            merger.add(INPUT);
+            int count = merger.write(output);
+            assertEquals(count, merger.size());
+            assertTrue(merger.getNumberOfRuns() > 1);
+        }
+        return new RemoteSet(output).remoteContentHashes(options);
+    }
+
+    /**
+     * Test of the merge in input order, compared to the in-memory merge.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testMerge() throws Exception {
+        System.out.println("merge");
+        ExportOptions options = new ExportOptions();
+        Map<String, String> expected = new RemoteSet("Imhotep", INPUT.toString(), RemoteSet.parseAsCollection(INPUT)).remoteContentHashes(options);
+        Map<String, String> result = merge(false, 2, new File(OUTDIR, "merged.girr"), options);
+        assertEquals(new ArrayList<>(result.keySet()), new ArrayList<>(expected.keySet()));
+        assertEquals(result, expected);
+    }
+
+    /**
+     * Test of the sorted merge, compared to the in-memory merge.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testMergeSorted() throws Exception {
+        System.out.println("mergeSorted");
+        ExportOptions options = new ExportOptions().withIndentation(ExportOptions.NO_INDENTATION);
+        RemoteSet inMemory = new RemoteSet("Imhotep", INPUT.toString(), RemoteSet.parseAsCollection(INPUT));
+        inMemory.sort(false);
+        Map<String, String> expected = inMemory.remoteContentHashes(options);
+        Map<String, String> result = merge(true, 3, new File(OUTDIR, "mergedsorted.girr"), options);
+        assertEquals(new ArrayList<>(result.keySet()), new ArrayList<>(expected.keySet()));
+        assertEquals(result, expected);
+    }
+}
@@ -2,13 +2,21 @@ package org.harctoolbox.girr;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import static org.harctoolbox.girr.CommandNGTest.OUTDIR;
 import org.harctoolbox.ircore.IrCoreException;
 import org.harctoolbox.irp.IrpDatabase;
 import org.harctoolbox.irp.IrpException;
 import org.harctoolbox.irp.NamedProtocol;
 import org.harctoolbox.xml.XmlUtils;
+import static org.harctoolbox.xml.XmlUtils.IRP_NAMESPACE_URI;
 import static org.testng.Assert.*;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
@@ -304,6 +312,81 @@ public class RemoteSetNGTest {
         CommandNGTest.assertFileEqualContent(filename);
     }
 
+    /**
+     * Test of parallel export, of class RemoteSet.
+     * The result must be identical to the sequential export.
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testParallelExport() throws IOException {
+        System.out.println("parallelExport");
+        File path = new File("src/test/girr");
+        RemoteSet rs = new RemoteSet("Imhotep", path.toString(), RemoteSet.parseAsCollection(path));
+        rs.setCreationDate("Sometime");
+        rs.strip();
+        rs.sort(false);
+        ExportOptions options = ExportOptions.fromGlobals(false, false, false, false);
+        File sequential = new File(OUTDIR, "sequentialremoteset.girr");
+        rs.print(sequential.getPath(), options.withThreads(1));
+        File parallel = new File(OUTDIR, "parallelremoteset.girr");
+        rs.print(parallel.getPath(), options.withThreads(4));
+        CommandNGTest.assertFileEqualContent(parallel, sequential);
+    }
+
+    /**
+     * Test of canonical export and contentHash, of class RemoteSet.
+     * @throws org.harctoolbox.girr.GirrException
+     * @throws java.io.IOException
+     * @throws org.xml.sax.SAXException
+     */
+    @Test
+    public void testContentHash() throws GirrException, IOException, SAXException {
+        System.out.println("contentHash");
+        XmlStatic.setCanonical(true);
+        try {
+            RemoteSet instance = new RemoteSet("src/test/girr/philips_37pfl9603_all.girr");
+            RemoteSet other = new RemoteSet("src/test/girr/philips_37pfl9603_all.girr");
+            String hash = instance.contentHash(false, true, true, true);
+            assertEquals(hash.length(), 64);
+            assertEquals(other.contentHash(false, true, true, true), hash);
+            assertNotEquals(instance.contentHash(true, true, true, true), hash);
+
+            Map<String, String> remoteHashes = instance.remoteContentHashes(false, true, true, true);
+            assertEquals(remoteHashes.size(), instance.size());
+            Remote remote = instance.iterator().next();
+            String remoteHash = remoteHashes.get(remote.getName());
+            assertEquals(remote.contentHash(false, true, true, true), remoteHash);
+
+            remote.setNotes("de", "Eine Notiz");
+            assertNotEquals(remote.contentHash(false, true, true, true), remoteHash);
+            assertNotEquals(instance.contentHash(false, true, true, true), hash);
+        } finally {
+            XmlStatic.setCanonical(false);
+        }
+    }
+
+    /**
+     * Test of concurrent export of the same RemoteSet.
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentExport() throws Exception {
+        System.out.println("concurrentExport");
+        String expected = new RemoteSet("src/test/girr/philips_37pfl9603_all.girr").contentHash(false, true, true, true);
+        RemoteSet shared = new RemoteSet("src/test/girr/philips_37pfl9603_all.girr");
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++)
+                futures.add(executor.submit(() -> shared.contentHash(false, true, true, true)));
+            for (Future<String> future : futures)
+                assertEquals(future.get(), expected);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Test that "prontoHex" for "ccf" s msterType is accepted.
      * @throws IOException
@@ -352,4 +435,63 @@ public class RemoteSetNGTest {
         RemoteSet readInstance = RemoteSet.pmud("dump.bin");
         assertEquals(readInstance.getAdminData().getCreatingUser(), "Bengt Martensson");
     }
+
+    /**
+     * Test of pruneIrpDatabase method, of class RemoteSet.
+     * @throws org.harctoolbox.girr.GirrException
+     * @throws java.io.IOException
+     * @throws org.xml.sax.SAXException
+     */
+    @Test
+    public void testPruneIrpDatabase() throws GirrException, IOException, SAXException {
+        System.out.println("pruneIrpDatabase");
+        RemoteSet marco = new RemoteSet("src/test/girr/marco.girr");
+        assertTrue(marco.getReferencedProtocols().contains("p_48a3bbc1"));
+        assertEquals(marco.pruneIrpDatabase(), 0);
+        assertFalse(marco.getIrpDatabase().isEmpty());
+
+        RemoteSet instance = new RemoteSet(new Remote("src/test/girr/sony_tv.girr"));
+        instance.getIrpDatabase().patch(marco.getIrpDatabase());
+        assertFalse(instance.getReferencedProtocols().contains("p_48a3bbc1"));
+        ExportOptions options = new ExportOptions();
+        assertEquals(instance.toDocument("title", options).getElementsByTagNameNS(IRP_NAMESPACE_URI, "protocol").getLength(), 1);
+        assertEquals(instance.toDocument("title", options.withPruneIrpDatabase(true)).getElementsByTagNameNS(IRP_NAMESPACE_URI, "protocol").getLength(), 0);
+        assertEquals(instance.pruneIrpDatabase(), 1);
+        assertTrue(instance.getIrpDatabase().isEmpty());
+
+        // Pruning on export must not decode the Commands
+        RemoteSet silly = new RemoteSet("src/test/girr/silly.girr");
+        Command play = silly.iterator().next().getCommandSets().get("commandSet").getCommand("play");
+        silly.toDocument("title", options.withGenerateParameters(false).withPruneIrpDatabase(true));
+        assertNull(play.knownProtocolName());
+    }
+
+    /**
+     * Test of printSplit method, of class RemoteSet, and of RemoteSetIndex.
+     * @throws org.harctoolbox.girr.GirrException
+     * @throws java.io.IOException
+     * @throws org.xml.sax.SAXException
+     */
+    @Test
+    public void testPrintSplit() throws GirrException, IOException, SAXException {
+        System.out.println("printSplit");
+        File path = new File("src/test/girr");
+        RemoteSet rs = new RemoteSet("Imhotep", path.toString(), RemoteSet.parseAsCollection(path));
+        ExportOptions options = new ExportOptions().withThreads(4);
+        File indexFile = rs.printSplit(new File(OUTDIR, "split"), "index.girr", options);
+
+        RemoteSetIndex index = new RemoteSetIndex(indexFile);
+        assertEquals(index.getNames(), rs.getRemotes().stream().map(Remote::getName).collect(Collectors.toSet()));
+        String name = index.getNames().iterator().next();
+        assertFalse(index.isLoaded(name));
+        Remote remote = index.getRemote(name);
+        assertTrue(index.isLoaded(name));
+        assertSame(index.getRemote(name), remote);
+        assertEquals(remote.contentHash(options), rs.getRemote(name).contentHash(options));
+        assertNull(index.getRemote("not there"));
+
+        Map<String, String> expected = rs.remoteContentHashes(options);
+        assertEquals(index.toRemoteSet().remoteContentHashes(options), expected);
+        assertEquals(new RemoteSet(indexFile).remoteContentHashes(options), expected);
+    }
 }
@@ -0,0 +1,92 @@
+package org.harctoolbox.girr;
+
+import java.io.File;
+import static org.harctoolbox.girr.CommandNGTest.OUTDIR;
+import static org.testng.Assert.*;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class RemoteSetPatchNGTest {
+
+    private static final String SONY_FILE = "src/test/girr/sony_tv.girr";
+    private static final String NEC1_PRONTO = "0000 006C 0022 0002 015B 00AD 0016 0016 0016 0016 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0041 0016 06A4 015B 0057 0016 0E6C";
+
+    @BeforeClass
+    public void setUpClass() throws Exception {
+        CommandNGTest.assertOutDirExists();
+    }
+
+    /**
+     * Test of diff and apply methods, of class RemoteSetPatch, through the XML form.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testDiffApply() throws Exception {
+        System.out.println("diffApply");
+        RemoteSet original = new RemoteSet(new Remote(SONY_FILE));
+        RemoteSet modified = new RemoteSet(new Remote(SONY_FILE));
+        Remote remote = modified.iterator().next();
+        CommandSet commandSet = remote.getCommandSets().get("commandSet");
+        commandSet.removeCommand("volume_down");
+        commandSet.renameCommand("channel_up", "next_channel");
+        commandSet.putCommand(new Command("appended", null, NEC1_PRONTO));
+        modified.renameRemote(remote.getName(), "Renamed TV");
+
+        RemoteSetPatch patch = RemoteSetPatch.diff(original, modified);
+        // The renamed Remote is compared as a whole, so its changes are put together.
+        assertEquals(patch.size(), 2);
+        assertTrue(RemoteSetPatch.diff(modified, modified).isEmpty());
+
+        File file = new File(OUTDIR, "sony" + RemoteSetPatch.EXTENSION);
+        patch.print(file);
+        RemoteSetPatch parsed = new RemoteSetPatch(file);
+        assertEquals(parsed.size(), patch.size());
+        parsed.apply(original);
+        ExportOptions options = new ExportOptions();
+        assertEquals(original.remoteContentHashes(options), modified.remoteContentHashes(options));
+    }
+
+    /**
+     * Test of diff method, of class RemoteSetPatch, with changes of single Commands.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testCommandChanges() throws Exception {
+        System.out.println("commandChanges");
+        RemoteSet original = new RemoteSet(new Remote(SONY_FILE));
+        RemoteSet modified = new RemoteSet(new Remote(SONY_FILE));
+        CommandSet commandSet = modified.iterator().next().getCommandSets().get("commandSet");
+        commandSet.removeCommand("volume_down");
+        commandSet.renameCommand("channel_up", "next_channel");
+        commandSet.putCommand(new Command("appended", null, NEC1_PRONTO));
+
+        RemoteSetPatch patch = RemoteSetPatch.diff(original, modified);
+        assertEquals(patch.size(), 3);
+        patch.apply(original);
+        ExportOptions options = new ExportOptions();
+        assertEquals(original.remoteContentHashes(options), modified.remoteContentHashes(options));
+        Command renamed = original.iterator().next().getCommandSets().get("commandSet").getCommand("next_channel");
+        assertNotNull(renamed);
+        assertTrue(original.iterator().next().isDirty());
+    }
+
+    /**
+     * Test of apply method, of class RemoteSetPatch, with a patch not fitting.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testApplyMismatch() throws Exception {
+        System.out.println("applyMismatch");
+        RemoteSet original = new RemoteSet(new Remote(SONY_FILE));
+        RemoteSet modified = new RemoteSet(new Remote(SONY_FILE));
+        modified.iterator().next().getCommandSets().get("commandSet").removeCommand("volume_down");
+        RemoteSetPatch patch = RemoteSetPatch.diff(original, modified);
+        patch.apply(original);
+        try {
+            patch.apply(original);
+            fail();
+        } catch (GirrException ex) {
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.harctoolbox.girr;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.harctoolbox.ircore.IrSignal;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class SignalFingerprintNGTest {
+
+    private static final String NEC1_PRONTO = "0000 006C 0022 0002 015B 00AD 0016 0016 0016 0016 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0041 0016 06A4 015B 0057 0016 0E6C";
+
+    /**
+     * Test of getSignalFingerprint method, of class Command, with different representations of the same signal.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testDecodedFingerprint() throws Exception {
+        System.out.println("decodedFingerprint");
+        Command pronto = new Command("pronto", null, NEC1_PRONTO);
+        SignalFingerprint fingerprint = pronto.getSignalFingerprint();
+        assertTrue(fingerprint.isDecoded());
+        assertEquals(fingerprint.getProtocolName(), "nec1");
+        assertSame(pronto.getSignalFingerprint(), fingerprint);
+
+        // S defaults to 255-D in NEC1, so the parameter form without S is the same signal.
+        Map<String, Long> parameters = new LinkedHashMap<>(pronto.getParameters());
+        parameters.remove("S");
+        Command parametrized = new Command("parameters", "other comment", "NEC1", parameters);
+        Command raw = new Command("raw", null, pronto.toIrSignal());
+        assertEquals(parametrized.getSignalFingerprint(), fingerprint);
+        assertTrue(raw.isSignalEquivalent(pronto));
+
+        Set<SignalFingerprint> set = new HashSet<>(4);
+        set.add(fingerprint);
+        set.add(parametrized.getSignalFingerprint());
+        set.add(raw.getSignalFingerprint());
+        assertEquals(set.size(), 1);
+
+        parameters.put("F", parameters.get("F") + 1);
+        assertFalse(new Command("other", null, "NEC1", parameters).isSignalEquivalent(pronto));
+    }
+
+    /**
+     * Test of getSignalFingerprint method, of class Command, with non-decodable signals.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testRawFingerprint() throws Exception {
+        System.out.println("rawFingerprint");
+        Command command = new Command("raw", null, new IrSignal("+1000 -1000 +2000 -50000", null, null, 38000.0, null));
+        Command similar = new Command("similar", null, new IrSignal("+1010 -990 +2005 -50000", null, null, 38200.0, null));
+        Command different = new Command("different", null, new IrSignal("+1000 -1000 +3000 -50000", null, null, 38000.0, null));
+        SignalFingerprint fingerprint = command.getSignalFingerprint();
+        assertFalse(fingerprint.isDecoded());
+        assertTrue(fingerprint.toString().startsWith("raw:"));
+        assertEquals(similar.getSignalFingerprint(), fingerprint);
+        assertEquals(similar.getSignalFingerprint().hashCode(), fingerprint.hashCode());
+        assertNotEquals(different.getSignalFingerprint(), fingerprint);
+    }
+}
@@ -0,0 +1,101 @@
+package org.harctoolbox.girr;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class TextExporterNGTest {
+
+    private final Remote sonyRemote;
+
+    public TextExporterNGTest() throws GirrException, IOException, SAXException {
+        sonyRemote = new Remote("src/test/girr/sony_tv.girr");
+    }
+
+    private static int numberOfCommands(Remote remote) {
+        int count = 0;
+        for (CommandSet commandSet : remote)
+            count += commandSet.size();
+        return count;
+    }
+
+    /**
+     * Test of export method, of class TextExporter, with the RAW format.
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testExportRaw() throws IOException {
+        System.out.println("exportRaw");
+        StringBuilder out = new StringBuilder(1024);
+        int count = TextExporter.export(out, sonyRemote, TextExporter.RAW);
+        assertEquals(count, numberOfCommands(sonyRemote));
+        String[] lines = out.toString().split("\n", -1);
+        assertEquals(lines.length, 3 * count + 1);
+        assertTrue(lines[1].startsWith("Freq=40000[]["));
+        assertTrue(lines[1].endsWith("][]"));
+        assertTrue(lines[2].isEmpty());
+    }
+
+    /**
+     * Test of export method, of class TextExporter, with the RAW format and Commands having only Pronto Hex.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testExportRawFromProntoHex() throws Exception {
+        System.out.println("exportRawFromProntoHex");
+        Remote silly = new RemoteSet("src/test/girr/silly.girr").iterator().next();
+        CommandSet commandSet = silly.getCommandSets().get("commandSet");
+        Remote remote = new Remote(new CommandSet(commandSet.getCommand("Work")));
+        StringBuilder out = new StringBuilder(1024);
+        assertEquals(TextExporter.export(out, remote, TextExporter.RAW), 1);
+        String[] lines = out.toString().split("\n");
+        assertEquals(lines[0], "Work");
+        assertTrue(lines[1].startsWith("Freq=38"));
+        assertTrue(lines[1].contains("[+"));
+
+        // Every Command of the Remote is written, also the Pronto Hex ones
+        out = new StringBuilder(4096);
+        TextExporter.export(out, silly, TextExporter.RAW);
+        assertTrue(out.toString().contains("play\nFreq=38"));
+    }
+
+    /**
+     * Test of export method, of class TextExporter, with the PRONTO_HEX format.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testExportProntoHex() throws Exception {
+        System.out.println("exportProntoHex");
+        StringBuilder out = new StringBuilder(1024);
+        int count = TextExporter.export(out, sonyRemote, TextExporter.PRONTO_HEX);
+        assertEquals(count, numberOfCommands(sonyRemote));
+        String[] lines = out.toString().split("\n");
+        assertEquals(lines[0], "Remote " + sonyRemote.getName());
+        assertTrue(lines[2].toLowerCase().contains("(protocol=sony12, d=1, f="));
+        assertEquals(lines[3], sonyRemote.iterator().next().iterator().next().getProntoHex());
+    }
+
+    /**
+     * Test of export method, of class TextExporter, with a toggling Command.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testExportToggle() throws Exception {
+        System.out.println("exportToggle");
+        Map<String, Long> parameters = new HashMap<>(2);
+        parameters.put("D", 0L);
+        parameters.put("F", 12L);
+        Command command = new Command("power", null, "RC5", parameters);
+        Remote remote = new Remote(new CommandSet(command));
+        StringBuilder out = new StringBuilder(256);
+        int count = TextExporter.export(out, remote, TextExporter.PRONTO_HEX);
+        assertEquals(count, 2);
+        String result = out.toString();
+        assertTrue(result.contains("\npower (Protocol=RC5, D=0, F=12, T=0)\n"));
+        assertTrue(result.contains("\npower (Protocol=RC5, D=0, F=12, T=1)\n"));
+    }
+}
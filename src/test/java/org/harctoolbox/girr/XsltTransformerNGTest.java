@@ -0,0 +1,70 @@
+package org.harctoolbox.girr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import javax.xml.transform.Templates;
+import static org.harctoolbox.girr.CommandNGTest.OUTDIR;
+import static org.testng.Assert.*;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class XsltTransformerNGTest {
+
+    private final Remote sonyRemote;
+
+    public XsltTransformerNGTest() throws GirrException, IOException, SAXException {
+        sonyRemote = new Remote("src/test/girr/sony_tv.girr");
+    }
+
+    @BeforeClass
+    public void setUpClass() throws Exception {
+        CommandNGTest.assertOutDirExists();
+    }
+
+    /**
+     * Test of getTemplates method, of class XsltTransformer.
+     * @throws org.harctoolbox.girr.GirrException
+     */
+    @Test
+    public void testGetTemplates() throws GirrException {
+        System.out.println("getTemplates");
+        Templates templates = XsltTransformer.getTemplates("simplehtml.xsl");
+        assertSame(XsltTransformer.getTemplates("/simplehtml.xsl"), templates);
+        try {
+            XsltTransformer.getTemplates("nonexisting.xsl");
+            fail();
+        } catch (GirrException ex) {
+        }
+    }
+
+    /**
+     * Test of transform method, of class XsltTransformer.
+     * @throws org.harctoolbox.girr.GirrException
+     */
+    @Test
+    public void testTransform() throws GirrException {
+        System.out.println("transform");
+        RemoteSet remoteSet = new RemoteSet("Imhotep", "test", sonyRemote);
+        ByteArrayOutputStream ostr = new ByteArrayOutputStream();
+        XsltTransformer.transform(remoteSet, new ExportOptions(), XsltTransformer.getTemplates("simplehtml.xsl"), ostr);
+        String html = new String(ostr.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(html.contains("Remote: " + sonyRemote.getName()));
+    }
+
+    /**
+     * Test of transformTree method, of class XsltTransformer.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testTransformTree() throws Exception {
+        System.out.println("transformTree");
+        File outDir = new File(OUTDIR, "xslt");
+        int count = XsltTransformer.transformTree(new File("src/test/girr"), ".girr", outDir, ".html", XsltTransformer.getTemplates("simplehtml.xsl"), 3);
+        assertTrue(count > 0);
+        assertTrue(new File(outDir, "sony_tv.html").length() > 0);
+    }
+}